@@ -0,0 +1,123 @@
+package com.example.benchmark;
+
+import com.example.SamlApplication;
+import com.example.event.IdpConfigurationResyncEvent;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boots the application against an embedded H2 database seeded with
+ * a given number of tenants, for use by JMH benchmarks.
+ * 
+ * Tenant {@code n} has IdP ID {@code idp-n} and email domain
+ * {@code tenant-n.example.com}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+final class BenchmarkContext {
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    private BenchmarkContext() {}
+    
+    /**
+     * Start the application with the given number of seeded tenants.
+     * 
+     * @param tenants number of IdP configurations to seed
+     * @return the running application context
+     */
+    static ConfigurableApplicationContext start(int tenants) {
+        return start(tenants, new Class<?>[0]);
+    }
+    
+    /**
+     * Start the application with additional configuration.
+     * 
+     * @param tenants number of IdP configurations to seed
+     * @param sources additional configuration classes
+     * @param properties additional properties, overriding the defaults
+     * @return the running application context
+     */
+    static ConfigurableApplicationContext start(int tenants, Class<?>[] sources, String... properties) {
+        // DevTools would restart the application in a new class loader without these properties
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        
+        List<Class<?>> allSources = new ArrayList<>();
+        allSources.add(SamlApplication.class);
+        allSources.addAll(Arrays.asList(sources));
+        
+        List<String> arguments = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:bench-" + tenants + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                // The migrations use PostgreSQL-only DDL such as partial indexes
+                "spring.flyway.enabled=false",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "saml.cluster.invalidation.mode=local",
+                "logging.file.name=target/benchmark.log",
+                "logging.level.root=WARN",
+                "logging.level.com.example=WARN",
+                "logging.level.org.springframework.security=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        arguments.addAll(Arrays.asList(properties));
+        
+        // Passed as command line arguments so they take precedence over application.yml
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(allSources.toArray(new Class<?>[0]))
+                .run(arguments.stream().map(argument -> "--" + argument).toArray(String[]::new));
+        
+        seed(context.getBean(JdbcTemplate.class), tenants);
+        
+        // In-memory views were built from the empty schema at startup
+        context.publishEvent(new IdpConfigurationResyncEvent("benchmark data seeded"));
+        return context;
+    }
+    
+    /**
+     * Get the email domain of a tenant.
+     * 
+     * @param tenant the tenant number
+     * @return email domain of the tenant
+     */
+    static String domain(int tenant) {
+        return "tenant-" + tenant + ".example.com";
+    }
+    
+    private static void seed(JdbcTemplate jdbcTemplate, int tenants) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> configurations = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> domains = new ArrayList<>(BATCH_SIZE);
+        
+        for (int tenant = 1; tenant <= tenants; tenant++) {
+            configurations.add(new Object[] {
+                    (long) tenant, "idp-" + tenant, "Tenant " + tenant,
+                    "https://idp.example.com/" + tenant, "https://idp.example.com/" + tenant + "/sso",
+                    tenant == 1, now, now});
+            domains.add(new Object[] {(long) tenant, domain(tenant), now, now});
+            
+            if (configurations.size() == BATCH_SIZE || tenant == tenants) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO idp_configurations (id, idp_id, idp_name, idp_entity_id, idp_sso_url, " +
+                        "is_active, is_default, created_at, updated_at) VALUES (?, ?, ?, ?, ?, TRUE, ?, ?, ?)",
+                        configurations);
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO idp_email_domains (idp_configuration_id, email_domain, is_active, " +
+                        "created_at, updated_at) VALUES (?, ?, TRUE, ?, ?)",
+                        domains);
+                configurations.clear();
+                domains.clear();
+            }
+        }
+    }
+}
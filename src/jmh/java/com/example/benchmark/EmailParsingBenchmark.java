@@ -0,0 +1,38 @@
+package com.example.benchmark;
+
+import com.example.service.IdpConfigurationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of email domain extraction.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailParsingBenchmark {
+    
+    @Param({"jane.doe@corp.com", "Jane.Doe@EU.Subsidiary.Corp.COM"})
+    private String email;
+    
+    @Benchmark
+    public String extractDomainFromEmail() {
+        return IdpConfigurationService.extractDomainFromEmail(email);
+    }
+}
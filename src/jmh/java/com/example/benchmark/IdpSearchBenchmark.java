@@ -0,0 +1,100 @@
+package com.example.benchmark;
+
+import com.example.service.IdpNameIndex;
+import com.example.service.IdpNameIndex.Suggestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of typeahead search over IdP names.
+ * 
+ * Names are generated from a small vocabulary, as in a federation where
+ * most members are universities and colleges, so short prefixes match
+ * most IdPs. {@code update} measures replacing one IdP's names, as done
+ * for each configuration change.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdpSearchBenchmark {
+    
+    private static final String[] PREFIXES = {
+            "University of", "State University of", "College of", "Institute of Technology",
+            "École Polytechnique de", "Technische Universität", "Hospital of", "Research Centre"};
+    
+    private static final String[] PLACES = {
+            "Amsterdam", "Berlin", "Boston", "Cambridge", "Chicago", "Dublin", "Geneva", "Helsinki",
+            "Lisbon", "London", "Madrid", "Melbourne", "Montréal", "Munich", "Oslo", "Paris", "Prague",
+            "Stockholm", "Sydney", "Tokyo", "Toronto", "Vienna", "Warsaw", "Zürich"};
+    
+    private static final int LIMIT = 10;
+    
+    @Param({"1000", "50000"})
+    private int idps;
+    
+    private IdpNameIndex index;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new IdpNameIndex();
+        Random random = new Random(42);
+        for (int i = 1; i <= idps; i++) {
+            index.put("idp-" + i, name(random, i), null, null);
+        }
+    }
+    
+    /** A prefix of the first word of most names. */
+    @Benchmark
+    public List<Suggestion> searchShortPrefix() {
+        return index.search("u", LIMIT);
+    }
+    
+    /** A prefix of a later word. */
+    @Benchmark
+    public List<Suggestion> searchWordPrefix() {
+        return index.search("techn", LIMIT);
+    }
+    
+    @Benchmark
+    public List<Suggestion> searchTwoWords() {
+        return index.search("state univ", LIMIT);
+    }
+    
+    @Benchmark
+    public List<Suggestion> searchNoMatch() {
+        return index.search("zzz", LIMIT);
+    }
+    
+    @Benchmark
+    public void update() {
+        int i = ThreadLocalRandom.current().nextInt(idps) + 1;
+        index.put("idp-" + i, name(ThreadLocalRandom.current(), i), null, null);
+    }
+    
+    private static String name(Random random, int i) {
+        String prefix = PREFIXES[random.nextInt(PREFIXES.length)];
+        String place = PLACES[random.nextInt(PLACES.length)];
+        return random.nextBoolean() ? prefix + " " + place + " " + i : place + " " + prefix + " " + i;
+    }
+}
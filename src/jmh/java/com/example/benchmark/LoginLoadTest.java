@@ -0,0 +1,151 @@
+package com.example.benchmark;
+
+import jakarta.servlet.Filter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test of email-based login routing.
+ * 
+ * Boots the application against H2 and keeps a fixed number of concurrent
+ * users posting the login form, each sending its next request as soon as
+ * the previous one is answered. A filter delays every login by a fixed
+ * time to stand in for blocking database or IdP calls, which is what
+ * exhausts a bounded worker pool. Reports throughput and latency
+ * percentiles after a warmup. Configured through system properties:
+ * <ul>
+ *   <li>{@code load.profile} - Spring profile to activate, e.g. {@code virtual-threads} (Java 21)</li>
+ *   <li>{@code load.concurrency} - concurrent users, default 2000</li>
+ *   <li>{@code load.latency} - simulated blocking time per login in ms, default 100</li>
+ *   <li>{@code load.tenants} - seeded tenants, default 1000</li>
+ *   <li>{@code load.warmup} / {@code load.duration} - phase lengths in seconds, default 10 / 30</li>
+ * </ul>
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public final class LoginLoadTest {
+    
+    private LoginLoadTest() {}
+    
+    public static void main(String[] args) throws Exception {
+        String profile = System.getProperty("load.profile", "");
+        int concurrency = Integer.getInteger("load.concurrency", 2000);
+        long latencyMillis = Long.getLong("load.latency", 100);
+        int tenants = Integer.getInteger("load.tenants", 1000);
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 30));
+        
+        ConfigurableApplicationContext context = BenchmarkContext.start(tenants,
+                new Class<?>[] {SlowBackendConfig.class},
+                "spring.profiles.active=" + profile,
+                "load.latency=" + latencyMillis);
+        
+        try {
+            URI login = URI.create("http://localhost:"
+                    + context.getEnvironment().getProperty("local.server.port") + "/login");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            
+            run(client, login, tenants, concurrency, warmup);
+            Result result = run(client, login, tenants, concurrency, duration);
+            
+            Histogram histogram = result.histogram;
+            System.out.printf("%s threads, %d users, %d ms backend latency: %.0f logins/s, "
+                            + "p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, max %.1f ms, %d errors%n",
+                    profile.isEmpty() ? "platform" : profile, concurrency, latencyMillis,
+                    histogram.getTotalCount() / (double) duration.toSeconds(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+                    result.errors);
+        } finally {
+            context.close();
+        }
+    }
+    
+    private static Result run(HttpClient client, URI login, int tenants, int concurrency, Duration duration)
+            throws InterruptedException {
+        Recorder recorder = new Recorder(3);
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+        
+        for (int user = 0; user < concurrency; user++) {
+            loop(client, login, tenants, user, deadline, recorder, errors, finished);
+        }
+        finished.await();
+        return new Result(recorder.getIntervalHistogram(), errors.get());
+    }
+    
+    private static void loop(HttpClient client, URI login, int tenants, int user, long deadline,
+                             Recorder recorder, AtomicLong errors, CountDownLatch finished) {
+        long start = System.nanoTime();
+        if (start >= deadline) {
+            finished.countDown();
+            return;
+        }
+        
+        int tenant = ThreadLocalRandom.current().nextInt(tenants) + 1;
+        HttpRequest request = HttpRequest.newBuilder(login)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "email=user" + user + "@" + BenchmarkContext.domain(tenant)))
+                .build();
+        
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            // The login form answers with a redirect to the tenant's IdP
+            if (failure != null || response.statusCode() != 302) {
+                errors.incrementAndGet();
+            } else {
+                recorder.recordValue(System.nanoTime() - start);
+            }
+            loop(client, login, tenants, user, deadline, recorder, errors, finished);
+        });
+    }
+    
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+    
+    private record Result(Histogram histogram, long errors) {}
+    
+    /**
+     * Delays every request to /login to simulate blocking backend calls.
+     */
+    @Configuration
+    static class SlowBackendConfig {
+        
+        @Bean
+        FilterRegistrationBean<Filter> slowBackendFilter(@Value("${load.latency}") long latencyMillis) {
+            Filter filter = (request, response, chain) -> {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                chain.doFilter(request, response);
+            };
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>(filter);
+            registration.addUrlPatterns("/login");
+            return registration;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.benchmark;
+
+import com.example.controller.AuthController;
+import com.example.model.IdpSnapshot;
+import com.example.saml.RelyingPartyRegistrationFactory;
+import com.example.service.IdpConfigurationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end benchmarks of the login routing hot path.
+ * 
+ * Each tenant count runs against a freshly booted application and
+ * embedded database. Warm lookups cycle over emails already cached;
+ * cold lookups use a new email address on every call.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginRoutingBenchmark {
+    
+    private static final int WARM_EMAILS = 1000;
+    
+    @Param({"10", "1000", "50000"})
+    private int tenants;
+    
+    private ConfigurableApplicationContext context;
+    
+    private IdpConfigurationService idpConfigurationService;
+    
+    private AuthController authController;
+    
+    private RelyingPartyRegistrationFactory registrationFactory;
+    
+    private IdpSnapshot snapshot;
+    
+    private String[] warmEmails;
+    
+    private final AtomicLong coldSequence = new AtomicLong();
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(tenants);
+        idpConfigurationService = context.getBean(IdpConfigurationService.class);
+        authController = context.getBean(AuthController.class);
+        registrationFactory = context.getBean(RelyingPartyRegistrationFactory.class);
+        snapshot = idpConfigurationService.getByIdpId("idp-1").orElseThrow();
+        
+        warmEmails = new String[Math.min(tenants, WARM_EMAILS)];
+        for (int i = 0; i < warmEmails.length; i++) {
+            warmEmails[i] = "user@" + BenchmarkContext.domain(i + 1);
+            idpConfigurationService.findByIdpByEmail(warmEmails[i]);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Optional<IdpSnapshot> findByIdpByEmailWarm() {
+        return idpConfigurationService.findByIdpByEmail(
+                warmEmails[ThreadLocalRandom.current().nextInt(warmEmails.length)]);
+    }
+    
+    @Benchmark
+    public Optional<IdpSnapshot> findByIdpByEmailCold() {
+        long sequence = coldSequence.incrementAndGet();
+        int tenant = (int) (sequence % tenants) + 1;
+        return idpConfigurationService.findByIdpByEmail("user" + sequence + "@" + BenchmarkContext.domain(tenant));
+    }
+    
+    @Benchmark
+    public String processLoginRedirect() {
+        int tenant = ThreadLocalRandom.current().nextInt(tenants) + 1;
+        return authController.processLogin("user@" + BenchmarkContext.domain(tenant), new MockHttpServletRequest());
+    }
+    
+    @Benchmark
+    public RelyingPartyRegistration createRelyingPartyRegistration() {
+        return registrationFactory.createRelyingPartyRegistration(snapshot);
+    }
+}
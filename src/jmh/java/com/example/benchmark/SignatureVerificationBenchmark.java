@@ -0,0 +1,105 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of XML signature value verification per core.
+ * 
+ * Verifies a signature over a SignedInfo-sized payload, the part of XML
+ * signature validation that dominates SAML Response processing. Runs on a
+ * single thread so the score is throughput per core. Pass
+ * {@code -p provider=<name>} to measure a specific JCA provider.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+@Fork(1)
+public class SignatureVerificationBenchmark {
+    
+    @Param({"SHA256withRSA:2048", "SHA256withRSA:3072", "SHA256withECDSA:secp256r1", "SHA384withECDSA:secp384r1"})
+    private String algorithm;
+    
+    /**
+     * JCA provider name; empty for the default provider order.
+     */
+    @Param({""})
+    private String provider;
+    
+    private byte[] signedInfo;
+    
+    private byte[] signatureValue;
+    
+    private PublicKey publicKey;
+    
+    private Signature verifier;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        String[] parts = algorithm.split(":");
+        String jcaAlgorithm = parts[0];
+        
+        KeyPairGenerator generator;
+        if (jcaAlgorithm.endsWith("ECDSA")) {
+            generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec(parts[1]));
+        } else {
+            generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(Integer.parseInt(parts[1]));
+        }
+        KeyPair keyPair = generator.generateKeyPair();
+        publicKey = keyPair.getPublic();
+        
+        signedInfo = ("<ds:SignedInfo xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">"
+                + "<ds:CanonicalizationMethod Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\"/>"
+                + "<ds:SignatureMethod Algorithm=\"http://www.w3.org/2001/04/xmldsig-more#rsa-sha256\"/>"
+                + "<ds:Reference URI=\"#_8e8dc5f69a98cc4c1ff3427e5ce34606fd672f91e6\"><ds:Transforms>"
+                + "<ds:Transform Algorithm=\"http://www.w3.org/2000/09/xmldsig#enveloped-signature\"/>"
+                + "<ds:Transform Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\"/></ds:Transforms>"
+                + "<ds:DigestMethod Algorithm=\"http://www.w3.org/2001/04/xmlenc#sha256\"/>"
+                + "<ds:DigestValue>Lbnh8ZKbl8+9VJm+XmiNBWvtnqYvS0ojvC7GtNmB1sc=</ds:DigestValue>"
+                + "</ds:Reference></ds:SignedInfo>").getBytes(StandardCharsets.UTF_8);
+        
+        Signature signer = Signature.getInstance(jcaAlgorithm);
+        signer.initSign(keyPair.getPrivate());
+        signer.update(signedInfo);
+        signatureValue = signer.sign();
+        
+        verifier = provider.isEmpty()
+                ? Signature.getInstance(jcaAlgorithm)
+                : Signature.getInstance(jcaAlgorithm, provider);
+    }
+    
+    @Benchmark
+    public boolean verify() throws GeneralSecurityException {
+        verifier.initVerify(publicKey);
+        verifier.update(signedInfo);
+        return verifier.verify(signatureValue);
+    }
+}
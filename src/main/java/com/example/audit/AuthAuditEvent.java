@@ -0,0 +1,55 @@
+package com.example.audit;
+
+import java.time.Instant;
+
+/**
+ * Structured record of one step of an authentication.
+ * 
+ * Carries the user's email domain rather than the address; the principal
+ * is only recorded once the IdP has asserted it.
+ * 
+ * @param type the step
+ * @param occurredAt when the step happened
+ * @param idpId the IdP involved, if known
+ * @param emailDomain the domain of the email the user entered, if any
+ * @param principal the authenticated principal name, if any
+ * @param remoteAddress the client address
+ * @param detail outcome detail such as a failure code, if any
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public record AuthAuditEvent(
+        Type type,
+        Instant occurredAt,
+        String idpId,
+        String emailDomain,
+        String principal,
+        String remoteAddress,
+        String detail) {
+    
+    /**
+     * Authentication steps recorded in the audit trail.
+     */
+    public enum Type {
+        /** Email submitted on the login form. */
+        LOGIN_INITIATED,
+        /** IdP chosen for the submitted email; detail tells how. */
+        IDP_SELECTED,
+        /** SAML Response accepted at the assertion consumer service. */
+        ACS_SUCCESS,
+        /** SAML Response rejected at the assertion consumer service. */
+        ACS_FAILURE,
+        /** Logout requested. */
+        LOGOUT
+    }
+    
+    /**
+     * Create an event happening now.
+     * 
+     * @return the event
+     */
+    public static AuthAuditEvent now(Type type, String idpId, String emailDomain, String principal,
+                                     String remoteAddress, String detail) {
+        return new AuthAuditEvent(type, Instant.now(), idpId, emailDomain, principal, remoteAddress, detail);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.audit;
+
+import com.example.audit.AuthAuditEvent.Type;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticatedPrincipal;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationException;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationToken;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the outcome of SAML Responses at the assertion consumer service.
+ * 
+ * Listens to the authentication events published by the SAML
+ * authentication manager; other authentications are ignored.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Component
+public class AuthAuditListener {
+    
+    private final AuthAuditPipeline auditPipeline;
+    
+    @Autowired
+    public AuthAuditListener(AuthAuditPipeline auditPipeline) {
+        this.auditPipeline = auditPipeline;
+    }
+    
+    /**
+     * Record an accepted SAML Response.
+     * 
+     * @param event the success event
+     */
+    @EventListener
+    public void onSuccess(AuthenticationSuccessEvent event) {
+        Authentication authentication = event.getAuthentication();
+        if (!(authentication.getPrincipal() instanceof Saml2AuthenticatedPrincipal principal)) {
+            return;
+        }
+        auditPipeline.record(AuthAuditEvent.now(Type.ACS_SUCCESS, principal.getRelyingPartyRegistrationId(),
+                null, authentication.getName(), remoteAddress(authentication), null));
+    }
+    
+    /**
+     * Record a rejected SAML Response.
+     * 
+     * @param event the failure event
+     */
+    @EventListener
+    public void onFailure(AbstractAuthenticationFailureEvent event) {
+        if (!(event.getAuthentication() instanceof Saml2AuthenticationToken token)) {
+            return;
+        }
+        String detail = event.getException() instanceof Saml2AuthenticationException e
+                ? e.getSaml2Error().getErrorCode() + ": " + e.getSaml2Error().getDescription()
+                : event.getException().getClass().getSimpleName();
+        String idpId = token.getRelyingPartyRegistration() != null
+                ? token.getRelyingPartyRegistration().getRegistrationId() : null;
+        auditPipeline.record(AuthAuditEvent.now(Type.ACS_FAILURE, idpId, null, null, remoteAddress(token), detail));
+    }
+    
+    private static String remoteAddress(Authentication authentication) {
+        return authentication.getDetails() instanceof WebAuthenticationDetails details
+                ? details.getRemoteAddress() : null;
+    }
+}
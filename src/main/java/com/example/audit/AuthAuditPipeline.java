@@ -0,0 +1,195 @@
+package com.example.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous writer of the authentication audit trail.
+ * 
+ * Request threads hand events to a lock-free {@link MpscRingBuffer} and
+ * return immediately; when the buffer is full the event is dropped and
+ * counted rather than slowing down the login. A single writer thread
+ * drains the buffer and inserts the events with JDBC batch inserts.
+ * Events still buffered at shutdown are flushed before the datasource
+ * closes. Requires, as created by the
+ * {@code V2__operational_tables} migration:
+ * <pre>
+ * CREATE TABLE auth_audit_events (
+ *     id             BIGSERIAL PRIMARY KEY,
+ *     event_type     VARCHAR(32) NOT NULL,
+ *     occurred_at    TIMESTAMP WITH TIME ZONE NOT NULL,
+ *     idp_id         VARCHAR(255),
+ *     email_domain   VARCHAR(255),
+ *     principal      VARCHAR(255),
+ *     remote_address VARCHAR(64),
+ *     detail         VARCHAR(1024)
+ * );
+ * </pre>
+ * Registers the {@code saml.audit.events} counter tagged with outcome
+ * {@code written}, {@code dropped} or {@code failed}, and the
+ * {@code saml.audit.buffer.size} gauge.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class AuthAuditPipeline implements SmartLifecycle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AuthAuditPipeline.class);
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO auth_audit_events (event_type, occurred_at, idp_id, email_domain, principal, "
+            + "remote_address, detail) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final int MAX_DETAIL_LENGTH = 1024;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final MpscRingBuffer<AuthAuditEvent> buffer;
+    
+    private final int batchSize;
+    
+    private final Duration flushInterval;
+    
+    private final Duration shutdownTimeout;
+    
+    private final Counter written;
+    
+    private final Counter dropped;
+    
+    private final Counter failed;
+    
+    private volatile boolean running;
+    
+    private Thread writerThread;
+    
+    public AuthAuditPipeline(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, int bufferSize, int batchSize,
+                             Duration flushInterval, Duration shutdownTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.shutdownTimeout = shutdownTimeout;
+        this.written = counter(meterRegistry, "written");
+        this.dropped = counter(meterRegistry, "dropped");
+        this.failed = counter(meterRegistry, "failed");
+        meterRegistry.gauge("saml.audit.buffer.size", buffer, MpscRingBuffer::size);
+    }
+    
+    /**
+     * Record an event without blocking.
+     * 
+     * @param event the event
+     * @return true if buffered, false if dropped because the buffer is full
+     */
+    public boolean record(AuthAuditEvent event) {
+        if (buffer.offer(event)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+    
+    @Override
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::write, "auth-audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Started authentication audit writer with a buffer of {} events", buffer.capacity());
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(shutdownTimeout.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (writerThread.isAlive()) {
+                logger.warn("Authentication audit writer did not flush within {}", shutdownTimeout);
+            }
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private void write() {
+        List<AuthAuditEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            if (drain(batch) < batchSize) {
+                // Let the next batch accumulate; stop() unparks for the final flush
+                LockSupport.parkNanos(flushInterval.toNanos());
+            }
+        }
+        
+        // Flush whatever was still buffered at shutdown
+        int flushed = 0;
+        for (int drained = drain(batch); drained > 0; drained = drain(batch)) {
+            flushed += drained;
+        }
+        logger.info("Authentication audit writer stopped after flushing {} events", flushed);
+    }
+    
+    /**
+     * Write up to one batch from the buffer.
+     * 
+     * @return the number of events taken from the buffer
+     */
+    private int drain(List<AuthAuditEvent> batch) {
+        AuthAuditEvent event;
+        while (batch.size() < batchSize && (event = buffer.poll()) != null) {
+            batch.add(event);
+        }
+        int size = batch.size();
+        if (size == 0) {
+            return 0;
+        }
+        
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, size, (statement, e) -> {
+                statement.setString(1, e.type().name());
+                statement.setTimestamp(2, Timestamp.from(e.occurredAt()));
+                statement.setString(3, e.idpId());
+                statement.setString(4, e.emailDomain());
+                statement.setString(5, e.principal());
+                statement.setString(6, e.remoteAddress());
+                statement.setString(7, truncate(e.detail()));
+            });
+            written.increment(size);
+        } catch (RuntimeException e) {
+            // Audit writes must never take the writer down; the batch is lost and counted
+            failed.increment(size);
+            logger.error("Failed to write {} authentication audit events: {}", size, e.getMessage());
+        } finally {
+            batch.clear();
+        }
+        return size;
+    }
+    
+    private static String truncate(String value) {
+        return value == null || value.length() <= MAX_DETAIL_LENGTH ? value : value.substring(0, MAX_DETAIL_LENGTH);
+    }
+    
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("saml.audit.events")
+                .description("Authentication audit events by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
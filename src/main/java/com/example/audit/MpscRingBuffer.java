@@ -0,0 +1,104 @@
+package com.example.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer, single-consumer ring buffer.
+ * 
+ * Each slot carries a sequence number telling producers whether it is
+ * free for the current lap and the consumer whether it has been
+ * published. Producers claim slots with a CAS on the tail and never
+ * block; {@link #offer} fails once the buffer is full. Only one thread
+ * may call {@link #poll}.
+ * 
+ * @param <E> the element type
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+final class MpscRingBuffer<E> {
+    
+    private final int mask;
+    
+    private final AtomicReferenceArray<E> elements;
+    
+    private final AtomicLongArray sequences;
+    
+    private final AtomicLong tail = new AtomicLong();
+    
+    private volatile long head;
+    
+    MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, got " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+    
+    /**
+     * Add an element unless the buffer is full.
+     * 
+     * @param element the element
+     * @return true if added, false if the buffer is full
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // Publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer has not freed this slot from the previous lap
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+    
+    /**
+     * Remove the oldest published element. Single consumer only.
+     * 
+     * @return the element, or null if none is published
+     */
+    E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        // Frees the slot for the producers' next lap
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return element;
+    }
+    
+    /**
+     * Get the approximate number of elements claimed but not yet consumed.
+     * 
+     * @return approximate size
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+    
+    int capacity() {
+        return mask + 1;
+    }
+}
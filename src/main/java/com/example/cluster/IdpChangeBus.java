@@ -0,0 +1,40 @@
+package com.example.cluster;
+
+import com.example.event.IdpConfigurationChangedEvent;
+
+/**
+ * Bus broadcasting IdP configuration changes to the other cluster nodes.
+ * 
+ * Implementations deliver a change only once the publishing transaction
+ * has committed and re-publish received changes on each remote node as
+ * an {@link IdpConfigurationChangedEvent} with {@code remote} set, so the
+ * node's in-memory views and caches refresh just the affected IdP.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public interface IdpChangeBus {
+    
+    /**
+     * Broadcast a local change to the other nodes.
+     * 
+     * @param event the local change event
+     */
+    void publish(IdpConfigurationChangedEvent event);
+    
+    /**
+     * Ask the other nodes to reload all IdP configurations, for changes
+     * too large to send one IdP at a time. Sent immediately, not tied to
+     * a transaction.
+     * 
+     * @param reason the reason, logged by the receiving nodes
+     */
+    void publishResync(String reason);
+    
+    /**
+     * Get the identifier of this node on the bus.
+     * 
+     * @return node identifier
+     */
+    String getNodeId();
+}
@@ -0,0 +1,127 @@
+package com.example.cluster;
+
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationChangedEvent.Aspect;
+import com.example.event.IdpConfigurationChangedEvent.ChangeType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Set;
+
+/**
+ * Wire format of an IdP configuration change sent over the {@link IdpChangeBus}.
+ * 
+ * A message with a resync reason instead of an IdP asks the receiving
+ * nodes to reload all IdP configurations.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class IdpChangeMessage {
+    
+    private String origin;
+    
+    private String idpId;
+    
+    private Long id;
+    
+    private ChangeType changeType;
+    
+    private Set<Aspect> aspects;
+    
+    private Set<String> emailDomains;
+    
+    private String resyncReason;
+    
+    // Constructors
+    public IdpChangeMessage() {}
+    
+    public IdpChangeMessage(String origin, IdpConfigurationChangedEvent event) {
+        this.origin = origin;
+        this.idpId = event.getIdpId();
+        this.id = event.getId();
+        this.changeType = event.getChangeType();
+        this.aspects = event.getAspects();
+        this.emailDomains = event.getEmailDomains();
+    }
+    
+    public IdpChangeMessage(String origin, String resyncReason) {
+        this.origin = origin;
+        this.resyncReason = resyncReason;
+    }
+    
+    /**
+     * Check whether the message requests a full reload.
+     * 
+     * @return true for a resync message
+     */
+    @JsonIgnore
+    public boolean isResync() {
+        return resyncReason != null;
+    }
+    
+    /**
+     * Convert the message into a remote change event.
+     * 
+     * @return event to publish on the receiving node
+     */
+    public IdpConfigurationChangedEvent toEvent() {
+        return new IdpConfigurationChangedEvent(idpId, id, changeType, aspects, emailDomains, true);
+    }
+    
+    // Getters and Setters
+    public String getOrigin() {
+        return origin;
+    }
+    
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+    
+    public String getIdpId() {
+        return idpId;
+    }
+    
+    public void setIdpId(String idpId) {
+        this.idpId = idpId;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+    
+    public void setChangeType(ChangeType changeType) {
+        this.changeType = changeType;
+    }
+    
+    public Set<Aspect> getAspects() {
+        return aspects;
+    }
+    
+    public void setAspects(Set<Aspect> aspects) {
+        this.aspects = aspects;
+    }
+    
+    public Set<String> getEmailDomains() {
+        return emailDomains;
+    }
+    
+    public void setEmailDomains(Set<String> emailDomains) {
+        this.emailDomains = emailDomains;
+    }
+    
+    public String getResyncReason() {
+        return resyncReason;
+    }
+    
+    public void setResyncReason(String resyncReason) {
+        this.resyncReason = resyncReason;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.cluster;
+
+import com.example.event.IdpConfigurationChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Forwards local IdP configuration changes to the {@link IdpChangeBus}.
+ * 
+ * Listens synchronously, inside the publishing transaction, so that the
+ * bus can tie delivery to the transaction's commit. Remote events are
+ * not forwarded again.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Component
+public class IdpChangeRelay {
+    
+    private final IdpChangeBus idpChangeBus;
+    
+    @Autowired
+    public IdpChangeRelay(IdpChangeBus idpChangeBus) {
+        this.idpChangeBus = idpChangeBus;
+    }
+    
+    @EventListener
+    public void onIdpConfigurationChanged(IdpConfigurationChangedEvent event) {
+        if (!event.isRemote()) {
+            idpChangeBus.publish(event);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.cluster;
+
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationResyncEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-JVM {@link IdpChangeBus} stand-in.
+ * 
+ * All instances in the same JVM share one channel, so several application
+ * contexts started side by side, as in integration tests, behave like
+ * separate cluster nodes. With a single context the bus only drops the
+ * change, which is the correct behavior for a single-node deployment.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class InMemoryIdpChangeBus implements IdpChangeBus, DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryIdpChangeBus.class);
+    
+    private static final List<InMemoryIdpChangeBus> NODES = new CopyOnWriteArrayList<>();
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    public InMemoryIdpChangeBus(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        NODES.add(this);
+    }
+    
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * Deliver a change to the other in-JVM nodes after the current
+     * transaction commits, or immediately without a transaction.
+     * 
+     * @param event the local change event
+     */
+    @Override
+    public void publish(IdpConfigurationChangedEvent event) {
+        IdpChangeMessage message = new IdpChangeMessage(nodeId, event);
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(message);
+                }
+            });
+        } else {
+            deliver(message);
+        }
+    }
+    
+    /**
+     * Deliver a resync request to the other in-JVM nodes immediately.
+     * 
+     * @param reason the reason
+     */
+    @Override
+    public void publishResync(String reason) {
+        deliver(new IdpChangeMessage(nodeId, reason));
+    }
+    
+    private void deliver(IdpChangeMessage message) {
+        for (InMemoryIdpChangeBus node : NODES) {
+            if (node != this) {
+                logger.debug("Delivering IdP change for {} to node {}", message.getIdpId(), node.nodeId);
+                node.eventPublisher.publishEvent(message.isResync()
+                        ? new IdpConfigurationResyncEvent(message.getResyncReason()) : message.toEvent());
+            }
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        NODES.remove(this);
+    }
+}
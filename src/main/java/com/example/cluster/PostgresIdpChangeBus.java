@@ -0,0 +1,212 @@
+package com.example.cluster;
+
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationResyncEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * {@link IdpChangeBus} backed by PostgreSQL {@code LISTEN/NOTIFY}.
+ * 
+ * Changes are sent with {@code pg_notify} on the publishing transaction's
+ * connection, so PostgreSQL only delivers them once that transaction
+ * commits. A dedicated listener connection polls for notifications and
+ * re-publishes those from other nodes as local events. After the listener
+ * reconnects, notifications may have been missed and a full
+ * {@link IdpConfigurationResyncEvent} is published instead.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class PostgresIdpChangeBus implements IdpChangeBus, SmartLifecycle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PostgresIdpChangeBus.class);
+    
+    /**
+     * PostgreSQL rejects notification payloads of 8000 bytes or more.
+     */
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    
+    private final DataSource dataSource;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final ObjectMapper objectMapper;
+    
+    private final String channel;
+    
+    private final Duration pollTimeout;
+    
+    private final Duration reconnectDelay;
+    
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    private volatile boolean running;
+    
+    private Thread listenerThread;
+    
+    public PostgresIdpChangeBus(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                                ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                                String channel, Duration pollTimeout, Duration reconnectDelay) {
+        if (channel == null || !channel.matches("[a-z_][a-z0-9_]*")) {
+            // The channel is interpolated into LISTEN, so only plain identifiers are allowed
+            throw new IllegalArgumentException("Invalid notification channel name: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+    }
+    
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * Send a change notification within the current transaction.
+     * 
+     * @param event the local change event
+     */
+    @Override
+    public void publish(IdpConfigurationChangedEvent event) {
+        IdpChangeMessage message = new IdpChangeMessage(nodeId, event);
+        String payload = serialize(message);
+        
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            // Too many domains to fit: receivers treat unknown domains as "all domains"
+            message.setEmailDomains(null);
+            payload = serialize(message);
+        }
+        
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, payload);
+        logger.debug("Queued cluster notification for IdP {} on channel {}", event.getIdpId(), channel);
+    }
+    
+    /**
+     * Send a resync notification on its own connection.
+     * 
+     * @param reason the reason, logged by the receiving nodes
+     */
+    @Override
+    public void publishResync(String reason) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel,
+                serialize(new IdpChangeMessage(nodeId, reason)));
+        logger.info("Sent cluster resync notification on channel {}: {}", channel, reason);
+    }
+    
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "idp-change-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        logger.info("Started cluster invalidation listener on channel '{}' as node {}", channel, nodeId);
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+        logger.info("Stopped cluster invalidation listener");
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Listener loop, reconnecting with a fixed delay on connection failures.
+     */
+    private void listen() {
+        boolean reconnecting = false;
+        
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                
+                if (reconnecting) {
+                    logger.warn("Cluster invalidation listener reconnected, resynchronizing IdP configurations");
+                    eventPublisher.publishEvent(new IdpConfigurationResyncEvent("listener reconnected"));
+                }
+                reconnecting = true;
+                
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+                
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                logger.error("Cluster invalidation listener failed: {}", e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+    
+    private void handle(String payload) {
+        try {
+            IdpChangeMessage message = objectMapper.readValue(payload, IdpChangeMessage.class);
+            if (nodeId.equals(message.getOrigin())) {
+                return;
+            }
+            if (message.isResync()) {
+                logger.info("Resynchronizing IdP configurations for node {}: {}", message.getOrigin(),
+                        message.getResyncReason());
+                eventPublisher.publishEvent(new IdpConfigurationResyncEvent(message.getResyncReason()));
+                return;
+            }
+            logger.debug("Received IdP change for {} from node {}", message.getIdpId(), message.getOrigin());
+            eventPublisher.publishEvent(message.toEvent());
+        } catch (Exception e) {
+            // A bad message must not stop the listener for everyone else
+            logger.error("Failed to handle cluster notification '{}': {}", payload, e.getMessage(), e);
+        }
+    }
+    
+    private String serialize(IdpChangeMessage message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize IdP change message", e);
+        }
+    }
+}
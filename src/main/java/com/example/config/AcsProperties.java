@@ -0,0 +1,222 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for the SAML assertion consumer service.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "saml.acs")
+public class AcsProperties {
+    
+    /**
+     * Largest decoded SAML Response accepted; larger ones are rejected unparsed.
+     */
+    private DataSize maxResponseSize = DataSize.ofKilobytes(256);
+    
+    /**
+     * Allowed clock difference when checking assertion validity times.
+     */
+    private Duration clockSkew = Duration.ofMinutes(5);
+    
+    private final Signature signature = new Signature();
+    
+    private final Replay replay = new Replay();
+    
+    public DataSize getMaxResponseSize() {
+        return maxResponseSize;
+    }
+    
+    public void setMaxResponseSize(DataSize maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+    }
+    
+    public Duration getClockSkew() {
+        return clockSkew;
+    }
+    
+    public void setClockSkew(Duration clockSkew) {
+        this.clockSkew = clockSkew;
+    }
+    
+    public Signature getSignature() {
+        return signature;
+    }
+    
+    public Replay getReplay() {
+        return replay;
+    }
+    
+    /**
+     * JCA provider selection for signature verification.
+     */
+    public static class Signature {
+        
+        /**
+         * Provider classes to install, after the JDK providers.
+         */
+        private List<String> providers = new ArrayList<>();
+        
+        /**
+         * Preferred provider name per JCA signature algorithm, e.g. SHA256withECDSA.
+         */
+        private Map<String, String> preferred = new LinkedHashMap<>();
+        
+        public List<String> getProviders() {
+            return providers;
+        }
+        
+        public void setProviders(List<String> providers) {
+            this.providers = providers;
+        }
+        
+        public Map<String, String> getPreferred() {
+            return preferred;
+        }
+        
+        public void setPreferred(Map<String, String> preferred) {
+            this.preferred = preferred;
+        }
+    }
+    
+    /**
+     * Replay protection for consumed Response, assertion and request IDs.
+     */
+    public static class Replay {
+        
+        /**
+         * Where consumed identifiers are kept.
+         */
+        public enum Store {
+            /** Per-node bounded in-memory buckets. */
+            LOCAL,
+            /** Table in the application database, shared by all nodes. */
+            JDBC
+        }
+        
+        private Store store = Store.LOCAL;
+        
+        /**
+         * Longest time an identifier is kept; later expiry times are clamped.
+         */
+        private Duration retention = Duration.ofMinutes(15);
+        
+        /**
+         * Expiry granularity of the in-memory store.
+         */
+        private Duration bucketDuration = Duration.ofMinutes(1);
+        
+        /**
+         * Peak logins per second on one node, used to size in-memory buckets.
+         */
+        private double peakLoginRate = 300;
+        
+        /**
+         * Identifiers recorded per login: Response, assertion and InResponseTo.
+         */
+        private int idsPerLogin = 3;
+        
+        /**
+         * Identifiers the in-memory store holds per bucket before spilling;
+         * derived from the peak login rate when not set.
+         */
+        private Integer bucketCapacity;
+        
+        /**
+         * Extra tables a full in-memory bucket may add before logins whose
+         * identifiers expire in it are rejected.
+         */
+        private int maxSpillTables = 2;
+        
+        /**
+         * Lifetime of identifiers from Responses without a NotOnOrAfter.
+         */
+        private Duration defaultLifetime = Duration.ofMinutes(5);
+        
+        /**
+         * How often expired rows are deleted from the shared table.
+         */
+        private Duration purgeInterval = Duration.ofMinutes(5);
+        
+        public Store getStore() {
+            return store;
+        }
+        
+        public void setStore(Store store) {
+            this.store = store;
+        }
+        
+        public Duration getRetention() {
+            return retention;
+        }
+        
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+        
+        public Duration getBucketDuration() {
+            return bucketDuration;
+        }
+        
+        public void setBucketDuration(Duration bucketDuration) {
+            this.bucketDuration = bucketDuration;
+        }
+        
+        public double getPeakLoginRate() {
+            return peakLoginRate;
+        }
+        
+        public void setPeakLoginRate(double peakLoginRate) {
+            this.peakLoginRate = peakLoginRate;
+        }
+        
+        public int getIdsPerLogin() {
+            return idsPerLogin;
+        }
+        
+        public void setIdsPerLogin(int idsPerLogin) {
+            this.idsPerLogin = idsPerLogin;
+        }
+        
+        public Integer getBucketCapacity() {
+            return bucketCapacity;
+        }
+        
+        public void setBucketCapacity(Integer bucketCapacity) {
+            this.bucketCapacity = bucketCapacity;
+        }
+        
+        public int getMaxSpillTables() {
+            return maxSpillTables;
+        }
+        
+        public void setMaxSpillTables(int maxSpillTables) {
+            this.maxSpillTables = maxSpillTables;
+        }
+        
+        public Duration getDefaultLifetime() {
+            return defaultLifetime;
+        }
+        
+        public void setDefaultLifetime(Duration defaultLifetime) {
+            this.defaultLifetime = defaultLifetime;
+        }
+        
+        public Duration getPurgeInterval() {
+            return purgeInterval;
+        }
+        
+        public void setPurgeInterval(Duration purgeInterval) {
+            this.purgeInterval = purgeInterval;
+        }
+    }
+}
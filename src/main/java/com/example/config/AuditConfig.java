@@ -0,0 +1,49 @@
+package com.example.config;
+
+import com.example.audit.AuthAuditPipeline;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.DefaultAuthenticationEventPublisher;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+
+/**
+ * Configuration of the asynchronous authentication audit trail.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfig {
+    
+    /**
+     * Configure the audit pipeline writing to {@code auth_audit_events}.
+     * 
+     * @return AuthAuditPipeline buffering events for batch inserts
+     */
+    @Bean
+    public AuthAuditPipeline authAuditPipeline(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                               AuditProperties properties) {
+        return new AuthAuditPipeline(jdbcTemplate, meterRegistry, properties.getBufferSize(),
+                properties.getBatchSize(), properties.getFlushInterval(), properties.getShutdownTimeout());
+    }
+    
+    /**
+     * Configure publishing of authentication outcomes as application events.
+     * 
+     * SAML failures are not among the exceptions mapped by default, so
+     * every unmapped failure is published as a bad credentials event.
+     * 
+     * @return DefaultAuthenticationEventPublisher publishing all failures
+     */
+    @Bean
+    public DefaultAuthenticationEventPublisher authenticationEventPublisher(ApplicationEventPublisher publisher) {
+        DefaultAuthenticationEventPublisher eventPublisher = new DefaultAuthenticationEventPublisher(publisher);
+        eventPublisher.setDefaultAuthenticationFailureEvent(AuthenticationFailureBadCredentialsEvent.class);
+        return eventPublisher;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the authentication audit trail.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "saml.audit")
+public class AuditProperties {
+    
+    /**
+     * Events buffered ahead of the writer; must be a power of two.
+     */
+    private int bufferSize = 8192;
+    
+    /**
+     * Events written per JDBC batch.
+     */
+    private int batchSize = 500;
+    
+    /**
+     * How long the writer waits for a batch to fill before writing it.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+    
+    /**
+     * How long shutdown waits for buffered events to be written.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+    
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+    
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+    
+    public Duration getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+    
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.config;
+
+import com.example.service.IdpConfigurationService;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cache configuration for IdP lookups.
+ * 
+ * Replaces the unbounded {@code simple} cache with Caffeine caches that
+ * are bounded per cache, expire after write and refresh asynchronously
+ * in the background, serving the stale entry until the reload finishes.
+ * Statistics are recorded so that Spring Boot binds hit, miss and
+ * eviction counts to the actuator {@code metrics} endpoint.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(IdpCacheProperties.class)
+public class CacheConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+    
+    /**
+     * Caches used by {@link IdpConfigurationService}.
+     */
+    public static final List<String> CACHE_NAMES = List.of(
+            "idpConfigurations",
+            "idpConfiguration",
+            "defaultIdpConfiguration",
+            "idpConfigurationByEmail",
+            "idpConfigurationsWithDetails");
+    
+    private final IdpCacheProperties cacheProperties;
+    
+    /**
+     * Resolved lazily: the service is itself proxied by the cache interceptor
+     * that needs this configuration's cache manager.
+     */
+    private final ObjectProvider<IdpConfigurationService> idpConfigurationService;
+    
+    @Autowired
+    public CacheConfig(IdpCacheProperties cacheProperties,
+                       ObjectProvider<IdpConfigurationService> idpConfigurationService) {
+        this.cacheProperties = cacheProperties;
+        this.idpConfigurationService = idpConfigurationService;
+    }
+    
+    /**
+     * Configure the Caffeine cache manager.
+     * 
+     * @return CacheManager with one pre-registered cache per known cache name
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(caffeine(cacheProperties.getDefaults()));
+        
+        Set<String> cacheNames = new LinkedHashSet<>(CACHE_NAMES);
+        cacheNames.addAll(cacheProperties.getSpecs().keySet());
+        
+        for (String cacheName : cacheNames) {
+            IdpCacheProperties.Spec spec = cacheProperties.getSpec(cacheName);
+            Caffeine<Object, Object> builder = caffeine(spec);
+            if (isRefreshing(spec)) {
+                cacheManager.registerCustomCache(cacheName, builder.build(cacheLoader(cacheName)));
+            } else {
+                cacheManager.registerCustomCache(cacheName, builder.build());
+            }
+            logger.info("Configured cache '{}' (maximumSize={}, expireAfterWrite={}, refreshAfterWrite={})",
+                       cacheName, spec.getMaximumSize(), spec.getExpireAfterWrite(), spec.getRefreshAfterWrite());
+        }
+        
+        return cacheManager;
+    }
+    
+    private Caffeine<Object, Object> caffeine(IdpCacheProperties.Spec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .recordStats();
+        if (isPositive(spec.getExpireAfterWrite())) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (isRefreshing(spec)) {
+            builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+        }
+        return builder;
+    }
+    
+    private boolean isRefreshing(IdpCacheProperties.Spec spec) {
+        return isPositive(spec.getRefreshAfterWrite())
+                && (!isPositive(spec.getExpireAfterWrite())
+                    || spec.getRefreshAfterWrite().compareTo(spec.getExpireAfterWrite()) < 0);
+    }
+    
+    private boolean isPositive(Duration duration) {
+        return duration != null && !duration.isZero() && !duration.isNegative();
+    }
+    
+    /**
+     * Create the loader used to refresh entries of a cache in the background.
+     * 
+     * Values mirror what the cached {@link IdpConfigurationService} methods
+     * store: Optional results are unwrapped and an absent result removes
+     * the entry, so the next call reloads it through the service. Loads go
+     * through the transactional service so snapshots can read collections.
+     * 
+     * @param cacheName the cache name
+     * @return CacheLoader reloading entries of the cache
+     */
+    private CacheLoader<Object, Object> cacheLoader(String cacheName) {
+        switch (cacheName) {
+            case "idpConfigurations":
+            case "idpConfigurationsWithDetails":
+                return key -> idpConfigurationService.getObject().loadActiveSnapshots();
+            case "defaultIdpConfiguration":
+                return key -> idpConfigurationService.getObject().loadDefaultSnapshot().orElse(null);
+            case "idpConfiguration":
+                return key -> key instanceof Long id
+                        ? idpConfigurationService.getObject().loadSnapshotById(id).orElse(null)
+                        : idpConfigurationService.getObject().loadSnapshot(String.valueOf(key)).orElse(null);
+            case "idpConfigurationByEmail":
+                return key -> idpConfigurationService.getObject().loadSnapshotByEmail(String.valueOf(key)).orElse(null);
+            default:
+                // Unknown caches cannot be reloaded; dropping the entry forces a fresh load
+                return key -> null;
+        }
+    }
+}
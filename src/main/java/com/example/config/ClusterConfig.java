@@ -0,0 +1,63 @@
+package com.example.config;
+
+import com.example.cluster.IdpChangeBus;
+import com.example.cluster.InMemoryIdpChangeBus;
+import com.example.cluster.PostgresIdpChangeBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Cluster configuration for broadcasting IdP configuration changes.
+ * 
+ * Selects the {@link IdpChangeBus} transport from
+ * {@code saml.cluster.invalidation.mode}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@EnableConfigurationProperties(ClusterInvalidationProperties.class)
+public class ClusterConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClusterConfig.class);
+    
+    /**
+     * Configure the PostgreSQL LISTEN/NOTIFY change bus.
+     * 
+     * The listener holds one connection of the datasource pool for the
+     * lifetime of the application.
+     * 
+     * @return IdpChangeBus using PostgreSQL notifications
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.cluster.invalidation", name = "mode", havingValue = "postgres")
+    public IdpChangeBus postgresIdpChangeBus(ClusterInvalidationProperties properties, DataSource dataSource,
+                                             JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                             ObjectMapper objectMapper) {
+        logger.info("Using PostgreSQL LISTEN/NOTIFY for cluster-wide IdP invalidation");
+        return new PostgresIdpChangeBus(dataSource, jdbcTemplate, eventPublisher, objectMapper,
+                properties.getChannel(), properties.getPollTimeout(), properties.getReconnectDelay());
+    }
+    
+    /**
+     * Configure the in-JVM change bus for single-node deployments.
+     * 
+     * @return IdpChangeBus delivering within the JVM only
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.cluster.invalidation", name = "mode", havingValue = "local",
+            matchIfMissing = true)
+    public IdpChangeBus inMemoryIdpChangeBus(ApplicationEventPublisher eventPublisher) {
+        logger.info("Using in-JVM IdP change bus; changes are not broadcast to other nodes");
+        return new InMemoryIdpChangeBus(eventPublisher);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for cluster-wide IdP change invalidation.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "saml.cluster.invalidation")
+public class ClusterInvalidationProperties {
+    
+    /**
+     * Transport used to broadcast changes between nodes.
+     */
+    public enum Mode {
+        /** PostgreSQL LISTEN/NOTIFY on the application datasource. */
+        POSTGRES,
+        /** In-JVM stand-in for single-node deployments and tests. */
+        LOCAL
+    }
+    
+    private Mode mode = Mode.LOCAL;
+    
+    private String channel = "idp_config_changes";
+    
+    private Duration pollTimeout = Duration.ofSeconds(5);
+    
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+    
+    public Mode getMode() {
+        return mode;
+    }
+    
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+    
+    public String getChannel() {
+        return channel;
+    }
+    
+    public void setChannel(String channel) {
+        this.channel = channel;
+    }
+    
+    public Duration getPollTimeout() {
+        return pollTimeout;
+    }
+    
+    public void setPollTimeout(Duration pollTimeout) {
+        this.pollTimeout = pollTimeout;
+    }
+    
+    public Duration getReconnectDelay() {
+        return reconnectDelay;
+    }
+    
+    public void setReconnectDelay(Duration reconnectDelay) {
+        this.reconnectDelay = reconnectDelay;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.config;
+
+import com.example.datasource.ReadReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+
+/**
+ * Read-replica datasource configuration.
+ * 
+ * When {@code saml.datasource.replica.url} is set, the application
+ * datasource routes read-only transactions to a replica pool and all
+ * other work to the primary pool configured by {@code spring.datasource}.
+ * Both pools are beans named after their route, so their
+ * {@code hikaricp.connections.*} metrics are tagged {@code pool=primary}
+ * and {@code pool=replica}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@EnableConfigurationProperties({DataSourceProperties.class, ReplicaDataSourceProperties.class})
+@ConditionalOnProperty(prefix = "saml.datasource.replica", name = "url")
+public class DataSourceConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+    
+    /**
+     * Configure the primary, read-write pool.
+     * 
+     * @return HikariDataSource for the primary database
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    /**
+     * Configure the read-only replica pool.
+     * 
+     * @return HikariDataSource for the replica database
+     */
+    @Bean
+    @ConfigurationProperties("saml.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties primary, ReplicaDataSourceProperties replica) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.determineUsername());
+        dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.determinePassword());
+        dataSource.setDriverClassName(primary.determineDriverClassName());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+    
+    /**
+     * Configure the route selection between the pools.
+     * 
+     * @return ReadReplicaRoutingDataSource over both pools
+     */
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                     HikariDataSource replicaDataSource,
+                                                                     ReplicaDataSourceProperties properties) {
+        logger.info("Routing read-only transactions to replica {}", properties.getUrl());
+        return new ReadReplicaRoutingDataSource(primaryDataSource, replicaDataSource, properties.getPrimaryWindow(),
+                Clock.systemUTC());
+    }
+    
+    /**
+     * Configure the application datasource used by JPA and JdbcTemplate.
+     * 
+     * Connections are fetched on first use, once the transaction's
+     * read-only flag is known to the router.
+     * 
+     * @return DataSource routing by transaction
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource);
+    }
+}
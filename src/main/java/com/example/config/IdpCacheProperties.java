@@ -0,0 +1,93 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for the IdP configuration caches.
+ * 
+ * Each cache is bounded by a maximum size and expires entries after
+ * write. When a refresh interval is set, entries older than it are
+ * reloaded in the background while the stale value keeps being served.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "saml.cache")
+public class IdpCacheProperties {
+    
+    /**
+     * Settings applied to caches without an entry in {@link #specs}.
+     */
+    private Spec defaults = new Spec();
+    
+    /**
+     * Per-cache settings keyed by cache name.
+     */
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+    
+    public Spec getDefaults() {
+        return defaults;
+    }
+    
+    public void setDefaults(Spec defaults) {
+        this.defaults = defaults;
+    }
+    
+    public Map<String, Spec> getSpecs() {
+        return specs;
+    }
+    
+    public void setSpecs(Map<String, Spec> specs) {
+        this.specs = specs;
+    }
+    
+    /**
+     * Get the settings for a cache, falling back to the defaults.
+     * 
+     * @param cacheName the cache name
+     * @return cache settings
+     */
+    public Spec getSpec(String cacheName) {
+        return specs.getOrDefault(cacheName, defaults);
+    }
+    
+    /**
+     * Size and expiry settings of a single cache.
+     */
+    public static class Spec {
+        
+        private long maximumSize = 1000;
+        
+        private Duration expireAfterWrite = Duration.ofMinutes(30);
+        
+        private Duration refreshAfterWrite = Duration.ofMinutes(5);
+        
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+        
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+        
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+        
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+        
+        public Duration getRefreshAfterWrite() {
+            return refreshAfterWrite;
+        }
+        
+        public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.config;
+
+import com.example.service.IdpConfigurationService;
+import com.example.service.IdpPickerCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.thymeleaf.ITemplateEngine;
+
+/**
+ * Login page and IdP discovery configuration.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@EnableConfigurationProperties(LoginProperties.class)
+public class LoginConfig {
+    
+    /**
+     * Configure the cache of rendered IdP picker pages.
+     * 
+     * @return IdpPickerCache for the login page
+     * @throws IllegalStateException if the page size is not positive
+     */
+    @Bean
+    public IdpPickerCache idpPickerCache(IdpConfigurationService idpConfigurationService,
+                                         ITemplateEngine templateEngine, LoginProperties properties,
+                                         MeterRegistry meterRegistry) {
+        int pageSize = properties.getPicker().getPageSize();
+        if (pageSize < 1) {
+            throw new IllegalStateException("saml.login.picker.page-size must be positive");
+        }
+        return new IdpPickerCache(idpConfigurationService, templateEngine, pageSize, meterRegistry);
+    }
+}
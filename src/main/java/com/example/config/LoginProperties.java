@@ -0,0 +1,136 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the login page and IdP discovery.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "saml.login")
+public class LoginProperties {
+    
+    private final Discovery discovery = new Discovery();
+    
+    private final Picker picker = new Picker();
+    
+    private final Search search = new Search();
+    
+    public Discovery getDiscovery() {
+        return discovery;
+    }
+    
+    public Picker getPicker() {
+        return picker;
+    }
+    
+    public Search getSearch() {
+        return search;
+    }
+    
+    /**
+     * Home-realm discovery API.
+     */
+    public static class Discovery {
+        
+        /**
+         * How long browsers and shared caches may reuse a discovery answer.
+         */
+        private Duration maxAge = Duration.ofMinutes(5);
+        
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+        
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+    
+    /**
+     * IdP picker on the login page.
+     */
+    public static class Picker {
+        
+        /**
+         * How the picker is delivered with the login page.
+         */
+        public enum Mode {
+            /** The requested page of the picker is embedded in the login page. */
+            INLINE,
+            /** The login page only links the picker, which is fetched on demand. */
+            LAZY
+        }
+        
+        private Mode mode = Mode.INLINE;
+        
+        /**
+         * IdPs per picker page.
+         */
+        private int pageSize = 50;
+        
+        /**
+         * How long browsers may reuse a fetched picker page.
+         */
+        private Duration maxAge = Duration.ofMinutes(1);
+        
+        public Mode getMode() {
+            return mode;
+        }
+        
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+        
+        public int getPageSize() {
+            return pageSize;
+        }
+        
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+        
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+        
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+    
+    /**
+     * Typeahead IdP search API.
+     */
+    public static class Search {
+        
+        /**
+         * Most suggestions returned for a query.
+         */
+        private int maxResults = 10;
+        
+        /**
+         * How long browsers and shared caches may reuse a search answer.
+         */
+        private Duration maxAge = Duration.ofMinutes(1);
+        
+        public int getMaxResults() {
+            return maxResults;
+        }
+        
+        public void setMaxResults(int maxResults) {
+            this.maxResults = maxResults;
+        }
+        
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+        
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+}
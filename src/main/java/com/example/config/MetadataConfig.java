@@ -0,0 +1,56 @@
+package com.example.config;
+
+import com.example.saml.RelyingPartyRegistrationRegistry;
+import com.example.saml.SpMetadataCache;
+import com.example.saml.SpSigningCredentialSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.saml2.provider.service.metadata.OpenSamlMetadataResolver;
+
+import java.time.Clock;
+
+/**
+ * SP metadata configuration.
+ * 
+ * Serves metadata from a {@link SpMetadataCache}, signed with the SP
+ * signing credential from {@code saml.metadata.signing} when enabled.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@EnableConfigurationProperties(MetadataProperties.class)
+public class MetadataConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MetadataConfig.class);
+    
+    /**
+     * Configure the SP metadata cache.
+     * 
+     * @return SpMetadataCache over the registration registry
+     * @throws IllegalStateException if signing is enabled without a keystore and alias
+     */
+    @Bean
+    public SpMetadataCache spMetadataCache(RelyingPartyRegistrationRegistry registrations,
+                                           MetadataProperties properties, MeterRegistry meterRegistry) {
+        MetadataProperties.Signing signing = properties.getSigning();
+        SpSigningCredentialSource credentialSource = null;
+        if (signing.isEnabled()) {
+            if (signing.getKeystore() == null || signing.getAlias() == null) {
+                throw new IllegalStateException(
+                        "saml.metadata.signing.enabled requires saml.metadata.signing.keystore and alias");
+            }
+            credentialSource = new SpSigningCredentialSource(signing.getKeystore(), signing.getPassword(),
+                    signing.getAlias(), signing.getKeyPassword(), signing.getReloadCheckInterval(),
+                    Clock.systemUTC());
+        } else {
+            logger.info("Serving unsigned SP metadata");
+        }
+        return new SpMetadataCache(registrations, new OpenSamlMetadataResolver(), credentialSource,
+                meterRegistry);
+    }
+}
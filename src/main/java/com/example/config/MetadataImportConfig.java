@@ -0,0 +1,46 @@
+package com.example.config;
+
+import com.example.service.FederationMetadataImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bulk IdP metadata import configuration.
+ * 
+ * When {@code saml.metadata-import.file} is set, the aggregate is imported
+ * once the application has started, e.g. with
+ * {@code --saml.metadata-import.file=/var/lib/saml/edugain.xml}. A failed
+ * import is logged and does not stop the application.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@EnableConfigurationProperties(MetadataImportProperties.class)
+public class MetadataImportConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MetadataImportConfig.class);
+    
+    /**
+     * Configure the startup import of the configured aggregate.
+     * 
+     * @return ApplicationRunner importing the aggregate
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.metadata-import", name = "file")
+    public ApplicationRunner metadataImportRunner(FederationMetadataImporter importer,
+                                                  MetadataImportProperties properties) {
+        return args -> {
+            try {
+                importer.importFile(properties.getFile());
+            } catch (Exception e) {
+                logger.error("IdP metadata import from {} failed: {}", properties.getFile(), e.getMessage(), e);
+            }
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration properties for bulk IdP metadata import.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "saml.metadata-import")
+public class MetadataImportProperties {
+    
+    /**
+     * Metadata aggregate to import at startup; no import when unset.
+     */
+    private Path file;
+    
+    /**
+     * Changed entities written per JDBC batch and transaction.
+     */
+    private int batchSize = 500;
+    
+    /**
+     * Entities read between progress log lines.
+     */
+    private int progressInterval = 5000;
+    
+    /**
+     * Changed IdPs announced one by one; larger imports trigger a full resync.
+     */
+    private int resyncThreshold = 100;
+    
+    /**
+     * Deactivate previously imported IdPs missing from the aggregate.
+     */
+    private boolean deactivateMissing = false;
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    public void setFile(Path file) {
+        this.file = file;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
+    public int getProgressInterval() {
+        return progressInterval;
+    }
+    
+    public void setProgressInterval(int progressInterval) {
+        this.progressInterval = progressInterval;
+    }
+    
+    public int getResyncThreshold() {
+        return resyncThreshold;
+    }
+    
+    public void setResyncThreshold(int resyncThreshold) {
+        this.resyncThreshold = resyncThreshold;
+    }
+    
+    public boolean isDeactivateMissing() {
+        return deactivateMissing;
+    }
+    
+    public void setDeactivateMissing(boolean deactivateMissing) {
+        this.deactivateMissing = deactivateMissing;
+    }
+}
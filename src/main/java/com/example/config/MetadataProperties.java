@@ -0,0 +1,107 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the SP metadata endpoint.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "saml.metadata")
+public class MetadataProperties {
+    
+    /**
+     * How long clients and aggregators may reuse metadata without revalidating.
+     */
+    private Duration maxAge = Duration.ofHours(1);
+    
+    private final Signing signing = new Signing();
+    
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+    
+    public void setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+    
+    public Signing getSigning() {
+        return signing;
+    }
+    
+    /**
+     * Enveloped XML signature over the served EntityDescriptor.
+     */
+    public static class Signing {
+        
+        private boolean enabled = false;
+        
+        /**
+         * PKCS#12 or JKS keystore holding the SP signing key and certificate.
+         */
+        private Resource keystore;
+        
+        private String password;
+        
+        private String alias;
+        
+        private String keyPassword;
+        
+        /**
+         * Minimum time between checks of the keystore for a rotated credential.
+         */
+        private Duration reloadCheckInterval = Duration.ofMinutes(1);
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public Resource getKeystore() {
+            return keystore;
+        }
+        
+        public void setKeystore(Resource keystore) {
+            this.keystore = keystore;
+        }
+        
+        public String getPassword() {
+            return password;
+        }
+        
+        public void setPassword(String password) {
+            this.password = password;
+        }
+        
+        public String getAlias() {
+            return alias;
+        }
+        
+        public void setAlias(String alias) {
+            this.alias = alias;
+        }
+        
+        public String getKeyPassword() {
+            return keyPassword;
+        }
+        
+        public void setKeyPassword(String keyPassword) {
+            this.keyPassword = keyPassword;
+        }
+        
+        public Duration getReloadCheckInterval() {
+            return reloadCheckInterval;
+        }
+        
+        public void setReloadCheckInterval(Duration reloadCheckInterval) {
+            this.reloadCheckInterval = reloadCheckInterval;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.config;
+
+import com.example.metrics.IdpTagLimiter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics configuration for per-IdP instrumentation.
+ * 
+ * Cache hit ratios come from the Caffeine statistics Spring Boot binds as
+ * {@code cache.gets} per cache name; see {@link CacheConfig}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@EnableConfigurationProperties(MetricsProperties.class)
+public class MetricsConfig {
+    
+    /**
+     * Configure the bound on distinct {@code idp} tag values.
+     * 
+     * @return IdpTagLimiter shared by all per-IdP meters
+     */
+    @Bean
+    public IdpTagLimiter idpTagLimiter(MetricsProperties properties) {
+        return new IdpTagLimiter(properties.getMaxIdpTags());
+    }
+    
+    /**
+     * Deny {@code saml.*} meters beyond the IdP tag limit as a safety net
+     * for meters tagged without going through the {@link IdpTagLimiter}.
+     * 
+     * @return MeterFilter capping distinct {@code idp} tag values per meter
+     */
+    @Bean
+    public MeterFilter idpTagCardinalityFilter(MetricsProperties properties) {
+        // Room for the limiter's "other" and "none" values
+        return MeterFilter.maximumAllowableTags("saml", IdpTagLimiter.TAG, properties.getMaxIdpTags() + 2,
+                MeterFilter.deny());
+    }
+}
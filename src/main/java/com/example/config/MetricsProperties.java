@@ -0,0 +1,26 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for application metrics.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "saml.metrics")
+public class MetricsProperties {
+    
+    /**
+     * Distinct IdPs tagged individually; further IdPs are tagged "other".
+     */
+    private int maxIdpTags = 100;
+    
+    public int getMaxIdpTags() {
+        return maxIdpTags;
+    }
+    
+    public void setMaxIdpTags(int maxIdpTags) {
+        this.maxIdpTags = maxIdpTags;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the read-replica datasource.
+ * 
+ * Pool settings are bound from {@code saml.datasource.replica.hikari},
+ * like {@code spring.datasource.hikari} for the primary.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "saml.datasource.replica")
+public class ReplicaDataSourceProperties {
+    
+    /**
+     * JDBC URL of the replica; read-only transactions use the primary when unset.
+     */
+    private String url;
+    
+    /**
+     * Login username of the replica; defaults to the primary's.
+     */
+    private String username;
+    
+    /**
+     * Login password of the replica; defaults to the primary's.
+     */
+    private String password;
+    
+    /**
+     * How long reads stay on the primary after an IdP configuration change,
+     * covering the replica's replication lag.
+     */
+    private Duration primaryWindow = Duration.ofSeconds(5);
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public void setUrl(String url) {
+        this.url = url;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public void setUsername(String username) {
+        this.username = username;
+    }
+    
+    public String getPassword() {
+        return password;
+    }
+    
+    public void setPassword(String password) {
+        this.password = password;
+    }
+    
+    public Duration getPrimaryWindow() {
+        return primaryWindow;
+    }
+    
+    public void setPrimaryWindow(Duration primaryWindow) {
+        this.primaryWindow = primaryWindow;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.config;
+
+import com.example.metrics.IdpTagLimiter;
+import com.example.saml.AcsStageTimer;
+import com.example.saml.BucketedReplayCache;
+import com.example.saml.JdbcReplayCache;
+import com.example.saml.PrefilteringSaml2AuthenticationProvider;
+import com.example.saml.RelyingPartyRegistrationRegistry;
+import com.example.saml.ReplayCache;
+import com.example.saml.ReplayCheckingResponseAuthenticationConverter;
+import com.example.saml.Saml2ReplayGuard;
+import com.example.saml.Saml2ResponsePrefilter;
+import com.example.saml.SignatureProviderRouter;
+import com.example.saml.SizeLimitingSaml2AuthenticationConverter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.saml2.provider.service.authentication.AbstractSaml2AuthenticationRequest;
+import org.springframework.security.saml2.provider.service.authentication.OpenSaml4AuthenticationProvider;
+import org.springframework.security.saml2.provider.service.web.DefaultRelyingPartyRegistrationResolver;
+import org.springframework.security.saml2.provider.service.web.Saml2AuthenticationRequestRepository;
+import org.springframework.security.saml2.provider.service.web.Saml2AuthenticationTokenConverter;
+
+import java.time.Clock;
+
+/**
+ * Configuration of the SAML assertion consumer service pipeline.
+ * 
+ * Responses pass through a size limit, a streaming prefilter, full
+ * OpenSAML validation and a replay check, each stage timed separately.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@EnableConfigurationProperties(AcsProperties.class)
+public class SamlAcsConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SamlAcsConfig.class);
+    
+    /**
+     * Configure the per-stage ACS timer.
+     * 
+     * @return AcsStageTimer recording {@code saml.acs.stage}
+     */
+    @Bean
+    public AcsStageTimer acsStageTimer(MeterRegistry meterRegistry, IdpTagLimiter idpTagLimiter) {
+        return new AcsStageTimer(meterRegistry, idpTagLimiter);
+    }
+    
+    /**
+     * Configure the converter extracting SAML Responses from ACS requests.
+     * 
+     * Pending AuthnRequests are looked up in the same repository the
+     * login filter saves them to.
+     * 
+     * @return converter rejecting oversized Responses
+     */
+    @Bean
+    public SizeLimitingSaml2AuthenticationConverter saml2AuthenticationConverter(
+            RelyingPartyRegistrationRegistry relyingPartyRegistrationRepository,
+            AcsProperties properties, AcsStageTimer acsStageTimer,
+            Saml2AuthenticationRequestRepository<AbstractSaml2AuthenticationRequest> authenticationRequestRepository) {
+        logger.info("Limiting SAML Responses to {}", properties.getMaxResponseSize());
+        Saml2AuthenticationTokenConverter converter = new Saml2AuthenticationTokenConverter(
+                new DefaultRelyingPartyRegistrationResolver(relyingPartyRegistrationRepository));
+        converter.setAuthenticationRequestRepository(authenticationRequestRepository);
+        return new SizeLimitingSaml2AuthenticationConverter(converter,
+                (int) properties.getMaxResponseSize().toBytes(), acsStageTimer);
+    }
+    
+    /**
+     * Configure the JCA providers used for signature verification.
+     * 
+     * @return SignatureProviderRouter installing the configured providers
+     */
+    @Bean
+    public SignatureProviderRouter signatureProviderRouter(AcsProperties properties) {
+        return new SignatureProviderRouter(properties.getSignature().getProviders(),
+                properties.getSignature().getPreferred());
+    }
+    
+    /**
+     * Configure the replay cache shared by all nodes.
+     * 
+     * @return ReplayCache backed by the application database
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.acs.replay", name = "store", havingValue = "jdbc")
+    public ReplayCache jdbcReplayCache(AcsProperties properties, JdbcTemplate jdbcTemplate) {
+        logger.info("Using the application database for SAML replay protection");
+        return new JdbcReplayCache(jdbcTemplate, properties.getReplay().getPurgeInterval(), Clock.systemUTC());
+    }
+    
+    /**
+     * Configure the in-memory replay cache, the default store.
+     * 
+     * @return ReplayCache sized for the peak login rate, local to this node
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.acs.replay", name = "store", havingValue = "local", matchIfMissing = true)
+    public ReplayCache bucketedReplayCache(AcsProperties properties, MeterRegistry meterRegistry) {
+        AcsProperties.Replay replay = properties.getReplay();
+        int bucketCapacity = replay.getBucketCapacity() != null ? replay.getBucketCapacity()
+                : BucketedReplayCache.capacityFor(replay.getPeakLoginRate(), replay.getIdsPerLogin(),
+                        replay.getBucketDuration());
+        logger.info("Using in-memory SAML replay protection with {} identifiers per {} bucket; "
+                + "replays across nodes are not detected", bucketCapacity, replay.getBucketDuration());
+        BucketedReplayCache replayCache = new BucketedReplayCache(replay.getRetention(),
+                replay.getBucketDuration(), bucketCapacity, replay.getMaxSpillTables(), Clock.systemUTC());
+        meterRegistry.gauge("saml.acs.replay.entries", replayCache, BucketedReplayCache::size);
+        FunctionCounter.builder("saml.acs.replay.spills", replayCache, BucketedReplayCache::spillCount)
+                .description("Spill tables added to full replay cache buckets")
+                .register(meterRegistry);
+        FunctionCounter.builder("saml.acs.replay.overflows", replayCache, BucketedReplayCache::overflowCount)
+                .description("SAML identifiers refused because their replay cache bucket was full")
+                .register(meterRegistry);
+        return replayCache;
+    }
+    
+    /**
+     * Configure the provider authenticating SAML Responses.
+     * 
+     * Depends on the {@link SignatureProviderRouter} so providers are in
+     * place before the first Response is verified. Assertion IDs are
+     * checked for replay inside the OpenSAML provider, once assertions are
+     * decrypted and validated; Response IDs after it returns.
+     * 
+     * @return provider prefiltering Responses before OpenSAML validation
+     */
+    @Bean
+    public PrefilteringSaml2AuthenticationProvider saml2AuthenticationProvider(AcsProperties properties,
+                                                                               AcsStageTimer acsStageTimer,
+                                                                               SignatureProviderRouter signatureProviderRouter,
+                                                                               ReplayCache replayCache,
+                                                                               MeterRegistry meterRegistry) {
+        Saml2ResponsePrefilter prefilter = new Saml2ResponsePrefilter(properties.getClockSkew(), Clock.systemUTC());
+        Saml2ReplayGuard replayGuard = new Saml2ReplayGuard(replayCache, properties.getClockSkew(),
+                properties.getReplay().getDefaultLifetime(), Clock.systemUTC(), meterRegistry);
+        OpenSaml4AuthenticationProvider openSamlProvider = new OpenSaml4AuthenticationProvider();
+        openSamlProvider.setResponseAuthenticationConverter(
+                new ReplayCheckingResponseAuthenticationConverter(replayGuard));
+        return new PrefilteringSaml2AuthenticationProvider(prefilter, openSamlProvider, replayGuard, acsStageTimer);
+    }
+}
@@ -1,24 +1,30 @@
 package com.example.config;
 
+import com.example.saml.PrefilteringSaml2AuthenticationProvider;
+import com.example.saml.RelyingPartyRegistrationFactory;
+import com.example.saml.RelyingPartyRegistrationRegistry;
+import com.example.saml.SizeLimitingSaml2AuthenticationConverter;
 import com.example.service.IdpConfigurationService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationEventPublisher;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
-import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistrationRepository;
-import org.springframework.security.saml2.provider.service.registration.Saml2MessageBinding;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.session.SessionRegistry;
 // Removed import as it's not needed in newer Spring Security versions
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
-import java.util.List;
-
 /**
  * Spring Security configuration for SAML authentication.
  * 
@@ -36,22 +42,46 @@ public class SecurityConfig {
     
     private final IdpConfigurationService idpConfigurationService;
     
+    private final RelyingPartyRegistrationFactory relyingPartyRegistrationFactory;
+    
+    private final MeterRegistry meterRegistry;
+    
     @Autowired
-    public SecurityConfig(IdpConfigurationService idpConfigurationService) {
+    public SecurityConfig(IdpConfigurationService idpConfigurationService,
+                          RelyingPartyRegistrationFactory relyingPartyRegistrationFactory,
+                          MeterRegistry meterRegistry) {
         this.idpConfigurationService = idpConfigurationService;
+        this.relyingPartyRegistrationFactory = relyingPartyRegistrationFactory;
+        this.meterRegistry = meterRegistry;
     }
     
     /**
      * Configure security filter chain with SAML authentication.
      * 
      * @param http the HttpSecurity object
+     * @param saml2AuthenticationConverter converter extracting SAML Responses
+     * @param saml2AuthenticationProvider provider validating SAML Responses
+     * @param authenticationEventPublisher publisher of authentication outcomes
+     * @param securityContextRepository where the security context is kept between requests
+     * @param sessionProperties session mode and concurrent-session limit
+     * @param sessionRegistry registry of servlet sessions counted against the limit
      * @return configured SecurityFilterChain
      * @throws Exception if configuration fails
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           SizeLimitingSaml2AuthenticationConverter saml2AuthenticationConverter,
+                                           PrefilteringSaml2AuthenticationProvider saml2AuthenticationProvider,
+                                           AuthenticationEventPublisher authenticationEventPublisher,
+                                           SecurityContextRepository securityContextRepository,
+                                           SessionProperties sessionProperties,
+                                           SessionRegistry sessionRegistry)
+            throws Exception {
         logger.info("Configuring Spring Security with SAML authentication");
         
+        ProviderManager saml2AuthenticationManager = new ProviderManager(saml2AuthenticationProvider);
+        saml2AuthenticationManager.setAuthenticationEventPublisher(authenticationEventPublisher);
+        
         http
             // Disable CSRF for SAML endpoints
             .csrf(AbstractHttpConfigurer::disable)
@@ -61,6 +91,8 @@ public class SecurityConfig {
                 // Public endpoints
                 .requestMatchers("/", "/login", "/css/**", "/js/**", "/images/**", "/favicon.ico").permitAll()
                 .requestMatchers("/saml2/service-provider-metadata/**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/discovery", "/api/discovery/search").permitAll()
+                .requestMatchers(HttpMethod.GET, "/login/idps").permitAll()
                 .requestMatchers("/error").permitAll()
                 .requestMatchers("/actuator/**").permitAll()
                 
@@ -78,6 +110,8 @@ public class SecurityConfig {
                 .defaultSuccessUrl("/dashboard", true)
                 .failureUrl("/login?error=true")
                 .relyingPartyRegistrationRepository(relyingPartyRegistrationRepository())
+                .authenticationConverter(saml2AuthenticationConverter)
+                .authenticationManager(saml2AuthenticationManager)
             )
             
                                // Configure SAML logout
@@ -85,12 +119,23 @@ public class SecurityConfig {
                        .logoutUrl("/logout")
                    )
             
-            // Configure session management
-            .sessionManagement(session -> session
-                .maximumSessions(1)
-                .expiredUrl("/login?expired=true")
+            // Configure where the security context is kept
+            .securityContext(context -> context
+                .securityContextRepository(securityContextRepository)
             )
             
+            // Configure session management
+            .sessionManagement(session -> {
+                if (sessionProperties.getMode() == SessionProperties.Mode.STATELESS) {
+                    // Sessions live in cookies; the limit is enforced by the ConcurrentSessionStore
+                    session.sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+                } else {
+                    session.maximumSessions(sessionProperties.getMaximumSessions())
+                        .sessionRegistry(sessionRegistry)
+                        .expiredUrl("/login?expired=true");
+                }
+            })
+            
             // Configure exception handling
             .exceptionHandling(exceptions -> exceptions
                 .accessDeniedPage("/error/403")
@@ -104,66 +149,19 @@ public class SecurityConfig {
         return http.build();
     }
     
-               /**
-            * Configure Relying Party Registration Repository for SAML.
-            * 
-            * @return RelyingPartyRegistrationRepository
-            */
-           @Bean
-           public RelyingPartyRegistrationRepository relyingPartyRegistrationRepository() {
-               logger.info("Initializing SAML Relying Party Registration Repository");
-               
-               return new RelyingPartyRegistrationRepository() {
-                   public RelyingPartyRegistration findByRegistrationId(String registrationId) {
-                       logger.debug("Looking up SAML registration for ID: {}", registrationId);
-                       
-                       return idpConfigurationService.getByIdpId(registrationId)
-                           .map(SecurityConfig.this::createRelyingPartyRegistration)
-                           .orElse(null);
-                   }
-                   
-                   public Iterable<RelyingPartyRegistration> iterator() {
-                       logger.debug("Retrieving all SAML registrations");
-                       
-                       List<RelyingPartyRegistration> registrations = idpConfigurationService
-                           .getAllActiveIdpConfigurations()
-                           .stream()
-                           .map(SecurityConfig.this::createRelyingPartyRegistration)
-                           .toList();
-                       
-                       logger.info("Found {} active SAML registrations", registrations.size());
-                       return registrations;
-                   }
-               };
-           }
-    
     /**
-     * Create RelyingPartyRegistration from IdP configuration.
+     * Configure Relying Party Registration Repository for SAML.
+     * 
+     * Lookups are served from a prebuilt {@link RelyingPartyRegistrationRegistry}
+     * that is refreshed on IdP configuration changes.
      * 
-     * @param idpConfig the IdP configuration
-     * @return RelyingPartyRegistration
+     * @return RelyingPartyRegistrationRepository
      */
-    private RelyingPartyRegistration createRelyingPartyRegistration(com.example.entity.IdpConfiguration idpConfig) {
-        logger.debug("Creating SAML registration for IdP: {}", idpConfig.getIdpName());
-        
-        try {
-                           return RelyingPartyRegistration
-                   .withRegistrationId(idpConfig.getIdpId())
-                   .assertionConsumerServiceLocation("http://localhost:8080/login/saml2/sso/" + idpConfig.getIdpId())
-                   .entityId("http://localhost:8080/saml2/service-provider-metadata/" + idpConfig.getIdpId())
-                   .assertingPartyDetails(party -> party
-                       .entityId(idpConfig.getIdpEntityId())
-                       .singleSignOnServiceLocation(idpConfig.getIdpSsoUrl())
-                       .singleSignOnServiceBinding(Saml2MessageBinding.REDIRECT)
-                       .wantAuthnRequestsSigned(false)
-                   )
-                   .build();
-                
-        } catch (Exception e) {
-            logger.error("Failed to create SAML registration for IdP {}: {}", 
-                        idpConfig.getIdpName(), e.getMessage(), e);
-            throw new RuntimeException("SAML registration creation failed", e);
-        }
+    @Bean
+    public RelyingPartyRegistrationRegistry relyingPartyRegistrationRepository() {
+        logger.info("Initializing SAML Relying Party Registration Repository");
+        return new RelyingPartyRegistrationRegistry(idpConfigurationService, relyingPartyRegistrationFactory,
+                meterRegistry);
     }
     
                // Removed getSigningCredential method as it's not needed for basic SAML setup
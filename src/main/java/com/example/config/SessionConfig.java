@@ -0,0 +1,227 @@
+package com.example.config;
+
+import com.example.saml.RelyingPartyRegistrationRegistry;
+import com.example.session.ConcurrentSessionStore;
+import com.example.session.ConcurrentSessionSweeper;
+import com.example.session.CookieLoginHintRepository;
+import com.example.session.CookieSaml2AuthenticationRequestRepository;
+import com.example.session.CookieSecurityContextRepository;
+import com.example.session.HttpSessionLoginHintRepository;
+import com.example.session.InMemoryConcurrentSessionStore;
+import com.example.session.JdbcConcurrentSessionStore;
+import com.example.session.LoginHintRepository;
+import com.example.session.SealedCookie;
+import com.example.session.SessionCookieCodec;
+import com.example.session.StoreBackedSessionRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.saml2.provider.service.authentication.AbstractSaml2AuthenticationRequest;
+import org.springframework.security.saml2.provider.service.web.HttpSessionSaml2AuthenticationRequestRepository;
+import org.springframework.security.saml2.provider.service.web.Saml2AuthenticationRequestRepository;
+import org.springframework.security.web.context.DelegatingSecurityContextRepository;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.security.web.session.HttpSessionEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Session configuration.
+ * 
+ * Selects where the security context, the pending AuthnRequest and the
+ * login hint are kept from {@code saml.session.mode}: the container
+ * {@code HttpSession} by default, or sealed cookies in stateless mode so
+ * that no node holds session state. In both modes the concurrent-session
+ * limit is enforced through a {@link ConcurrentSessionStore} selected by
+ * {@code saml.session.store}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@EnableConfigurationProperties(SessionProperties.class)
+public class SessionConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SessionConfig.class);
+    
+    private static final String SERVLET = "servlet";
+    
+    private static final String STATELESS = "stateless";
+    
+    /**
+     * Configure the codec sealing the stateless cookies.
+     * 
+     * @return SessionCookieCodec using the configured keys
+     * @throws IllegalStateException if no key is configured
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.session", name = "mode", havingValue = STATELESS)
+    public SessionCookieCodec sessionCookieCodec(SessionProperties properties) {
+        if (properties.getKeys().isEmpty()) {
+            throw new IllegalStateException("saml.session.mode=stateless requires saml.session.keys, "
+                    + "e.g. generated with: openssl rand -base64 32");
+        }
+        return new SessionCookieCodec(properties.getKeys());
+    }
+    
+    /**
+     * Configure the concurrent-session store shared by all nodes.
+     * 
+     * @return ConcurrentSessionStore backed by the application database
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.session", name = "store", havingValue = "jdbc")
+    public ConcurrentSessionStore jdbcConcurrentSessionStore(SessionProperties properties, JdbcTemplate jdbcTemplate,
+                                                             PlatformTransactionManager transactionManager) {
+        logger.info("Using the application database for concurrent-session control");
+        return new JdbcConcurrentSessionStore(jdbcTemplate, new TransactionTemplate(transactionManager),
+                properties.getTouchInterval(), Clock.systemUTC());
+    }
+    
+    /**
+     * Configure the in-memory concurrent-session store, the default store.
+     * 
+     * @return ConcurrentSessionStore local to this node
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.session", name = "store", havingValue = "local", matchIfMissing = true)
+    public ConcurrentSessionStore inMemoryConcurrentSessionStore(MeterRegistry meterRegistry) {
+        logger.info("Using in-memory concurrent-session control; logins on other nodes are not counted");
+        InMemoryConcurrentSessionStore store = new InMemoryConcurrentSessionStore(Clock.systemUTC());
+        meterRegistry.gauge("saml.sessions.active", store, InMemoryConcurrentSessionStore::size);
+        return store;
+    }
+    
+    /**
+     * Configure the background removal of expired sessions.
+     * 
+     * @return ConcurrentSessionSweeper for the selected store
+     */
+    @Bean
+    public ConcurrentSessionSweeper concurrentSessionSweeper(SessionProperties properties,
+                                                             ConcurrentSessionStore sessionStore,
+                                                             MeterRegistry meterRegistry) {
+        return new ConcurrentSessionSweeper(sessionStore, properties.getSweepInterval(),
+                properties.getSweepBatchSize(), Clock.systemUTC(), meterRegistry);
+    }
+    
+    /**
+     * Configure the registry of servlet sessions used by {@code maximumSessions}.
+     * 
+     * @return SessionRegistry backed by the concurrent-session store
+     */
+    @Bean
+    public SessionRegistry sessionRegistry(ConcurrentSessionStore sessionStore, ServerProperties serverProperties) {
+        Duration idleTimeout = serverProperties.getServlet().getSession().getTimeout();
+        return new StoreBackedSessionRegistry(sessionStore, idleTimeout, Clock.systemUTC());
+    }
+    
+    /**
+     * Publish servlet session lifecycle events so that destroyed and
+     * renamed sessions leave the session registry immediately.
+     * 
+     * @return HttpSessionEventPublisher registered as a servlet listener
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.session", name = "mode", havingValue = SERVLET, matchIfMissing = true)
+    public HttpSessionEventPublisher httpSessionEventPublisher() {
+        return new HttpSessionEventPublisher();
+    }
+    
+    /**
+     * Configure the security context kept in a sealed cookie.
+     * 
+     * @return SecurityContextRepository that needs no server-side state
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.session", name = "mode", havingValue = STATELESS)
+    public SecurityContextRepository cookieSecurityContextRepository(SessionProperties properties,
+                                                                     SessionCookieCodec codec,
+                                                                     ObjectMapper objectMapper,
+                                                                     ConcurrentSessionStore sessionStore) {
+        logger.info("Using stateless sessions in cookie {} for up to {}", properties.getCookie().getName(),
+                properties.getCookie().getLifetime());
+        return new CookieSecurityContextRepository(sealedCookie(properties.getCookie(), properties, codec,
+                objectMapper), sessionStore, properties.getMaximumSessions(), Clock.systemUTC());
+    }
+    
+    /**
+     * Configure the security context kept in the {@code HttpSession}.
+     * 
+     * @return SecurityContextRepository matching Spring Security's default
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.session", name = "mode", havingValue = SERVLET, matchIfMissing = true)
+    public SecurityContextRepository httpSessionSecurityContextRepository() {
+        return new DelegatingSecurityContextRepository(new RequestAttributeSecurityContextRepository(),
+                new HttpSessionSecurityContextRepository());
+    }
+    
+    /**
+     * Configure the pending AuthnRequest kept in a sealed cookie.
+     * 
+     * @return Saml2AuthenticationRequestRepository that needs no server-side state
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.session", name = "mode", havingValue = STATELESS)
+    public Saml2AuthenticationRequestRepository<AbstractSaml2AuthenticationRequest> cookieAuthenticationRequestRepository(
+            SessionProperties properties, SessionCookieCodec codec, ObjectMapper objectMapper,
+            RelyingPartyRegistrationRegistry relyingPartyRegistrationRepository) {
+        return new CookieSaml2AuthenticationRequestRepository(sealedCookie(properties.getRequestCookie(),
+                properties, codec, objectMapper), relyingPartyRegistrationRepository, Clock.systemUTC());
+    }
+    
+    /**
+     * Configure the pending AuthnRequest kept in the {@code HttpSession}.
+     * 
+     * @return Saml2AuthenticationRequestRepository matching Spring Security's default
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.session", name = "mode", havingValue = SERVLET, matchIfMissing = true)
+    public Saml2AuthenticationRequestRepository<AbstractSaml2AuthenticationRequest> httpSessionAuthenticationRequestRepository() {
+        return new HttpSessionSaml2AuthenticationRequestRepository();
+    }
+    
+    /**
+     * Configure the login hint kept in a sealed cookie.
+     * 
+     * @return LoginHintRepository that needs no server-side state
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.session", name = "mode", havingValue = STATELESS)
+    public LoginHintRepository cookieLoginHintRepository(SessionProperties properties, SessionCookieCodec codec,
+                                                         ObjectMapper objectMapper) {
+        return new CookieLoginHintRepository(sealedCookie(properties.getLoginHintCookie(), properties, codec,
+                objectMapper));
+    }
+    
+    /**
+     * Configure the login hint kept in the {@code HttpSession}.
+     * 
+     * @return LoginHintRepository using session attributes
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "saml.session", name = "mode", havingValue = SERVLET, matchIfMissing = true)
+    public LoginHintRepository httpSessionLoginHintRepository() {
+        return new HttpSessionLoginHintRepository();
+    }
+    
+    private static SealedCookie sealedCookie(SessionProperties.Cookie cookie, SessionProperties properties,
+                                             SessionCookieCodec codec, ObjectMapper objectMapper) {
+        return new SealedCookie(cookie.getName(), cookie.getSameSite(), cookie.getLifetime(),
+                properties.isSecureCookies(), codec, objectMapper);
+    }
+}
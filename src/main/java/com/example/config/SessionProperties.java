@@ -0,0 +1,228 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for how authenticated sessions are kept.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "saml.session")
+public class SessionProperties {
+    
+    /**
+     * Where session state lives.
+     */
+    public enum Mode {
+        /** Container {@code HttpSession} on the node that served the login. */
+        SERVLET,
+        /** Encrypted cookies only; any node can serve any request. */
+        STATELESS
+    }
+    
+    /**
+     * Where the sessions counted against the concurrent-session limit are kept.
+     */
+    public enum Store {
+        /** Per-node striped in-memory tables. */
+        LOCAL,
+        /** Table in the application database, shared by all nodes. */
+        JDBC
+    }
+    
+    private Mode mode = Mode.SERVLET;
+    
+    /**
+     * Sessions a principal may hold; older sessions are expired by newer logins.
+     */
+    private int maximumSessions = 1;
+    
+    private Store store = Store.LOCAL;
+    
+    /**
+     * How often expired sessions are removed from the store.
+     */
+    private Duration sweepInterval = Duration.ofMinutes(1);
+    
+    /**
+     * Sessions removed per batch while sweeping.
+     */
+    private int sweepBatchSize = 1000;
+    
+    /**
+     * Activity more recent than this is not written to the shared store.
+     */
+    private Duration touchInterval = Duration.ofMinutes(1);
+    
+    /**
+     * AES-256 keys, Base64 encoded, sealing the stateless cookies. The first
+     * key seals new cookies; the others are only accepted, for rotation.
+     */
+    private List<String> keys = new ArrayList<>();
+    
+    /**
+     * Whether the stateless cookies are restricted to HTTPS.
+     */
+    private boolean secureCookies = true;
+    
+    /**
+     * Cookie carrying the authenticated principal in stateless mode; its
+     * lifetime is the absolute session lifetime.
+     */
+    private Cookie cookie = new Cookie("SAML_SESSION", "Lax", Duration.ofHours(8));
+    
+    /**
+     * Cookie carrying the pending AuthnRequest in stateless mode. It is read
+     * on the IdP's cross-site POST to the ACS, so it must be SameSite=None.
+     */
+    private Cookie requestCookie = new Cookie("SAML_AUTHN_REQUEST", "None", Duration.ofMinutes(5));
+    
+    /**
+     * Cookie remembering the email entered on the login page in stateless mode.
+     */
+    private Cookie loginHintCookie = new Cookie("SAML_LOGIN_HINT", "Lax", Duration.ofMinutes(5));
+    
+    public Mode getMode() {
+        return mode;
+    }
+    
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+    
+    public int getMaximumSessions() {
+        return maximumSessions;
+    }
+    
+    public void setMaximumSessions(int maximumSessions) {
+        this.maximumSessions = maximumSessions;
+    }
+    
+    public Store getStore() {
+        return store;
+    }
+    
+    public void setStore(Store store) {
+        this.store = store;
+    }
+    
+    public Duration getSweepInterval() {
+        return sweepInterval;
+    }
+    
+    public void setSweepInterval(Duration sweepInterval) {
+        this.sweepInterval = sweepInterval;
+    }
+    
+    public int getSweepBatchSize() {
+        return sweepBatchSize;
+    }
+    
+    public void setSweepBatchSize(int sweepBatchSize) {
+        this.sweepBatchSize = sweepBatchSize;
+    }
+    
+    public Duration getTouchInterval() {
+        return touchInterval;
+    }
+    
+    public void setTouchInterval(Duration touchInterval) {
+        this.touchInterval = touchInterval;
+    }
+    
+    public List<String> getKeys() {
+        return keys;
+    }
+    
+    public void setKeys(List<String> keys) {
+        this.keys = keys;
+    }
+    
+    public boolean isSecureCookies() {
+        return secureCookies;
+    }
+    
+    public void setSecureCookies(boolean secureCookies) {
+        this.secureCookies = secureCookies;
+    }
+    
+    public Cookie getCookie() {
+        return cookie;
+    }
+    
+    public void setCookie(Cookie cookie) {
+        this.cookie = cookie;
+    }
+    
+    public Cookie getRequestCookie() {
+        return requestCookie;
+    }
+    
+    public void setRequestCookie(Cookie requestCookie) {
+        this.requestCookie = requestCookie;
+    }
+    
+    public Cookie getLoginHintCookie() {
+        return loginHintCookie;
+    }
+    
+    public void setLoginHintCookie(Cookie loginHintCookie) {
+        this.loginHintCookie = loginHintCookie;
+    }
+    
+    /**
+     * Name and attributes of one stateless cookie.
+     */
+    public static class Cookie {
+        
+        private String name;
+        
+        /**
+         * SameSite attribute: Strict, Lax or None.
+         */
+        private String sameSite;
+        
+        /**
+         * Max-Age of the cookie and expiry of its sealed content.
+         */
+        private Duration lifetime;
+        
+        public Cookie() {
+        }
+        
+        public Cookie(String name, String sameSite, Duration lifetime) {
+            this.name = name;
+            this.sameSite = sameSite;
+            this.lifetime = lifetime;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public String getSameSite() {
+            return sameSite;
+        }
+        
+        public void setSameSite(String sameSite) {
+            this.sameSite = sameSite;
+        }
+        
+        public Duration getLifetime() {
+            return lifetime;
+        }
+        
+        public void setLifetime(Duration lifetime) {
+            this.lifetime = lifetime;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Checks the runtime of the {@code virtual-threads} profile.
+ * 
+ * The profile enables {@code spring.threads.virtual.enabled}, which Spring
+ * Boot silently ignores before Java 21. Startup fails instead so a
+ * deployment that opted in never runs on platform threads unnoticed.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadsConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+    
+    private static final int MINIMUM_JAVA_VERSION = 21;
+    
+    public VirtualThreadsConfig() {
+        int javaVersion = Runtime.version().feature();
+        if (javaVersion < MINIMUM_JAVA_VERSION) {
+            throw new IllegalStateException("The virtual-threads profile requires Java " + MINIMUM_JAVA_VERSION
+                    + " or later, but the application runs on Java " + javaVersion);
+        }
+        logger.info("Running request handling and async tasks on virtual threads");
+    }
+}
@@ -1,19 +1,39 @@
 package com.example.controller;
 
-import com.example.entity.IdpConfiguration;
+import com.example.audit.AuthAuditEvent;
+import com.example.audit.AuthAuditEvent.Type;
+import com.example.audit.AuthAuditPipeline;
+import com.example.config.LoginProperties;
+import com.example.config.MetadataProperties;
+import com.example.metrics.SsoMetrics;
+import com.example.metrics.SsoMetrics.Route;
+import com.example.model.IdpSnapshot;
+import com.example.saml.SpMetadataCache;
+import com.example.saml.SpMetadataCache.SpMetadata;
 import com.example.service.IdpConfigurationService;
+import com.example.service.IdpPickerCache;
+import com.example.session.LoginHintRepository;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.saml2.provider.service.authentication.Saml2Authentication;
+import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,11 +51,46 @@ public class AuthController {
     
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     
+    private static final MediaType SAML_METADATA = MediaType.parseMediaType("application/samlmetadata+xml");
+    
+    private static final MediaType HTML_UTF8 = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
+    
     private final IdpConfigurationService idpConfigurationService;
     
+    private final AuthAuditPipeline auditPipeline;
+    
+    private final SsoMetrics ssoMetrics;
+    
+    private final LoginHintRepository loginHintRepository;
+    
+    private final SpMetadataCache spMetadataCache;
+    
+    private final CacheControl metadataCacheControl;
+    
+    private final IdpPickerCache idpPickerCache;
+    
+    private final LoginProperties.Picker pickerProperties;
+    
+    private final CacheControl pickerCacheControl;
+    
+    private final SecurityContextLogoutHandler logoutHandler = new SecurityContextLogoutHandler();
+    
     @Autowired
-    public AuthController(IdpConfigurationService idpConfigurationService) {
+    public AuthController(IdpConfigurationService idpConfigurationService, AuthAuditPipeline auditPipeline,
+                          SsoMetrics ssoMetrics, LoginHintRepository loginHintRepository,
+                          SecurityContextRepository securityContextRepository, SpMetadataCache spMetadataCache,
+                          MetadataProperties metadataProperties, IdpPickerCache idpPickerCache,
+                          LoginProperties loginProperties) {
         this.idpConfigurationService = idpConfigurationService;
+        this.auditPipeline = auditPipeline;
+        this.ssoMetrics = ssoMetrics;
+        this.loginHintRepository = loginHintRepository;
+        this.spMetadataCache = spMetadataCache;
+        this.metadataCacheControl = CacheControl.maxAge(metadataProperties.getMaxAge()).cachePublic();
+        this.idpPickerCache = idpPickerCache;
+        this.pickerProperties = loginProperties.getPicker();
+        this.pickerCacheControl = CacheControl.maxAge(pickerProperties.getMaxAge()).cachePublic();
+        this.logoutHandler.setSecurityContextRepository(securityContextRepository);
     }
     
     /**
@@ -52,18 +107,25 @@ public class AuthController {
     /**
      * Display login page with available IdP options.
      * 
+     * The IdP picker is a pre-rendered page from the {@link IdpPickerCache},
+     * so the page's size and render cost do not depend on the number of
+     * IdPs. In lazy mode the picker is only linked and loaded on demand,
+     * unless a page is requested explicitly.
+     * 
      * @param model the Spring MVC model
      * @param request the HTTP request
      * @param error error parameter from URL
      * @param logout logout parameter from URL
      * @param expired expired parameter from URL
+     * @param page picker page parameter from URL
      * @return login page view name
      */
     @GetMapping("/login")
     public String login(Model model, HttpServletRequest request, 
                        @RequestParam(value = "error", required = false) String error,
                        @RequestParam(value = "logout", required = false) String logout,
-                       @RequestParam(value = "expired", required = false) String expired) {
+                       @RequestParam(value = "expired", required = false) String expired,
+                       @RequestParam(value = "page", required = false) Integer page) {
         
         logger.debug("Login page requested from IP: {}", request.getRemoteAddr());
         
@@ -91,59 +153,108 @@ public class AuthController {
             logger.warn("Session expired message displayed");
         }
         
-        // Get available IdP configurations
-        List<IdpConfiguration> idpConfigurations = idpConfigurationService.getAllActiveIdpConfigurations();
-        model.addAttribute("idpConfigurations", idpConfigurations);
+        // Add the cached IdP picker, or a link to it in lazy mode
+        int idpCount = idpPickerCache.size();
+        if (idpCount > 0) {
+            if (pickerProperties.getMode() == LoginProperties.Picker.Mode.LAZY && page == null) {
+                model.addAttribute("idpPickerLazy", true);
+                model.addAttribute("idpCount", idpCount);
+            } else {
+                model.addAttribute("idpPicker", idpPickerCache.page(page != null ? page : 0).html());
+            }
+        }
+        model.addAttribute("userEmail", loginHintRepository.loadEmail(request));
         
-        logger.info("Login page displayed with {} IdP configurations", idpConfigurations.size());
+        logger.info("Login page displayed with {} IdP configurations", idpCount);
         return "login";
     }
     
+    /**
+     * Serve a page of the IdP picker as an HTML fragment.
+     * 
+     * Used by the login page to load and page through the picker. Pages
+     * are served from the {@link IdpPickerCache} with a strong ETag and
+     * gzip encoded to clients that accept it.
+     * 
+     * @param page the zero-based page number
+     * @param acceptEncoding the Accept-Encoding request header
+     * @return the picker page
+     */
+    @GetMapping("/login/idps")
+    public ResponseEntity<byte[]> idpPicker(@RequestParam(value = "page", defaultValue = "0") int page,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                            String acceptEncoding) {
+        IdpPickerCache.Page picker = idpPickerCache.page(page);
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(HTML_UTF8)
+                .cacheControl(pickerCacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.eTag(picker.gzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(picker.gzip());
+        }
+        return response.eTag(picker.etag()).body(picker.bytes());
+    }
+    
     /**
      * Handle email-based IdP selection.
      * 
+     * Each attempt and its IdP selection are recorded in the audit trail
+     * with the email domain only.
+     * 
      * @param email the user's email address
      * @param request the HTTP request
+     * @param response the HTTP response
      * @return redirect to appropriate IdP or error page
      */
     @PostMapping("/login")
-    public String processLogin(@RequestParam("email") String email, HttpServletRequest request) {
-        logger.info("Login attempt with email: {}", email);
+    public String processLogin(@RequestParam("email") String email, HttpServletRequest request,
+                               HttpServletResponse response) {
+        Timer.Sample sample = ssoMetrics.startLogin();
         
         if (email == null || email.trim().isEmpty()) {
-            logger.warn("Empty email provided for login");
+            logger.debug("Empty email provided for login");
+            audit(Type.LOGIN_INITIATED, null, null, request, "empty email");
+            ssoMetrics.loginRouted(sample, Route.ERROR, null);
             return "redirect:/login?error=true";
         }
         
-        // Find IdP configuration for the email domain
-        Optional<IdpConfiguration> idpConfig = idpConfigurationService.findByIdpByEmail(email);
+        String emailDomain = IdpConfigurationService.extractDomainFromEmail(email.trim());
+        audit(Type.LOGIN_INITIATED, null, emailDomain, request, null);
+        
+        // Find IdP for the email domain from the in-memory routing index
+        Optional<String> idpId = idpConfigurationService.findIdpIdByEmail(email);
         
-        if (idpConfig.isPresent()) {
-            IdpConfiguration config = idpConfig.get();
-            logger.info("Found IdP configuration '{}' for email: {}", config.getIdpName(), email);
+        if (idpId.isPresent()) {
+            logger.debug("Found IdP configuration '{}' for email domain: {}", idpId.get(), emailDomain);
+            audit(Type.IDP_SELECTED, idpId.get(), emailDomain, request, "email domain");
             
-            // Store email in session for later use
-            HttpSession session = request.getSession();
-            session.setAttribute("userEmail", email);
-            session.setAttribute("selectedIdp", config.getIdpId());
+            // Remember the email to prefill the login page after a failed attempt
+            loginHintRepository.saveLoginHint(email, idpId.get(), request, response);
+            
+            ssoMetrics.loginRouted(sample, Route.DOMAIN, idpId.get());
             
             // Redirect to SAML login for the specific IdP
-            return "redirect:/saml2/authentication/" + config.getIdpId();
+            return "redirect:/saml2/authentication/" + idpId.get();
         } else {
-            logger.warn("No IdP configuration found for email domain: {}", email);
+            logger.debug("No IdP configuration found for email domain: {}", emailDomain);
             
             // Try to use default IdP if available
-            Optional<IdpConfiguration> defaultConfig = idpConfigurationService.getDefaultIdpConfiguration();
+            Optional<IdpSnapshot> defaultConfig = idpConfigurationService.getDefaultIdpConfiguration();
             if (defaultConfig.isPresent()) {
-                logger.info("Using default IdP configuration: {}", defaultConfig.get().getIdpName());
+                logger.debug("Using default IdP configuration: {}", defaultConfig.get().idpName());
+                audit(Type.IDP_SELECTED, defaultConfig.get().idpId(), emailDomain, request, "default");
                 
-                HttpSession session = request.getSession();
-                session.setAttribute("userEmail", email);
-                session.setAttribute("selectedIdp", defaultConfig.get().getIdpId());
+                loginHintRepository.saveLoginHint(email, defaultConfig.get().idpId(), request, response);
                 
-                return "redirect:/saml2/authentication/" + defaultConfig.get().getIdpId();
+                ssoMetrics.loginRouted(sample, Route.DEFAULT, defaultConfig.get().idpId());
+                return "redirect:/saml2/authentication/" + defaultConfig.get().idpId();
             } else {
-                logger.error("No IdP configuration available for email: {}", email);
+                logger.warn("No IdP configuration available for email domain: {}", emailDomain);
+                audit(Type.IDP_SELECTED, null, emailDomain, request, "no IdP available");
+                ssoMetrics.loginRouted(sample, Route.ERROR, null);
                 return "redirect:/login?error=true";
             }
         }
@@ -189,34 +300,52 @@ public class AuthController {
             logger.info("Dashboard displayed for user: {}", authentication.getName());
         }
         
+        // Sessions kept in a cookie have no container session id
+        HttpSession session = request.getSession(false);
+        model.addAttribute("sessionId", session != null ? session.getId() : null);
+        
         // Add available IdP configurations for logout options
-        List<IdpConfiguration> idpConfigurations = idpConfigurationService.getAllActiveIdpConfigurations();
+        List<IdpSnapshot> idpConfigurations = idpConfigurationService.getAllActiveIdpConfigurations();
         model.addAttribute("idpConfigurations", idpConfigurations);
         
         return "dashboard";
     }
     
     /**
-     * Handle SAML metadata endpoint.
+     * Serve SP metadata for a registration.
+     * 
+     * Metadata is served from the {@link SpMetadataCache} with a strong
+     * ETag, so revalidating pollers get {@code 304 Not Modified}, and gzip
+     * encoded to clients that accept it.
      * 
      * @param registrationId the SAML registration ID
-     * @param model the Spring MVC model
-     * @return metadata view name
+     * @param acceptEncoding the Accept-Encoding request header
+     * @return the metadata document, or 404 for an unknown registration
      */
     @GetMapping("/saml2/service-provider-metadata/{registrationId}")
-    public String metadata(@PathVariable String registrationId, Model model) {
+    public ResponseEntity<byte[]> metadata(@PathVariable String registrationId,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                           String acceptEncoding) {
         logger.debug("SAML metadata requested for registration: {}", registrationId);
         
-        Optional<IdpConfiguration> idpConfig = idpConfigurationService.getByIdpId(registrationId);
-        
-        if (idpConfig.isPresent()) {
-            model.addAttribute("idpConfiguration", idpConfig.get());
-            logger.info("SAML metadata displayed for IdP: {}", idpConfig.get().getIdpName());
-            return "metadata";
-        } else {
+        SpMetadata metadata = spMetadataCache.get(registrationId);
+        if (metadata == null) {
             logger.warn("SAML metadata requested for unknown registration: {}", registrationId);
-            return "error/404";
+            return ResponseEntity.notFound().build();
+        }
+        
+        // Conditional requests are answered with 304 by Spring from the ETag
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(SAML_METADATA)
+                .cacheControl(metadataCacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.eTag(metadata.gzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(metadata.gzip());
         }
+        return response.eTag(metadata.etag()).body(metadata.xml());
     }
     
     /**
@@ -225,31 +354,32 @@ public class AuthController {
      * @param idpId the IdP ID for logout (optional)
      * @param simple whether to perform simple logout (optional)
      * @param request the HTTP request
+     * @param response the HTTP response
      * @return redirect to logout or login page
      */
     @GetMapping("/logout")
     public String logout(@RequestParam(value = "idp", required = false) String idpId,
                         @RequestParam(value = "simple", required = false) String simple,
-                        HttpServletRequest request) {
+                        HttpServletRequest request, HttpServletResponse response) {
         
-        logger.info("Logout requested - IdP: {}, Simple: {}", idpId, simple);
+        logger.debug("Logout requested - IdP: {}, Simple: {}", idpId, simple);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        audit(Type.LOGOUT, idpId, null, authentication != null ? authentication.getName() : null, request,
+                "true".equals(simple) ? "simple" : null);
         
         if ("true".equals(simple)) {
-            // Perform simple logout (local session invalidation only)
-            HttpSession session = request.getSession(false);
-            if (session != null) {
-                session.invalidate();
-                logger.info("Simple logout completed - session invalidated");
-            }
+            // Perform simple logout (local session or session cookie only)
+            logoutHandler.logout(request, response, authentication);
+            logger.info("Simple logout completed - session ended");
             return "redirect:/login?logout=true";
         }
         
         if (idpId != null && !idpId.trim().isEmpty()) {
             // Redirect to specific IdP logout
-            Optional<IdpConfiguration> idpConfig = idpConfigurationService.getByIdpId(idpId);
-            if (idpConfig.isPresent() && idpConfig.get().getIdpSloUrl() != null) {
-                logger.info("Redirecting to IdP logout: {}", idpConfig.get().getIdpName());
-                return "redirect:" + idpConfig.get().getIdpSloUrl();
+            Optional<IdpSnapshot> idpConfig = idpConfigurationService.getByIdpId(idpId);
+            if (idpConfig.isPresent() && idpConfig.get().idpSloUrl() != null) {
+                logger.info("Redirecting to IdP logout: {}", idpConfig.get().idpName());
+                return "redirect:" + idpConfig.get().idpSloUrl();
             }
         }
         
@@ -258,6 +388,29 @@ public class AuthController {
         return "redirect:/login?logout=true";
     }
     
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+    
+    private void audit(Type type, String idpId, String emailDomain, HttpServletRequest request, String detail) {
+        audit(type, idpId, emailDomain, null, request, detail);
+    }
+    
+    private void audit(Type type, String idpId, String emailDomain, String principal, HttpServletRequest request,
+                       String detail) {
+        auditPipeline.record(AuthAuditEvent.now(type, idpId, emailDomain, principal, request.getRemoteAddr(),
+                detail));
+    }
+    
     /**
      * Extract email from SAML attributes.
      * 
@@ -0,0 +1,125 @@
+package com.example.controller;
+
+import com.example.config.LoginProperties;
+import com.example.service.HomeRealmDiscovery;
+import com.example.service.HomeRealmDiscovery.Discovery;
+import com.example.service.IdpNameIndex.Suggestion;
+import com.example.service.IdpSearchIndex;
+import com.example.web.Etags;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-only home-realm discovery API.
+ * 
+ * Answers which IdP a user of an email domain signs in with, without
+ * creating a session. Answers depend only on the domain in the URL and
+ * carry a strong ETag and a public {@code Cache-Control}, so a CDN or the
+ * browser can cache them per domain and revalidate with
+ * {@code If-None-Match}. Unknown domains get a cacheable {@code 404}.
+ * 
+ * Also offers typeahead search over IdP names for the login page, answered
+ * from the in-memory {@link IdpSearchIndex}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@RestController
+public class DiscoveryController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DiscoveryController.class);
+    
+    private static final int MAX_QUERY_LENGTH = 100;
+    
+    private final HomeRealmDiscovery homeRealmDiscovery;
+    
+    private final ObjectMapper objectMapper;
+    
+    private final IdpSearchIndex idpSearchIndex;
+    
+    private final CacheControl cacheControl;
+    
+    private final CacheControl searchCacheControl;
+    
+    private final int maxSearchResults;
+    
+    @Autowired
+    public DiscoveryController(HomeRealmDiscovery homeRealmDiscovery, IdpSearchIndex idpSearchIndex,
+                               ObjectMapper objectMapper, LoginProperties loginProperties) {
+        this.homeRealmDiscovery = homeRealmDiscovery;
+        this.idpSearchIndex = idpSearchIndex;
+        this.objectMapper = objectMapper;
+        this.cacheControl = CacheControl.maxAge(loginProperties.getDiscovery().getMaxAge()).cachePublic();
+        this.searchCacheControl = CacheControl.maxAge(loginProperties.getSearch().getMaxAge()).cachePublic();
+        this.maxSearchResults = loginProperties.getSearch().getMaxResults();
+    }
+    
+    /**
+     * Discover the IdP for an email domain.
+     * 
+     * @param domain the email domain; an email address is reduced to its domain
+     * @return the discovery answer, 404 if no IdP applies, or 400 for an invalid domain
+     * @throws JsonProcessingException if the answer cannot be serialized
+     */
+    @GetMapping("/api/discovery")
+    public ResponseEntity<byte[]> discover(@RequestParam("domain") String domain) throws JsonProcessingException {
+        String normalized = HomeRealmDiscovery.normalize(domain);
+        if (normalized == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        Optional<Discovery> discovery = homeRealmDiscovery.discover(normalized);
+        if (discovery.isEmpty()) {
+            logger.debug("No IdP discovered for domain: {}", normalized);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).cacheControl(cacheControl).build();
+        }
+        
+        // Conditional requests are answered with 304 by Spring from the ETag
+        byte[] body = objectMapper.writeValueAsBytes(discovery.get());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(cacheControl)
+                .eTag(Etags.of(body))
+                .body(body);
+    }
+    
+    /**
+     * Suggest active IdPs whose name has a word starting with the query.
+     * 
+     * @param query the text typed so far
+     * @param limit maximum number of suggestions, capped by {@code saml.login.search.max-results}
+     * @return ranked suggestions, or 400 for an overlong query
+     * @throws JsonProcessingException if the answer cannot be serialized
+     */
+    @GetMapping("/api/discovery/search")
+    public ResponseEntity<byte[]> search(@RequestParam("q") String query,
+                                         @RequestParam(value = "limit", required = false) Integer limit)
+            throws JsonProcessingException {
+        if (query.length() > MAX_QUERY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        int max = limit == null ? maxSearchResults : Math.max(0, Math.min(limit, maxSearchResults));
+        List<Suggestion> suggestions = idpSearchIndex.search(query, max);
+        
+        byte[] body = objectMapper.writeValueAsBytes(suggestions);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(searchCacheControl)
+                .eTag(Etags.of(body))
+                .body(body);
+    }
+}
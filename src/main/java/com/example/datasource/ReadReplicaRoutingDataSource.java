@@ -0,0 +1,104 @@
+package com.example.datasource;
+
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationResyncEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to a replica pool and everything else to
+ * the primary.
+ * 
+ * The route is chosen when a connection is first used, so this datasource
+ * must be wrapped in a {@link LazyConnectionDataSourceProxy}: transaction
+ * managers fetch the connection before the read-only flag of the new
+ * transaction is published. Work outside transactions, such as
+ * {@code JdbcTemplate} writes, goes to the primary.
+ * 
+ * Replicas lag behind the primary, and caches and in-memory views reload
+ * right after an IdP configuration change. For a short window after each
+ * change every read therefore goes to the primary, so nothing is
+ * refilled from a replica that has not yet seen the change.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    /**
+     * Route of a connection.
+     */
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+    
+    private final Duration primaryWindow;
+    
+    private final Clock clock;
+    
+    private volatile long primaryUntil;
+    
+    /**
+     * @param primary the read-write pool
+     * @param replica the read-only pool
+     * @param primaryWindow how long reads stay on the primary after a change
+     * @param clock the clock
+     */
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration primaryWindow, Clock clock) {
+        this.primaryWindow = primaryWindow;
+        this.clock = clock;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+    
+    /**
+     * Get the route of a connection requested now.
+     * 
+     * @return replica within a read-only transaction outside the primary window, otherwise primary
+     */
+    public Route currentRoute() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && clock.millis() >= primaryUntil) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+    
+    /**
+     * Keep reads on the primary after a local or remote IdP change.
+     * 
+     * @param event the configuration change event
+     */
+    @EventListener
+    public void onIdpConfigurationChanged(IdpConfigurationChangedEvent event) {
+        holdPrimary();
+    }
+    
+    /**
+     * Keep reads on the primary while in-memory views are reloaded.
+     * 
+     * @param event the resync event
+     */
+    @EventListener
+    public void onResync(IdpConfigurationResyncEvent event) {
+        holdPrimary();
+    }
+    
+    private void holdPrimary() {
+        primaryUntil = Math.max(primaryUntil, clock.millis() + primaryWindow.toMillis());
+    }
+}
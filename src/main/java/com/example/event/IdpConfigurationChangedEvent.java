@@ -0,0 +1,127 @@
+package com.example.event;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Application event published whenever an IdP configuration is created,
+ * updated or deleted.
+ * 
+ * Components holding precomputed, in-memory views of IdP configurations
+ * listen for this event to rebuild only the affected entry. Events
+ * received from other cluster nodes are re-published locally with
+ * {@link #isRemote()} set.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class IdpConfigurationChangedEvent {
+    
+    /**
+     * Kind of change applied to an IdP configuration.
+     */
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+    
+    /**
+     * Part of an IdP configuration touched by a change.
+     */
+    public enum Aspect {
+        /** Core attributes such as name, URLs, certificate or active flag. */
+        CONFIGURATION,
+        /** SAML properties. */
+        PROPERTIES,
+        /** Email domain mappings. */
+        EMAIL_DOMAINS,
+        /** The default IdP, either before or after the change. */
+        DEFAULT
+    }
+    
+    private final String idpId;
+    
+    private final Long id;
+    
+    private final ChangeType changeType;
+    
+    private final Set<Aspect> aspects;
+    
+    private final Set<String> emailDomains;
+    
+    private final boolean remote;
+    
+    public IdpConfigurationChangedEvent(String idpId, Long id, ChangeType changeType) {
+        this(idpId, id, changeType, EnumSet.allOf(Aspect.class), null, false);
+    }
+    
+    public IdpConfigurationChangedEvent(String idpId, Long id, ChangeType changeType, Set<Aspect> aspects,
+                                        Set<String> emailDomains, boolean remote) {
+        this.idpId = idpId;
+        this.id = id;
+        this.changeType = changeType;
+        this.aspects = aspects == null || aspects.isEmpty()
+                ? EnumSet.allOf(Aspect.class) : Collections.unmodifiableSet(EnumSet.copyOf(aspects));
+        this.emailDomains = emailDomains == null ? null : Collections.unmodifiableSet(emailDomains);
+        this.remote = remote;
+    }
+    
+    public String getIdpId() {
+        return idpId;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+    
+    public Set<Aspect> getAspects() {
+        return aspects;
+    }
+    
+    /**
+     * Check whether the change touched any of the given aspects.
+     * 
+     * @param candidates the aspects to check
+     * @return true if at least one of them changed
+     */
+    public boolean affects(Aspect... candidates) {
+        for (Aspect candidate : candidates) {
+            if (aspects.contains(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get the email domains affected by the change.
+     * 
+     * @return lower-case email domains, or null if they are unknown and
+     *         every domain must be considered affected
+     */
+    public Set<String> getEmailDomains() {
+        return emailDomains;
+    }
+    
+    public boolean isRemote() {
+        return remote;
+    }
+    
+    @Override
+    public String toString() {
+        return "IdpConfigurationChangedEvent{" +
+                "idpId='" + idpId + '\'' +
+                ", id=" + id +
+                ", changeType=" + changeType +
+                ", aspects=" + aspects +
+                ", emailDomains=" + emailDomains +
+                ", remote=" + remote +
+                '}';
+    }
+}
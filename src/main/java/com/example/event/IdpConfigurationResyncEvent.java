@@ -0,0 +1,31 @@
+package com.example.event;
+
+/**
+ * Application event requesting a full reload of all in-memory views of
+ * IdP configurations.
+ * 
+ * Published when change notifications may have been missed, for example
+ * after the cluster invalidation listener reconnects to the database.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class IdpConfigurationResyncEvent {
+    
+    private final String reason;
+    
+    public IdpConfigurationResyncEvent(String reason) {
+        this.reason = reason;
+    }
+    
+    public String getReason() {
+        return reason;
+    }
+    
+    @Override
+    public String toString() {
+        return "IdpConfigurationResyncEvent{" +
+                "reason='" + reason + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.metrics;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounds the number of distinct {@code idp} tag values on metrics.
+ * 
+ * The first {@code maxIdps} IdP IDs seen keep their own tag value; any
+ * further IdP is reported as {@value #OTHER}, so a deployment with
+ * thousands of tenants cannot flood the metrics backend. Per-IdP timers
+ * use the coarse {@link #LATENCY_BUCKETS} instead of full percentile
+ * histograms for the same reason.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class IdpTagLimiter {
+    
+    /**
+     * Tag key for the IdP ID.
+     */
+    public static final String TAG = "idp";
+    
+    /**
+     * Tag value for IdPs beyond the limit.
+     */
+    public static final String OTHER = "other";
+    
+    /**
+     * Tag value when no IdP is involved.
+     */
+    public static final String NONE = "none";
+    
+    /**
+     * Histogram buckets for per-IdP latency, enough to estimate p99 per tenant.
+     */
+    public static final Duration[] LATENCY_BUCKETS = {
+            Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+            Duration.ofMillis(2500)
+    };
+    
+    private final int maxIdps;
+    
+    private final Set<String> tagged = ConcurrentHashMap.newKeySet();
+    
+    private volatile boolean full;
+    
+    public IdpTagLimiter(int maxIdps) {
+        this.maxIdps = maxIdps;
+    }
+    
+    /**
+     * Get the tag value for an IdP.
+     * 
+     * @param idpId the IdP ID, may be null
+     * @return the IdP ID while under the limit, otherwise {@value #OTHER}
+     */
+    public String tag(String idpId) {
+        if (idpId == null || idpId.isEmpty()) {
+            return NONE;
+        }
+        if (tagged.contains(idpId)) {
+            return idpId;
+        }
+        if (full) {
+            return OTHER;
+        }
+        synchronized (tagged) {
+            if (tagged.size() < maxIdps) {
+                tagged.add(idpId);
+                return idpId;
+            }
+            full = true;
+            return OTHER;
+        }
+    }
+    
+    public int getMaxIdps() {
+        return maxIdps;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticatedPrincipal;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationToken;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of the SSO login flow, tagged by IdP.
+ * 
+ * Records the following meters, with the {@code idp} tag bounded by
+ * {@link IdpTagLimiter}:
+ * <ul>
+ *   <li>{@code saml.login.route} - time to route a login form submission,
+ *       tagged with how the IdP was chosen: {@code domain}, {@code default} or {@code error}</li>
+ *   <li>{@code saml.login.completions} - SAML Responses accepted or rejected,
+ *       tagged with outcome {@code success} or {@code failure}</li>
+ * </ul>
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Component
+public class SsoMetrics {
+    
+    /**
+     * How a login form submission was routed.
+     */
+    public enum Route {
+        DOMAIN, DEFAULT, ERROR
+    }
+    
+    private final MeterRegistry meterRegistry;
+    
+    private final IdpTagLimiter idpTags;
+    
+    @Autowired
+    public SsoMetrics(MeterRegistry meterRegistry, IdpTagLimiter idpTags) {
+        this.meterRegistry = meterRegistry;
+        this.idpTags = idpTags;
+    }
+    
+    /**
+     * Start timing a login form submission.
+     * 
+     * @return the running sample
+     */
+    public Timer.Sample startLogin() {
+        return Timer.start(meterRegistry);
+    }
+    
+    /**
+     * Record how a login form submission was routed.
+     * 
+     * @param sample the sample from {@link #startLogin()}
+     * @param route how the IdP was chosen
+     * @param idpId the chosen IdP, or null
+     */
+    public void loginRouted(Timer.Sample sample, Route route, String idpId) {
+        sample.stop(Timer.builder("saml.login.route")
+                .description("Time to route a login form submission to an IdP")
+                .tag("route", route.name().toLowerCase())
+                .tag(IdpTagLimiter.TAG, idpTags.tag(idpId))
+                .serviceLevelObjectives(IdpTagLimiter.LATENCY_BUCKETS)
+                .register(meterRegistry));
+    }
+    
+    /**
+     * Count an accepted SAML Response.
+     * 
+     * @param event the success event
+     */
+    @EventListener
+    public void onSuccess(AuthenticationSuccessEvent event) {
+        if (event.getAuthentication().getPrincipal() instanceof Saml2AuthenticatedPrincipal principal) {
+            completion(principal.getRelyingPartyRegistrationId(), "success").increment();
+        }
+    }
+    
+    /**
+     * Count a rejected SAML Response.
+     * 
+     * @param event the failure event
+     */
+    @EventListener
+    public void onFailure(AbstractAuthenticationFailureEvent event) {
+        if (event.getAuthentication() instanceof Saml2AuthenticationToken token) {
+            String idpId = token.getRelyingPartyRegistration() != null
+                    ? token.getRelyingPartyRegistration().getRegistrationId() : null;
+            completion(idpId, "failure").increment();
+        }
+    }
+    
+    private Counter completion(String idpId, String outcome) {
+        return Counter.builder("saml.login.completions")
+                .description("SAML Responses processed at the assertion consumer service")
+                .tag(IdpTagLimiter.TAG, idpTags.tag(idpId))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
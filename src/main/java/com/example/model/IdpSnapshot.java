@@ -0,0 +1,130 @@
+package com.example.model;
+
+import com.example.entity.IdpConfiguration;
+import com.example.entity.IdpEmailDomain;
+import com.example.entity.IdpProperty;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, entity-free snapshot of an IdP configuration.
+ * 
+ * Built once from an {@link IdpConfiguration} inside a transaction, with
+ * properties flattened into a map and active email domains into a list,
+ * so that it can be cached and shared across threads without Hibernate
+ * proxies or lazy collections.
+ * 
+ * @param id the surrogate ID
+ * @param idpId the IdP identifier
+ * @param idpName the IdP name
+ * @param idpEntityId the SAML entity ID of the IdP
+ * @param idpSsoUrl the single sign-on URL
+ * @param idpSloUrl the single logout URL, may be null
+ * @param idpCertificate the PEM signing certificate(s), may be null
+ * @param logoUrl the logo URL, may be null
+ * @param displayName the display name, may be null
+ * @param active whether the IdP is active
+ * @param defaultIdp whether the IdP is the default IdP
+ * @param updatedAt the last modification time
+ * @param properties SAML properties by name
+ * @param emailDomains active email domains, lower-case
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public record IdpSnapshot(
+        Long id,
+        String idpId,
+        String idpName,
+        String idpEntityId,
+        String idpSsoUrl,
+        String idpSloUrl,
+        String idpCertificate,
+        String logoUrl,
+        String displayName,
+        boolean active,
+        boolean defaultIdp,
+        LocalDateTime updatedAt,
+        Map<String, String> properties,
+        List<String> emailDomains) {
+    
+    public IdpSnapshot {
+        properties = properties == null ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+        emailDomains = emailDomains == null ? List.of() : List.copyOf(emailDomains);
+    }
+    
+    /**
+     * Create a snapshot from an IdP configuration entity.
+     * 
+     * Must be called while the entity's collections can still be loaded.
+     * 
+     * @param configuration the IdP configuration
+     * @return snapshot of the configuration
+     */
+    public static IdpSnapshot from(IdpConfiguration configuration) {
+        return from(configuration, configuration.getProperties(), configuration.getEmailDomains());
+    }
+    
+    /**
+     * Create a snapshot from an IdP configuration and separately loaded collections.
+     * 
+     * @param configuration the IdP configuration
+     * @param properties the properties of the configuration
+     * @param emailDomains the email domains of the configuration
+     * @return snapshot of the configuration
+     */
+    public static IdpSnapshot from(IdpConfiguration configuration, List<IdpProperty> properties,
+                                   List<IdpEmailDomain> emailDomains) {
+        Map<String, String> propertyMap = new LinkedHashMap<>();
+        for (IdpProperty property : properties) {
+            // First value wins, as in IdpConfiguration#getPropertyValue
+            propertyMap.putIfAbsent(property.getPropertyName(), property.getPropertyValue());
+        }
+        
+        List<String> domains = new ArrayList<>(emailDomains.size());
+        for (IdpEmailDomain emailDomain : emailDomains) {
+            if (Boolean.TRUE.equals(emailDomain.getIsActive())) {
+                domains.add(emailDomain.getEmailDomain().trim().toLowerCase());
+            }
+        }
+        
+        return new IdpSnapshot(
+                configuration.getId(),
+                configuration.getIdpId(),
+                configuration.getIdpName(),
+                configuration.getIdpEntityId(),
+                configuration.getIdpSsoUrl(),
+                configuration.getIdpSloUrl(),
+                configuration.getIdpCertificate(),
+                configuration.getLogoUrl(),
+                configuration.getDisplayName(),
+                Boolean.TRUE.equals(configuration.getIsActive()),
+                Boolean.TRUE.equals(configuration.getIsDefault()),
+                configuration.getUpdatedAt(),
+                propertyMap,
+                domains);
+    }
+    
+    /**
+     * Get the name to show to users.
+     * 
+     * @return display name, or IdP name if no display name is set
+     */
+    public String label() {
+        return displayName != null && !displayName.isBlank() ? displayName : idpName;
+    }
+    
+    /**
+     * Get a SAML property value.
+     * 
+     * @param propertyName the property name
+     * @return the property value, or null if not set
+     */
+    public String property(String propertyName) {
+        return properties.get(propertyName);
+    }
+}
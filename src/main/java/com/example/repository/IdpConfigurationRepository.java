@@ -1,10 +1,13 @@
 package com.example.repository;
 
 import com.example.entity.IdpConfiguration;
+import com.example.entity.IdpEmailDomain;
+import com.example.entity.IdpProperty;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,12 +16,15 @@ import java.util.Optional;
  * Spring Data JPA Repository for IdP configuration management.
  * 
  * Provides data access methods for Identity Provider configurations
- * with support for custom queries and business logic.
+ * with support for custom queries and business logic. Query methods run
+ * read-only when called outside a transaction; inherited save and delete
+ * methods keep their read-write transactions.
  * 
  * @author SAML Spring Boot Application
  * @version 1.0.0
  */
 @Repository
+@Transactional(readOnly = true)
 public interface IdpConfigurationRepository extends JpaRepository<IdpConfiguration, Long> {
     
     /**
@@ -54,26 +60,86 @@ public interface IdpConfigurationRepository extends JpaRepository<IdpConfigurati
     /**
      * Find IdP configuration by email domain.
      * 
+     * Domains are compared case-insensitively, using the partial
+     * {@code lower(email_domain)} index on active mappings.
+     * 
      * @param emailDomain the email domain to search for
      * @return Optional containing the IdP configuration if found
      */
     @Query("SELECT ic FROM IdpConfiguration ic " +
            "JOIN ic.emailDomains ed " +
-           "WHERE ed.emailDomain = :emailDomain " +
+           "WHERE LOWER(ed.emailDomain) = LOWER(:emailDomain) " +
            "AND ed.isActive = true " +
            "AND ic.isActive = true")
     Optional<IdpConfiguration> findByEmailDomain(@Param("emailDomain") String emailDomain);
     
     /**
-     * Find all IdP configurations with their properties and email domains.
+     * Find all active email domain mappings of active IdP configurations.
+     * 
+     * @return List of {@code [emailDomain, idpId]} pairs
+     */
+    @Query("SELECT ed.emailDomain, ic.idpId FROM IdpEmailDomain ed " +
+           "JOIN ed.idpConfiguration ic " +
+           "WHERE ed.isActive = true " +
+           "AND ic.isActive = true")
+    List<Object[]> findActiveEmailDomainMappings();
+    
+    /**
+     * Find the active email domains of an active IdP configuration.
+     * 
+     * @param idpId the IdP identifier
+     * @return List of email domains
+     */
+    @Query("SELECT ed.emailDomain FROM IdpEmailDomain ed " +
+           "JOIN ed.idpConfiguration ic " +
+           "WHERE ic.idpId = :idpId " +
+           "AND ed.isActive = true " +
+           "AND ic.isActive = true")
+    List<String> findActiveEmailDomainsByIdpId(@Param("idpId") String idpId);
+    
+    /**
+     * Find the names of all active IdP configurations.
      * 
-     * @return List of IdP configurations with all related data
+     * @return List of {@code [idpId, idpName, displayName, logoUrl]} rows
      */
-    @Query("SELECT DISTINCT ic FROM IdpConfiguration ic " +
-           "LEFT JOIN FETCH ic.properties " +
-           "LEFT JOIN FETCH ic.emailDomains " +
+    @Query("SELECT ic.idpId, ic.idpName, ic.displayName, ic.logoUrl FROM IdpConfiguration ic " +
            "WHERE ic.isActive = true")
-    List<IdpConfiguration> findAllActiveWithDetails();
+    List<Object[]> findActiveNames();
+    
+    /**
+     * Find the names of an active IdP configuration.
+     * 
+     * @param idpId the IdP identifier
+     * @return List with the {@code [idpId, idpName, displayName, logoUrl]} row, empty if not active
+     */
+    @Query("SELECT ic.idpId, ic.idpName, ic.displayName, ic.logoUrl FROM IdpConfiguration ic " +
+           "WHERE ic.idpId = :idpId " +
+           "AND ic.isActive = true")
+    List<Object[]> findActiveNamesByIdpId(@Param("idpId") String idpId);
+    
+    /**
+     * Find the properties of all active IdP configurations.
+     * 
+     * Loaded separately from the configurations and their email domains,
+     * as fetch-joining both collections at once multiplies rows
+     * (properties x domains per IdP).
+     * 
+     * @return List of properties of active IdP configurations
+     */
+    @Query("SELECT p FROM IdpProperty p " +
+           "JOIN p.idpConfiguration ic " +
+           "WHERE ic.isActive = true")
+    List<IdpProperty> findPropertiesOfActiveConfigurations();
+    
+    /**
+     * Find the email domains of all active IdP configurations.
+     * 
+     * @return List of email domains of active IdP configurations
+     */
+    @Query("SELECT ed FROM IdpEmailDomain ed " +
+           "JOIN ed.idpConfiguration ic " +
+           "WHERE ic.isActive = true")
+    List<IdpEmailDomain> findEmailDomainsOfActiveConfigurations();
     
     /**
      * Check if an IdP configuration exists by IdP ID.
@@ -86,6 +152,9 @@ public interface IdpConfigurationRepository extends JpaRepository<IdpConfigurati
     /**
      * Find IdP configurations by partial name match.
      * 
+     * Scans the whole table; use {@link com.example.service.IdpSearchIndex}
+     * for interactive search.
+     * 
      * @param namePattern the name pattern to search for
      * @return List of matching IdP configurations
      */
@@ -0,0 +1,76 @@
+package com.example.saml;
+
+import com.example.metrics.IdpTagLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.function.Supplier;
+
+/**
+ * Times the stages of SAML Response processing at the assertion consumer service.
+ * 
+ * Records the {@code saml.acs.stage} timer tagged with the stage, its
+ * outcome and the IdP, with latency buckets so p99 latency can be
+ * estimated per stage and IdP.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class AcsStageTimer {
+    
+    private final MeterRegistry meterRegistry;
+    
+    private final IdpTagLimiter idpTags;
+    
+    public AcsStageTimer(MeterRegistry meterRegistry, IdpTagLimiter idpTags) {
+        this.meterRegistry = meterRegistry;
+        this.idpTags = idpTags;
+    }
+    
+    /**
+     * Run a stage and record its duration.
+     * 
+     * @param stage the stage name
+     * @param idpId the IdP the Response is from
+     * @param work the stage to run
+     * @return the stage result
+     */
+    public <T> T time(String stage, String idpId, Supplier<T> work) {
+        Timer.Sample sample = start();
+        boolean success = false;
+        try {
+            T result = work.get();
+            success = true;
+            return result;
+        } finally {
+            stop(sample, stage, idpId, success);
+        }
+    }
+    
+    /**
+     * Start timing a stage whose IdP is only known once it completes.
+     * 
+     * @return the running sample
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+    
+    /**
+     * Record the duration of a stage started with {@link #start()}.
+     * 
+     * @param sample the running sample
+     * @param stage the stage name
+     * @param idpId the IdP the Response is from, or null if unknown
+     * @param success whether the stage succeeded
+     */
+    public void stop(Timer.Sample sample, String stage, String idpId, boolean success) {
+        sample.stop(Timer.builder("saml.acs.stage")
+                .description("Time spent per SAML Response processing stage")
+                .tag("stage", stage)
+                .tag("outcome", success ? "success" : "failure")
+                .tag(IdpTagLimiter.TAG, idpTags.tag(idpId))
+                .serviceLevelObjectives(IdpTagLimiter.LATENCY_BUCKETS)
+                .register(meterRegistry));
+    }
+}
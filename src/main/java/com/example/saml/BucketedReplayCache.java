@@ -0,0 +1,218 @@
+package com.example.saml;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory replay cache sized for a peak login rate.
+ * 
+ * Identifiers are grouped into time buckets by expiry, held in a ring
+ * that covers the retention period. A bucket is cleared and reused once
+ * every identifier in it has expired, so nothing is evicted early and no
+ * sweeping is needed. Each bucket is a primitive {@link LongHashSet}
+ * allocated at startup; memory is about
+ * {@code 16 * bucketCapacity * (retention / bucketDuration + 2)} bytes.
+ * See {@link #capacityFor} for sizing a bucket from a login rate.
+ * 
+ * Expiry times beyond the retention period are clamped to it. A bucket
+ * that fills up spills into at most {@code maxSpillTables} further tables
+ * of the same capacity, released when the bucket is reused, so a short
+ * peak above the sizing does not fail logins. Memory stays bounded at
+ * {@code 1 + maxSpillTables} times the figure above. Once a bucket and
+ * all of its spill tables are full, identifiers expiring in it are
+ * refused with an exception, so the Response is rejected rather than
+ * accepted unrecorded.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class BucketedReplayCache implements ReplayCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BucketedReplayCache.class);
+    
+    private final long bucketMillis;
+    
+    private final long retentionMillis;
+    
+    private final Bucket[] buckets;
+    
+    private final int maxSpillTables;
+    
+    private final Clock clock;
+    
+    private final LongAdder spills = new LongAdder();
+    
+    private final LongAdder overflows = new LongAdder();
+    
+    public BucketedReplayCache(Duration retention, Duration bucketDuration, int bucketCapacity,
+                               int maxSpillTables, Clock clock) {
+        if (bucketCapacity < 1) {
+            throw new IllegalArgumentException("Replay cache bucket capacity must be positive: " + bucketCapacity);
+        }
+        if (maxSpillTables < 0) {
+            throw new IllegalArgumentException("Replay cache spill tables must not be negative: " + maxSpillTables);
+        }
+        this.maxSpillTables = maxSpillTables;
+        this.bucketMillis = bucketDuration.toMillis();
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+        
+        // Live expiry buckets span from the current one to the one holding now + retention
+        int bucketCount = (int) ((retentionMillis + bucketMillis - 1) / bucketMillis) + 2;
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket(bucketCapacity);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws IllegalStateException if the bucket for the expiry time and all of its spill tables are full
+     */
+    @Override
+    public boolean putIfAbsent(long idHash, Instant expiresAt) {
+        long now = clock.millis();
+        long expiry = Math.min(Math.max(expiresAt.toEpochMilli(), now + 1), now + retentionMillis);
+        long epoch = Math.floorDiv(expiry + bucketMillis - 1, bucketMillis);
+        
+        Bucket target = buckets[(int) Math.floorMod(epoch, (long) buckets.length)];
+        for (Bucket bucket : buckets) {
+            if (bucket != target && bucket.containsLive(idHash, now, bucketMillis)) {
+                return false;
+            }
+        }
+        return target.add(idHash, epoch, bucketMillis);
+    }
+    
+    /**
+     * Get the bucket capacity holding every identifier recorded at a
+     * sustained login rate.
+     * 
+     * Identifiers of Responses received within one bucket period expire in
+     * the same bucket, so a bucket must hold
+     * {@code peakLoginRate * idsPerLogin * bucketDuration} identifiers.
+     * 
+     * @param peakLoginRate peak logins per second on this node
+     * @param idsPerLogin identifiers recorded per login
+     * @param bucketDuration the bucket period
+     * @return identifiers per bucket, at least 1
+     */
+    public static int capacityFor(double peakLoginRate, int idsPerLogin, Duration bucketDuration) {
+        double capacity = Math.ceil(peakLoginRate * idsPerLogin * bucketDuration.toMillis() / 1000.0);
+        return (int) Math.max(1, Math.min(capacity, Integer.MAX_VALUE / 4));
+    }
+    
+    /**
+     * Get the number of identifiers currently held, including expired ones not yet cleared.
+     * 
+     * @return number of held identifiers
+     */
+    public int size() {
+        int size = 0;
+        for (Bucket bucket : buckets) {
+            size += bucket.size();
+        }
+        return size;
+    }
+    
+    /**
+     * Get the number of spill tables allocated since startup.
+     * 
+     * @return spill tables allocated
+     */
+    public long spillCount() {
+        return spills.sum();
+    }
+    
+    /**
+     * Get the number of identifiers refused because their bucket and its
+     * spill tables were full.
+     * 
+     * @return refused identifiers
+     */
+    public long overflowCount() {
+        return overflows.sum();
+    }
+    
+    /**
+     * Identifiers expiring at or before the end of one bucket period.
+     */
+    private final class Bucket {
+        
+        private final int capacity;
+        
+        private final LongHashSet ids;
+        
+        /** Tables taking identifiers once {@link #ids} is full, in fill order. */
+        private final List<LongHashSet> spill = new ArrayList<>();
+        
+        private long epoch;
+        
+        Bucket(int capacity) {
+            this.capacity = capacity;
+            this.ids = new LongHashSet(capacity);
+        }
+        
+        synchronized boolean containsLive(long idHash, long now, long bucketMillis) {
+            return epoch * bucketMillis > now && contains(idHash);
+        }
+        
+        synchronized boolean add(long idHash, long expiryEpoch, long bucketMillis) {
+            if (epoch != expiryEpoch) {
+                ids.clear();
+                spill.clear();
+                epoch = expiryEpoch;
+            }
+            // Nothing has spilled while the first table still has room
+            if (!ids.isFull()) {
+                return ids.add(idHash);
+            }
+            if (contains(idHash)) {
+                return false;
+            }
+            LongHashSet last = spill.isEmpty() ? null : spill.get(spill.size() - 1);
+            if (last == null || last.isFull()) {
+                Instant expiry = Instant.ofEpochMilli(epoch * bucketMillis);
+                if (spill.size() >= maxSpillTables) {
+                    overflows.increment();
+                    throw new IllegalStateException("Replay cache bucket expiring at " + expiry + " is full at "
+                            + size() + " identifiers");
+                }
+                logger.warn("Replay cache bucket expiring at {} holds {} identifiers; "
+                        + "raise saml.acs.replay.peak-login-rate if this recurs", expiry, size());
+                last = new LongHashSet(capacity);
+                spill.add(last);
+                spills.increment();
+            }
+            return last.add(idHash);
+        }
+        
+        synchronized int size() {
+            int size = ids.size();
+            for (LongHashSet set : spill) {
+                size += set.size();
+            }
+            return size;
+        }
+        
+        private boolean contains(long idHash) {
+            if (ids.contains(idHash)) {
+                return true;
+            }
+            for (LongHashSet set : spill) {
+                if (set.contains(idHash)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
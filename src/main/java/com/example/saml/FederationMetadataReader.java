@@ -0,0 +1,301 @@
+package com.example.saml;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Streaming reader of SAML metadata aggregates.
+ * 
+ * Walks the document with StAX and yields one {@link IdpEntity} per
+ * EntityDescriptor with a SAML 2.0 IDPSSODescriptor and an HTTP-Redirect
+ * SingleSignOnService, holding only that descriptor's values in memory,
+ * so aggregates of any size are read in constant space. Other entities,
+ * such as service providers, are counted and skipped. DTDs and external
+ * entities are refused.
+ * 
+ * The aggregate's own signature is not verified; aggregates must be
+ * verified against the federation's signing certificate before import.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class FederationMetadataReader implements AutoCloseable {
+    
+    private static final String MD = "urn:oasis:names:tc:SAML:2.0:metadata";
+    
+    private static final String DS = "http://www.w3.org/2000/09/xmldsig#";
+    
+    private static final String MDUI = "urn:oasis:names:tc:SAML:metadata:ui";
+    
+    private static final String SHIBMD = "urn:mace:shibboleth:metadata:1.0";
+    
+    private static final String SAML2_PROTOCOL = "urn:oasis:names:tc:SAML:2.0:protocol";
+    
+    private static final String REDIRECT_BINDING = "urn:oasis:names:tc:SAML:2.0:bindings:HTTP-Redirect";
+    
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    
+    private final XMLStreamReader reader;
+    
+    private int skipped;
+    
+    /**
+     * @param in the metadata document; not closed by the reader
+     * @throws XMLStreamException if the document cannot be opened
+     */
+    public FederationMetadataReader(InputStream in) throws XMLStreamException {
+        this.reader = INPUT_FACTORY.createXMLStreamReader(in);
+    }
+    
+    /**
+     * Read up to the next importable IdP entity.
+     * 
+     * @return the entity, or null at the end of the document
+     * @throws XMLStreamException if the document is malformed
+     */
+    public IdpEntity next() throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && is(MD, "EntityDescriptor")) {
+                IdpEntity entity = readEntity();
+                if (entity != null) {
+                    return entity;
+                }
+                skipped++;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Get the number of entities skipped so far because they are not
+     * importable SAML 2.0 identity providers.
+     * 
+     * @return skipped entities
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+    
+    @Override
+    public void close() throws XMLStreamException {
+        reader.close();
+    }
+    
+    private IdpEntity readEntity() throws XMLStreamException {
+        String entityId = reader.getAttributeValue(null, "entityID");
+        EntityBuilder entity = new EntityBuilder();
+        boolean idp = false;
+        int depth = 1;
+        
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                if (is(MD, "IDPSSODescriptor")) {
+                    idp = false;
+                }
+                depth--;
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            
+            if (is(MD, "IDPSSODescriptor")) {
+                String protocols = reader.getAttributeValue(null, "protocolSupportEnumeration");
+                idp = protocols != null && protocols.contains(SAML2_PROTOCOL);
+                entity.saml2Idp |= idp;
+                depth++;
+            } else if (is(MD, "RoleDescriptor") || is(MD, "SPSSODescriptor")
+                    || is(MD, "AttributeAuthorityDescriptor") || is(DS, "Signature")
+                    || (!idp && depth > 1 && !is(MD, "OrganizationDisplayName"))) {
+                // Nothing outside the IdP role and the organization is imported
+                skipElement();
+            } else if (idp && is(MD, "KeyDescriptor")) {
+                readKeyDescriptor(entity);
+            } else if (idp && is(MD, "SingleSignOnService")) {
+                if (entity.ssoUrl == null && REDIRECT_BINDING.equals(reader.getAttributeValue(null, "Binding"))) {
+                    entity.ssoUrl = reader.getAttributeValue(null, "Location");
+                }
+                skipElement();
+            } else if (idp && is(MD, "SingleLogoutService")) {
+                if (entity.sloUrl == null && REDIRECT_BINDING.equals(reader.getAttributeValue(null, "Binding"))) {
+                    entity.sloUrl = reader.getAttributeValue(null, "Location");
+                }
+                skipElement();
+            } else if (idp && is(MDUI, "DisplayName")) {
+                entity.displayName(reader.getAttributeValue(XMLConstants.XML_NS_URI, "lang"), text());
+            } else if (idp && is(MDUI, "Logo")) {
+                String logo = text();
+                if (entity.logoUrl == null && logo.startsWith("https://")) {
+                    entity.logoUrl = logo;
+                }
+            } else if (idp && is(MDUI, "DomainHint")) {
+                entity.domain(text());
+            } else if (idp && is(SHIBMD, "Scope")) {
+                boolean regexp = "true".equals(reader.getAttributeValue(null, "regexp"));
+                String scope = text();
+                if (!regexp) {
+                    entity.domain(scope);
+                }
+            } else if (is(MD, "OrganizationDisplayName")) {
+                entity.organizationName(reader.getAttributeValue(XMLConstants.XML_NS_URI, "lang"), text());
+            } else {
+                depth++;
+            }
+        }
+        return entityId != null && entity.saml2Idp && entity.ssoUrl != null ? entity.build(entityId) : null;
+    }
+    
+    private void readKeyDescriptor(EntityBuilder entity) throws XMLStreamException {
+        boolean signing = !"encryption".equals(reader.getAttributeValue(null, "use"));
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (signing && is(DS, "X509Certificate")) {
+                    entity.certificates.add(text().replaceAll("\\s", ""));
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+    
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+    
+    private String text() throws XMLStreamException {
+        return reader.getElementText().trim();
+    }
+    
+    private boolean is(String namespace, String localName) {
+        return localName.equals(reader.getLocalName()) && namespace.equals(reader.getNamespaceURI());
+    }
+    
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+    
+    /**
+     * Values of one identity provider read from the aggregate.
+     * 
+     * @param entityId the entityID
+     * @param name the English or first UI display name, else the organization name, else the entityID
+     * @param ssoUrl the HTTP-Redirect SingleSignOnService location
+     * @param sloUrl the HTTP-Redirect SingleLogoutService location, or null
+     * @param logoUrl the first HTTPS UI logo, or null
+     * @param certificates base64 DER signing certificates
+     * @param domains lower-cased domain hints and non-regexp scopes, sorted
+     * @author SAML Spring Boot Application
+     * @version 1.0.0
+     */
+    public record IdpEntity(String entityId, String name, String ssoUrl, String sloUrl, String logoUrl,
+                            List<String> certificates, List<String> domains) {
+        
+        /**
+         * Get a digest of all imported values, equal across imports of an unchanged entity.
+         * 
+         * @return hex digest
+         */
+        public String digest() {
+            StringBuilder content = new StringBuilder(256).append(entityId).append('\n').append(name)
+                    .append('\n').append(ssoUrl).append('\n').append(sloUrl).append('\n').append(logoUrl);
+            for (String certificate : certificates) {
+                content.append("\nC").append(certificate);
+            }
+            for (String domain : domains) {
+                content.append("\nD").append(domain);
+            }
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256")
+                        .digest(content.toString().getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(hash, 0, 16);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+    
+    /**
+     * Accumulates one EntityDescriptor's values while it is read.
+     */
+    private static final class EntityBuilder {
+        
+        private boolean saml2Idp;
+        
+        private String ssoUrl;
+        
+        private String sloUrl;
+        
+        private String logoUrl;
+        
+        private String displayName;
+        
+        private boolean englishDisplayName;
+        
+        private String organizationName;
+        
+        private boolean englishOrganizationName;
+        
+        private final List<String> certificates = new ArrayList<>(2);
+        
+        private final Set<String> domains = new TreeSet<>();
+        
+        void displayName(String lang, String name) {
+            if (!name.isEmpty() && !englishDisplayName && (displayName == null || "en".equals(lang))) {
+                displayName = name;
+                englishDisplayName = "en".equals(lang);
+            }
+        }
+        
+        void organizationName(String lang, String name) {
+            if (!name.isEmpty() && !englishOrganizationName && (organizationName == null || "en".equals(lang))) {
+                organizationName = name;
+                englishOrganizationName = "en".equals(lang);
+            }
+        }
+        
+        void domain(String domain) {
+            String normalized = domain.toLowerCase(Locale.ROOT);
+            if (normalized.matches("[a-z0-9]([a-z0-9-]*[a-z0-9])?(\\.[a-z0-9]([a-z0-9-]*[a-z0-9])?)+")) {
+                domains.add(normalized);
+            }
+        }
+        
+        IdpEntity build(String entityId) {
+            String name = displayName != null ? displayName
+                    : organizationName != null ? organizationName : entityId;
+            return new IdpEntity(entityId, name, ssoUrl, sloUrl, logoUrl, List.copyOf(certificates),
+                    List.copyOf(domains));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.saml;
+
+import com.example.model.IdpSnapshot;
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationChangedEvent.Aspect;
+import com.example.event.IdpConfigurationResyncEvent;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.saml2.core.Saml2X509Credential;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of parsed IdP signing certificates.
+ * 
+ * Parses the PEM text stored in {@link IdpSnapshot#idpCertificate()}
+ * once into verification {@link Saml2X509Credential}s and keeps them keyed
+ * by IdP ID together with a hash of the PEM text. The column may hold
+ * several concatenated certificates so that an IdP can roll its signing
+ * key over without downtime.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Component
+public class IdpCredentialCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdpCredentialCache.class);
+    
+    private static final String PEM_HEADER = "-----BEGIN CERTIFICATE-----";
+    
+    private static final String PEM_FOOTER = "-----END CERTIFICATE-----";
+    
+    private final Map<String, CachedCredentials> credentials = new ConcurrentHashMap<>();
+    
+    /**
+     * Get verification credentials for an IdP configuration.
+     * 
+     * Certificates are only parsed when the IdP has no cached entry or
+     * when its PEM text no longer matches the cached hash.
+     * 
+     * @param idpConfig the IdP snapshot
+     * @return immutable list of verification credentials, empty if no certificate is configured
+     */
+    public List<Saml2X509Credential> getVerificationCredentials(IdpSnapshot idpConfig) {
+        String pem = idpConfig.idpCertificate();
+        if (pem == null || pem.isBlank()) {
+            credentials.remove(idpConfig.idpId());
+            return Collections.emptyList();
+        }
+        
+        String certificateHash = DigestUtils.sha256Hex(pem);
+        CachedCredentials cached = credentials.get(idpConfig.idpId());
+        if (cached != null && cached.certificateHash.equals(certificateHash)) {
+            return cached.credentials;
+        }
+        
+        List<Saml2X509Credential> parsed = parseCertificates(idpConfig.idpId(), pem);
+        credentials.put(idpConfig.idpId(), new CachedCredentials(certificateHash, parsed));
+        logger.info("Parsed {} signing certificate(s) for IdP: {}", parsed.size(), idpConfig.idpId());
+        return parsed;
+    }
+    
+    /**
+     * Drop the cached credentials of an IdP.
+     * 
+     * @param idpId the IdP identifier
+     */
+    public void invalidate(String idpId) {
+        if (idpId != null && credentials.remove(idpId) != null) {
+            logger.debug("Invalidated cached signing certificates for IdP: {}", idpId);
+        }
+    }
+    
+    /**
+     * Invalidate cached credentials when an IdP configuration changes.
+     * 
+     * Ordered ahead of {@link RelyingPartyRegistrationRegistry} so that
+     * rebuilt registrations pick up the new certificates.
+     * 
+     * @param event the configuration change event
+     */
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdpConfigurationChanged(IdpConfigurationChangedEvent event) {
+        if (event.affects(Aspect.CONFIGURATION)) {
+            invalidate(event.getIdpId());
+        }
+    }
+    
+    /**
+     * Drop all cached credentials when change notifications may have been missed.
+     * 
+     * Ordered ahead of {@link RelyingPartyRegistrationRegistry} for the same
+     * reason as {@link #onIdpConfigurationChanged}.
+     * 
+     * @param event the resync event
+     */
+    @Order(0)
+    @EventListener
+    public void onResync(IdpConfigurationResyncEvent event) {
+        credentials.clear();
+    }
+    
+    /**
+     * Parse one or more certificates from PEM text.
+     * 
+     * Bare base64 content without PEM armor, as commonly copied from
+     * IdP metadata, is accepted as a single certificate.
+     * 
+     * @param idpId the IdP identifier, used for logging
+     * @param pem the PEM text
+     * @return immutable list of verification credentials
+     */
+    private List<Saml2X509Credential> parseCertificates(String idpId, String pem) {
+        String armored = pem.contains(PEM_HEADER) ? pem
+                : PEM_HEADER + "\n" + pem.trim() + "\n" + PEM_FOOTER + "\n";
+        
+        try {
+            CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            Collection<? extends Certificate> certificates = factory.generateCertificates(
+                    new ByteArrayInputStream(armored.getBytes(StandardCharsets.US_ASCII)));
+            
+            List<Saml2X509Credential> result = new ArrayList<>(certificates.size());
+            for (Certificate certificate : certificates) {
+                result.add(Saml2X509Credential.verification((X509Certificate) certificate));
+            }
+            return Collections.unmodifiableList(result);
+            
+        } catch (CertificateException e) {
+            logger.error("Failed to parse signing certificate for IdP {}: {}", idpId, e.getMessage());
+            throw new IllegalArgumentException("Invalid IdP certificate for " + idpId, e);
+        }
+    }
+    
+    /**
+     * Parsed credentials together with the hash of their PEM source.
+     */
+    private static final class CachedCredentials {
+        
+        private final String certificateHash;
+        
+        private final List<Saml2X509Credential> credentials;
+        
+        private CachedCredentials(String certificateHash, List<Saml2X509Credential> credentials) {
+            this.certificateHash = certificateHash;
+            this.credentials = credentials;
+        }
+    }
+}
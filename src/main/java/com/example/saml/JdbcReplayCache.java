@@ -0,0 +1,76 @@
+package com.example.saml;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replay cache shared by all nodes through a PostgreSQL table.
+ * 
+ * Each identifier is one {@code BIGINT} row; the insert only succeeds if
+ * no unexpired row exists, which PostgreSQL makes atomic across nodes.
+ * Expired rows are deleted by whichever node first records an identifier
+ * after the purge interval has passed. Requires, as created by the
+ * {@code V2__operational_tables} migration:
+ * <pre>
+ * CREATE TABLE saml_replay_cache (
+ *     id_hash    BIGINT PRIMARY KEY,
+ *     expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+ * );
+ * CREATE INDEX idx_saml_replay_cache_expires_at ON saml_replay_cache (expires_at);
+ * </pre>
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class JdbcReplayCache implements ReplayCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JdbcReplayCache.class);
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO saml_replay_cache (id_hash, expires_at) VALUES (?, ?) "
+            + "ON CONFLICT (id_hash) DO UPDATE SET expires_at = EXCLUDED.expires_at "
+            + "WHERE saml_replay_cache.expires_at <= ?";
+    
+    private static final String PURGE_SQL = "DELETE FROM saml_replay_cache WHERE expires_at <= ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final Duration purgeInterval;
+    
+    private final Clock clock;
+    
+    private final AtomicLong nextPurge = new AtomicLong();
+    
+    public JdbcReplayCache(JdbcTemplate jdbcTemplate, Duration purgeInterval, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.purgeInterval = purgeInterval;
+        this.clock = clock;
+    }
+    
+    @Override
+    public boolean putIfAbsent(long idHash, Instant expiresAt) {
+        Instant now = clock.instant();
+        purgeIfDue(now);
+        
+        // An expired row for the same identifier is taken over rather than treated as a replay
+        int inserted = jdbcTemplate.update(INSERT_SQL, idHash, Timestamp.from(expiresAt), Timestamp.from(now));
+        return inserted == 1;
+    }
+    
+    private void purgeIfDue(Instant now) {
+        long due = nextPurge.get();
+        if (now.toEpochMilli() < due
+                || !nextPurge.compareAndSet(due, now.plus(purgeInterval).toEpochMilli())) {
+            return;
+        }
+        int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.from(now));
+        logger.debug("Purged {} expired replay cache entries", purged);
+    }
+}
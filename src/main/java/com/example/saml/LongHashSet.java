@@ -0,0 +1,85 @@
+package com.example.saml;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity open-addressing set of non-zero longs.
+ * 
+ * Keys are expected to be uniformly distributed hashes, so they index the
+ * table directly with linear probing. The table is allocated once at twice
+ * the capacity and never grows. Not thread-safe.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+final class LongHashSet {
+    
+    private final long[] table;
+    
+    private final int mask;
+    
+    private final int capacity;
+    
+    private int size;
+    
+    LongHashSet(int capacity) {
+        this.capacity = capacity;
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.table = new long[tableSize];
+        this.mask = tableSize - 1;
+    }
+    
+    boolean contains(long key) {
+        int index = (int) key & mask;
+        while (true) {
+            long slot = table[index];
+            if (slot == key) {
+                return true;
+            }
+            if (slot == 0) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+    
+    /**
+     * Add a key.
+     * 
+     * @return true if added, false if already present
+     * @throws IllegalStateException if the set is full
+     */
+    boolean add(long key) {
+        int index = (int) key & mask;
+        while (true) {
+            long slot = table[index];
+            if (slot == key) {
+                return false;
+            }
+            if (slot == 0) {
+                if (size == capacity) {
+                    throw new IllegalStateException("Set is full at " + capacity + " entries");
+                }
+                table[index] = key;
+                size++;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isFull() {
+        return size == capacity;
+    }
+    
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(table, 0L);
+            size = 0;
+        }
+    }
+}
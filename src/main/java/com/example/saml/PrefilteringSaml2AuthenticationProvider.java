@@ -0,0 +1,57 @@
+package com.example.saml;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationToken;
+
+/**
+ * Authentication provider running {@link Saml2ResponsePrefilter} before full validation.
+ * 
+ * Responses failing the streaming checks are rejected without the delegate
+ * building a DOM or verifying signatures. Responses passing full validation
+ * are then checked for replay. All stages are timed.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class PrefilteringSaml2AuthenticationProvider implements AuthenticationProvider {
+    
+    private final Saml2ResponsePrefilter prefilter;
+    
+    private final AuthenticationProvider delegate;
+    
+    private final Saml2ReplayGuard replayGuard;
+    
+    private final AcsStageTimer stageTimer;
+    
+    public PrefilteringSaml2AuthenticationProvider(Saml2ResponsePrefilter prefilter, AuthenticationProvider delegate,
+                                                   Saml2ReplayGuard replayGuard, AcsStageTimer stageTimer) {
+        this.prefilter = prefilter;
+        this.delegate = delegate;
+        this.replayGuard = replayGuard;
+        this.stageTimer = stageTimer;
+    }
+    
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Saml2AuthenticationToken token = (Saml2AuthenticationToken) authentication;
+        String idpId = token.getRelyingPartyRegistration().getRegistrationId();
+        
+        Saml2ResponseSummary summary = stageTimer.time("prefilter", idpId,
+                () -> prefilter.check(token.getSaml2Response(), token.getRelyingPartyRegistration()));
+        
+        Authentication result = stageTimer.time("validate", idpId, () -> delegate.authenticate(token));
+        
+        stageTimer.time("replay", idpId, () -> {
+            replayGuard.check(summary);
+            return null;
+        });
+        return result;
+    }
+    
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return Saml2AuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
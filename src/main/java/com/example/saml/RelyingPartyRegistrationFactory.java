@@ -0,0 +1,93 @@
+package com.example.saml;
+
+import com.example.model.IdpSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.saml2.core.Saml2X509Credential;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
+import org.springframework.security.saml2.provider.service.registration.Saml2MessageBinding;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory building SAML Relying Party Registrations from IdP configurations.
+ * 
+ * Registrations are built once per configuration change by
+ * {@link RelyingPartyRegistrationRegistry} and never per request.
+ * Build times are recorded as {@code saml.registration.build}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Component
+public class RelyingPartyRegistrationFactory {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RelyingPartyRegistrationFactory.class);
+    
+    private static final String ACS_LOCATION_PREFIX = "http://localhost:8080/login/saml2/sso/";
+    
+    private static final String SP_ENTITY_ID_PREFIX = "http://localhost:8080/saml2/service-provider-metadata/";
+    
+    private final IdpCredentialCache idpCredentialCache;
+    
+    private final Timer buildSuccesses;
+    
+    private final Timer buildFailures;
+    
+    @Autowired
+    public RelyingPartyRegistrationFactory(IdpCredentialCache idpCredentialCache, MeterRegistry meterRegistry) {
+        this.idpCredentialCache = idpCredentialCache;
+        this.buildSuccesses = buildTimer(meterRegistry, "success");
+        this.buildFailures = buildTimer(meterRegistry, "failure");
+    }
+    
+    /**
+     * Create RelyingPartyRegistration from IdP configuration.
+     * 
+     * @param idpConfig the IdP snapshot
+     * @return RelyingPartyRegistration
+     */
+    public RelyingPartyRegistration createRelyingPartyRegistration(IdpSnapshot idpConfig) {
+        logger.debug("Creating SAML registration for IdP: {}", idpConfig.idpName());
+        
+        long start = System.nanoTime();
+        try {
+            List<Saml2X509Credential> verificationCredentials =
+                    idpCredentialCache.getVerificationCredentials(idpConfig);
+            
+            RelyingPartyRegistration registration = RelyingPartyRegistration
+                    .withRegistrationId(idpConfig.idpId())
+                    .assertionConsumerServiceLocation(ACS_LOCATION_PREFIX + idpConfig.idpId())
+                    .entityId(SP_ENTITY_ID_PREFIX + idpConfig.idpId())
+                    .assertingPartyDetails(party -> party
+                        .entityId(idpConfig.idpEntityId())
+                        .singleSignOnServiceLocation(idpConfig.idpSsoUrl())
+                        .singleSignOnServiceBinding(Saml2MessageBinding.REDIRECT)
+                        .wantAuthnRequestsSigned(false)
+                        .verificationX509Credentials(credentials -> credentials.addAll(verificationCredentials))
+                    )
+                    .build();
+            
+            buildSuccesses.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return registration;
+            
+        } catch (Exception e) {
+            buildFailures.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            logger.error("Failed to create SAML registration for IdP {}: {}", 
+                        idpConfig.idpName(), e.getMessage(), e);
+            throw new RuntimeException("SAML registration creation failed", e);
+        }
+    }
+    
+    private static Timer buildTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("saml.registration.build")
+                .description("Time to build a relying party registration")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
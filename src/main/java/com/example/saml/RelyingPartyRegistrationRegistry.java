@@ -0,0 +1,193 @@
+package com.example.saml;
+
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationChangedEvent.Aspect;
+import com.example.event.IdpConfigurationResyncEvent;
+import com.example.model.IdpSnapshot;
+import com.example.service.IdpConfigurationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistrationRepository;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory registry of fully built SAML Relying Party Registrations.
+ * 
+ * Holds one immutable {@link RelyingPartyRegistration} per active IdP,
+ * keyed by IdP ID. The registry is loaded once at startup and then
+ * rebuilt entry by entry when an {@link IdpConfigurationChangedEvent}
+ * is published, so AuthnRequest and ACS lookups never reach JPA or
+ * the registration builder. A full reload builds a new map and swaps it
+ * in, serialized with single-entry refreshes so a removal processed
+ * during the reload is not overwritten by the registration it read.
+ * Exposed as a bean by {@code SecurityConfig}. Lookups are timed as
+ * {@code saml.registration.lookup}, tagged with whether a registration
+ * was found.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class RelyingPartyRegistrationRegistry implements RelyingPartyRegistrationRepository, Iterable<RelyingPartyRegistration> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RelyingPartyRegistrationRegistry.class);
+    
+    private final IdpConfigurationService idpConfigurationService;
+    
+    private final RelyingPartyRegistrationFactory registrationFactory;
+    
+    private volatile Map<String, RelyingPartyRegistration> registrations = new ConcurrentHashMap<>();
+    
+    /**
+     * Serializes reloads and refreshes, so a refresh is neither lost in a
+     * map being replaced nor undone by a reload that read before it; a lock
+     * rather than a monitor so a virtual thread waiting on the database does
+     * not pin its carrier thread.
+     */
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    
+    private final Timer lookupHits;
+    
+    private final Timer lookupMisses;
+    
+    public RelyingPartyRegistrationRegistry(IdpConfigurationService idpConfigurationService,
+                                            RelyingPartyRegistrationFactory registrationFactory,
+                                            MeterRegistry meterRegistry) {
+        this.idpConfigurationService = idpConfigurationService;
+        this.registrationFactory = registrationFactory;
+        this.lookupHits = lookupTimer(meterRegistry, "hit");
+        this.lookupMisses = lookupTimer(meterRegistry, "miss");
+    }
+    
+    /**
+     * Build registrations for all active IdP configurations.
+     */
+    @PostConstruct
+    public void loadAll() {
+        reloadLock.lock();
+        try {
+            List<IdpSnapshot> configurations = idpConfigurationService.loadActiveSnapshots();
+            Map<String, RelyingPartyRegistration> loaded = new ConcurrentHashMap<>();
+            for (IdpSnapshot configuration : configurations) {
+                register(loaded, configuration);
+            }
+            registrations = loaded;
+            logger.info("Loaded {} SAML registrations into registry", loaded.size());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+    
+    /**
+     * Find a prebuilt registration by registration ID.
+     * 
+     * @param registrationId the registration ID (IdP ID)
+     * @return the registration, or null if none is registered
+     */
+    @Override
+    public RelyingPartyRegistration findByRegistrationId(String registrationId) {
+        long start = System.nanoTime();
+        RelyingPartyRegistration registration = registrationId != null ? registrations.get(registrationId) : null;
+        Timer timer = registration != null ? lookupHits : lookupMisses;
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return registration;
+    }
+    
+    /**
+     * Iterate over all prebuilt registrations.
+     * 
+     * @return read-only iterator over the registered registrations
+     */
+    @Override
+    public Iterator<RelyingPartyRegistration> iterator() {
+        return Collections.unmodifiableCollection(registrations.values()).iterator();
+    }
+    
+    /**
+     * Get the number of registrations currently held.
+     * 
+     * @return number of registrations
+     */
+    public int size() {
+        return registrations.size();
+    }
+    
+    /**
+     * Rebuild the registration affected by an IdP configuration change.
+     * 
+     * Runs after the surrounding transaction commits so the reloaded
+     * configuration reflects the committed state.
+     * 
+     * @param event the configuration change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdpConfigurationChanged(IdpConfigurationChangedEvent event) {
+        if (event.affects(Aspect.CONFIGURATION)) {
+            logger.debug("Refreshing SAML registration after change: {}", event);
+            refresh(event.getIdpId());
+        }
+    }
+    
+    /**
+     * Rebuild all registrations when change notifications may have been missed.
+     * 
+     * @param event the resync event
+     */
+    @EventListener
+    public void onResync(IdpConfigurationResyncEvent event) {
+        loadAll();
+    }
+    
+    /**
+     * Rebuild or remove the registration for a single IdP.
+     * 
+     * @param idpId the IdP identifier
+     */
+    public void refresh(String idpId) {
+        reloadLock.lock();
+        try {
+            Optional<IdpSnapshot> configuration = idpConfigurationService.reloadSnapshot(idpId);
+            
+            if (configuration.isPresent() && configuration.get().active()) {
+                register(registrations, configuration.get());
+            } else if (registrations.remove(idpId) != null) {
+                logger.info("Removed SAML registration for IdP: {}", idpId);
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+    
+    private void register(Map<String, RelyingPartyRegistration> target, IdpSnapshot configuration) {
+        try {
+            target.put(configuration.idpId(), registrationFactory.createRelyingPartyRegistration(configuration));
+        } catch (RuntimeException e) {
+            // Keep serving the previous registration rather than failing the change
+            RelyingPartyRegistration previous = registrations.get(configuration.idpId());
+            if (previous != null) {
+                target.put(configuration.idpId(), previous);
+            }
+            logger.error("Skipping SAML registration for IdP {}: {}", configuration.idpId(), e.getMessage());
+        }
+    }
+    
+    private static Timer lookupTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("saml.registration.lookup")
+                .description("Relying party registration lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
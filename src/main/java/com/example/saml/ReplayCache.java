@@ -0,0 +1,26 @@
+package com.example.saml;
+
+import java.time.Instant;
+
+/**
+ * Store of identifiers already consumed at the assertion consumer service.
+ * 
+ * Implementations keep 64-bit hashes of the identifiers (see
+ * {@link ReplayIds}) until they expire and must make
+ * {@link #putIfAbsent} atomic per identifier.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public interface ReplayCache {
+    
+    /**
+     * Record an identifier unless it was already recorded and has not expired.
+     * 
+     * @param idHash the hashed identifier, see {@link ReplayIds#hash}
+     * @param expiresAt when the identifier may be forgotten
+     * @return true if the identifier was recorded, false if it is a replay
+     * @throws RuntimeException if the identifier cannot be recorded; the Response must then be rejected
+     */
+    boolean putIfAbsent(long idHash, Instant expiresAt);
+}
@@ -0,0 +1,85 @@
+package com.example.saml;
+
+import org.opensaml.saml.saml2.core.Assertion;
+import org.opensaml.saml.saml2.core.Conditions;
+import org.opensaml.saml.saml2.core.Issuer;
+import org.opensaml.saml.saml2.core.Subject;
+import org.opensaml.saml.saml2.core.SubjectConfirmation;
+import org.opensaml.saml.saml2.core.SubjectConfirmationData;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.saml2.provider.service.authentication.OpenSaml4AuthenticationProvider;
+import org.springframework.security.saml2.provider.service.authentication.OpenSaml4AuthenticationProvider.ResponseToken;
+import org.springframework.security.saml2.provider.service.authentication.Saml2Authentication;
+
+import java.time.Instant;
+
+/**
+ * Response authentication converter recording assertion IDs for replay detection.
+ * 
+ * {@link OpenSaml4AuthenticationProvider} calls it once the Response has
+ * been decrypted and fully validated, so assertions that arrived inside an
+ * {@code EncryptedAssertion} are recorded as well. This matters for
+ * unsolicited Responses: they carry no {@code InResponseTo}, and the
+ * Response ID of an unsigned Response can be replaced at will. The
+ * authentication itself is built by the default converter.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class ReplayCheckingResponseAuthenticationConverter implements Converter<ResponseToken, Saml2Authentication> {
+    
+    private final Converter<ResponseToken, Saml2Authentication> delegate =
+            OpenSaml4AuthenticationProvider.createDefaultResponseAuthenticationConverter();
+    
+    private final Saml2ReplayGuard replayGuard;
+    
+    public ReplayCheckingResponseAuthenticationConverter(Saml2ReplayGuard replayGuard) {
+        this.replayGuard = replayGuard;
+    }
+    
+    @Override
+    public Saml2Authentication convert(ResponseToken responseToken) {
+        Saml2Authentication authentication = delegate.convert(responseToken);
+        for (Assertion assertion : responseToken.getResponse().getAssertions()) {
+            replayGuard.checkAssertion(issuer(assertion), assertion.getID(), notOnOrAfter(assertion));
+        }
+        return authentication;
+    }
+    
+    private static String issuer(Assertion assertion) {
+        Issuer issuer = assertion.getIssuer();
+        return issuer != null ? issuer.getValue() : null;
+    }
+    
+    /**
+     * Get the time after which an assertion no longer validates.
+     * 
+     * @return the earlier of the Conditions bound and the latest subject
+     *         confirmation bound, or null if neither is set
+     */
+    private static Instant notOnOrAfter(Assertion assertion) {
+        Conditions conditions = assertion.getConditions();
+        Instant conditionsNotOnOrAfter = conditions != null ? conditions.getNotOnOrAfter() : null;
+        
+        // Any one valid confirmation is enough, so the latest one bounds validity
+        Instant subjectNotOnOrAfter = null;
+        Subject subject = assertion.getSubject();
+        if (subject != null) {
+            for (SubjectConfirmation confirmation : subject.getSubjectConfirmations()) {
+                SubjectConfirmationData data = confirmation.getSubjectConfirmationData();
+                Instant candidate = data != null ? data.getNotOnOrAfter() : null;
+                if (candidate != null && (subjectNotOnOrAfter == null || candidate.isAfter(subjectNotOnOrAfter))) {
+                    subjectNotOnOrAfter = candidate;
+                }
+            }
+        }
+        
+        if (conditionsNotOnOrAfter == null) {
+            return subjectNotOnOrAfter;
+        }
+        if (subjectNotOnOrAfter == null) {
+            return conditionsNotOnOrAfter;
+        }
+        return conditionsNotOnOrAfter.isBefore(subjectNotOnOrAfter) ? conditionsNotOnOrAfter : subjectNotOnOrAfter;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.saml;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.saml2.core.Saml2Error;
+import org.springframework.security.saml2.core.Saml2ErrorCodes;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Rejects SAML Responses whose identifiers were already consumed.
+ * 
+ * Records the Response ID and assertion IDs, scoped to the issuer, and
+ * the {@code InResponseTo} value, which answers one of this SP's own
+ * AuthnRequests and so is not scoped. Assertion IDs are recorded by
+ * {@link ReplayCheckingResponseAuthenticationConverter} after decryption,
+ * so encrypted assertions are covered. Identifiers are kept until the
+ * Response or assertion would no longer validate, plus the allowed clock
+ * skew. Must only be applied to fully validated Responses, otherwise
+ * forged Responses could consume identifiers of genuine ones.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class Saml2ReplayGuard {
+    
+    private static final Logger logger = LoggerFactory.getLogger(Saml2ReplayGuard.class);
+    
+    private final ReplayCache replayCache;
+    
+    private final Duration clockSkew;
+    
+    private final Duration defaultLifetime;
+    
+    private final Clock clock;
+    
+    private final Counter replays;
+    
+    public Saml2ReplayGuard(ReplayCache replayCache, Duration clockSkew, Duration defaultLifetime, Clock clock,
+                            MeterRegistry meterRegistry) {
+        this.replayCache = replayCache;
+        this.clockSkew = clockSkew;
+        this.defaultLifetime = defaultLifetime;
+        this.clock = clock;
+        this.replays = Counter.builder("saml.acs.replays")
+                .description("SAML Responses rejected as replays")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Record the Response-level identifiers of a validated Response.
+     * 
+     * @param summary the Response summary from the prefilter
+     * @throws Saml2AuthenticationException if any identifier was already consumed
+     */
+    public void check(Saml2ResponseSummary summary) {
+        Instant expiresAt = expiresAt(summary.notOnOrAfter());
+        String issuer = summary.issuer() != null ? summary.issuer() : "";
+        
+        if (summary.responseId() != null) {
+            record("response:" + issuer, summary.responseId(), expiresAt);
+        }
+        if (summary.inResponseTo() != null) {
+            record("in-response-to", summary.inResponseTo(), expiresAt);
+        }
+    }
+    
+    /**
+     * Record the ID of a decrypted, validated assertion.
+     * 
+     * @param issuer the assertion issuer
+     * @param assertionId the assertion ID
+     * @param notOnOrAfter the time after which the assertion no longer validates, or null if unbounded
+     * @throws Saml2AuthenticationException if the assertion was already consumed
+     */
+    public void checkAssertion(String issuer, String assertionId, Instant notOnOrAfter) {
+        if (assertionId != null) {
+            record("assertion:" + (issuer != null ? issuer : ""), assertionId, expiresAt(notOnOrAfter));
+        }
+    }
+    
+    private Instant expiresAt(Instant notOnOrAfter) {
+        return notOnOrAfter != null ? notOnOrAfter.plus(clockSkew) : clock.instant().plus(defaultLifetime);
+    }
+    
+    private void record(String namespace, String id, Instant expiresAt) {
+        boolean recorded;
+        try {
+            recorded = replayCache.putIfAbsent(ReplayIds.hash(namespace, id), expiresAt);
+        } catch (RuntimeException e) {
+            // Fail closed: a Response that cannot be recorded could be replayed
+            logger.error("Failed to record SAML {} '{}' in the replay cache: {}", namespace, id, e.getMessage());
+            throw new Saml2AuthenticationException(new Saml2Error(Saml2ErrorCodes.INTERNAL_VALIDATION_ERROR,
+                    "Unable to check SAML Response for replay"), e);
+        }
+        if (!recorded) {
+            replays.increment();
+            logger.warn("Rejected replayed SAML {} '{}'", namespace, id);
+            throw new Saml2AuthenticationException(new Saml2Error(Saml2ErrorCodes.INVALID_RESPONSE,
+                    "SAML Response has already been used"));
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.saml;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.saml2.core.Saml2Error;
+import org.springframework.security.saml2.core.Saml2ErrorCodes;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationException;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streaming pre-validation of SAML Responses.
+ * 
+ * Scans the decoded Response with a single StAX pass and rejects it
+ * before OpenSAML builds a DOM, unmarshals it and verifies signatures
+ * when it carries a DTD, a wrong Destination, an unexpected Issuer, an
+ * Audience other than this SP, or expired or not-yet-valid Conditions.
+ * These checks only fail fast: every Response passing them is still
+ * fully validated, including signatures, by the delegate provider.
+ * Encrypted assertions are opaque here and only the Response envelope
+ * is checked.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class Saml2ResponsePrefilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(Saml2ResponsePrefilter.class);
+    
+    private static final String PROTOCOL_NS = "urn:oasis:names:tc:SAML:2.0:protocol";
+    
+    private static final String ASSERTION_NS = "urn:oasis:names:tc:SAML:2.0:assertion";
+    
+    /**
+     * Shared factory; configured once and thread-safe for creating readers.
+     */
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+    
+    private final Duration clockSkew;
+    
+    private final Clock clock;
+    
+    public Saml2ResponsePrefilter(Duration clockSkew, Clock clock) {
+        this.clockSkew = clockSkew;
+        this.clock = clock;
+    }
+    
+    /**
+     * Check a decoded SAML Response against its relying party registration.
+     * 
+     * @param saml2Response the decoded Response XML
+     * @param registration the relying party registration the Response was sent to
+     * @return identifiers and validity of the Response for later stages
+     * @throws Saml2AuthenticationException if the Response can be rejected early
+     */
+    public Saml2ResponseSummary check(String saml2Response, RelyingPartyRegistration registration) {
+        String expectedIssuer = registration.getAssertingPartyDetails().getEntityId();
+        String expectedAudience = registration.getEntityId();
+        String expectedDestination = registration.getAssertionConsumerServiceLocation();
+        Instant now = clock.instant();
+        
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(saml2Response));
+            
+            int depth = 0;
+            int assertionDepth = -1;
+            int subjectConfirmations = 0;
+            int expiredSubjectConfirmations = 0;
+            boolean audienceRestriction = false;
+            boolean audienceMatched = false;
+            String issuer = null;
+            String responseId = null;
+            String inResponseTo = null;
+            Instant conditionsNotOnOrAfter = null;
+            Instant subjectNotOnOrAfter = null;
+            
+            while (reader.hasNext()) {
+                int event = reader.next();
+                
+                if (event == XMLStreamConstants.DTD) {
+                    throw reject(Saml2ErrorCodes.MALFORMED_RESPONSE_DATA, "DTDs are not allowed in SAML Responses");
+                }
+                
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == assertionDepth) {
+                        assertionDepth = -1;
+                    }
+                    if (ASSERTION_NS.equals(reader.getNamespaceURI())
+                            && "AudienceRestriction".equals(reader.getLocalName())) {
+                        if (audienceRestriction && !audienceMatched) {
+                            throw reject(Saml2ErrorCodes.INVALID_ASSERTION,
+                                    "Assertion audience does not include " + expectedAudience);
+                        }
+                        audienceRestriction = false;
+                    }
+                    depth--;
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                
+                depth++;
+                String namespace = reader.getNamespaceURI();
+                String name = reader.getLocalName();
+                
+                if (depth == 1) {
+                    if (!PROTOCOL_NS.equals(namespace) || !"Response".equals(name)) {
+                        throw reject(Saml2ErrorCodes.MALFORMED_RESPONSE_DATA, "Not a SAML 2.0 Response");
+                    }
+                    checkDestination(reader.getAttributeValue(null, "Destination"), expectedDestination);
+                    responseId = reader.getAttributeValue(null, "ID");
+                    inResponseTo = reader.getAttributeValue(null, "InResponseTo");
+                    continue;
+                }
+                if (!ASSERTION_NS.equals(namespace)) {
+                    continue;
+                }
+                
+                switch (name) {
+                    case "Assertion":
+                        assertionDepth = depth;
+                        break;
+                    case "Issuer":
+                        // Only the Response and Assertion issuers, not those nested in extensions
+                        if (depth == 2 || depth == assertionDepth + 1) {
+                            String candidate = reader.getElementText().trim();
+                            depth--;
+                            if (!candidate.equals(expectedIssuer)) {
+                                throw reject(Saml2ErrorCodes.INVALID_ISSUER,
+                                        "Unexpected issuer '" + candidate + "'");
+                            }
+                            if (issuer == null) {
+                                issuer = candidate;
+                            }
+                        }
+                        break;
+                    case "Conditions":
+                        Instant notOnOrAfter = checkValidity(reader.getAttributeValue(null, "NotBefore"),
+                                reader.getAttributeValue(null, "NotOnOrAfter"), now);
+                        conditionsNotOnOrAfter = earliest(conditionsNotOnOrAfter, notOnOrAfter);
+                        break;
+                    case "AudienceRestriction":
+                        audienceRestriction = true;
+                        audienceMatched = false;
+                        break;
+                    case "Audience":
+                        String audience = reader.getElementText().trim();
+                        depth--;
+                        audienceMatched |= audience.equals(expectedAudience);
+                        break;
+                    case "SubjectConfirmationData":
+                        subjectConfirmations++;
+                        Instant confirmationNotOnOrAfter = parseInstant(
+                                reader.getAttributeValue(null, "NotOnOrAfter"));
+                        if (confirmationNotOnOrAfter != null
+                                && !now.minus(clockSkew).isBefore(confirmationNotOnOrAfter)) {
+                            expiredSubjectConfirmations++;
+                        } else if (confirmationNotOnOrAfter != null) {
+                            // Any one unexpired confirmation is enough, so the latest one bounds validity
+                            subjectNotOnOrAfter = subjectNotOnOrAfter == null
+                                    || confirmationNotOnOrAfter.isAfter(subjectNotOnOrAfter)
+                                    ? confirmationNotOnOrAfter : subjectNotOnOrAfter;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            
+            if (subjectConfirmations > 0 && subjectConfirmations == expiredSubjectConfirmations) {
+                throw reject(Saml2ErrorCodes.INVALID_ASSERTION, "All subject confirmations have expired");
+            }
+            
+            return new Saml2ResponseSummary(issuer, responseId, inResponseTo,
+                    earliest(conditionsNotOnOrAfter, subjectNotOnOrAfter));
+            
+        } catch (XMLStreamException e) {
+            throw reject(Saml2ErrorCodes.MALFORMED_RESPONSE_DATA, "Unparseable SAML Response: " + e.getMessage());
+        } finally {
+            close(reader);
+        }
+    }
+    
+    private void checkDestination(String destination, String expectedDestination) {
+        // Templated locations are resolved per request, so they cannot be compared here
+        if (destination == null || expectedDestination == null || expectedDestination.contains("{")) {
+            return;
+        }
+        if (!destination.equals(expectedDestination)) {
+            throw reject(Saml2ErrorCodes.INVALID_DESTINATION, "Unexpected destination '" + destination + "'");
+        }
+    }
+    
+    private Instant checkValidity(String notBeforeValue, String notOnOrAfterValue, Instant now) {
+        Instant notBefore = parseInstant(notBeforeValue);
+        if (notBefore != null && now.plus(clockSkew).isBefore(notBefore)) {
+            throw reject(Saml2ErrorCodes.INVALID_ASSERTION, "Assertion is not yet valid");
+        }
+        Instant notOnOrAfter = parseInstant(notOnOrAfterValue);
+        if (notOnOrAfter != null && !now.minus(clockSkew).isBefore(notOnOrAfter)) {
+            throw reject(Saml2ErrorCodes.INVALID_ASSERTION, "Assertion has expired");
+        }
+        return notOnOrAfter;
+    }
+    
+    private static Instant earliest(Instant first, Instant second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null || first.isBefore(second) ? first : second;
+    }
+    
+    /**
+     * Parse an xs:dateTime value, leaving unparseable values to the full validation.
+     */
+    private Instant parseInstant(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value.trim()).toInstant();
+        } catch (DateTimeParseException e) {
+            logger.debug("Skipping early check of unparseable timestamp '{}'", value);
+            return null;
+        }
+    }
+    
+    private Saml2AuthenticationException reject(String errorCode, String description) {
+        logger.debug("Rejected SAML Response before full validation: {}", description);
+        return new Saml2AuthenticationException(new Saml2Error(errorCode, description));
+    }
+    
+    private void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                logger.debug("Failed to close XML reader: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return factory;
+    }
+}
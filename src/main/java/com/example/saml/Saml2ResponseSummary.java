@@ -0,0 +1,22 @@
+package com.example.saml;
+
+import java.time.Instant;
+
+/**
+ * Identifiers and validity of a SAML Response, as read by {@link Saml2ResponsePrefilter}.
+ * 
+ * Only trustworthy once the Response has passed full validation.
+ * 
+ * @param issuer the Response issuer, or the first assertion issuer
+ * @param responseId the Response ID
+ * @param inResponseTo the ID of the AuthnRequest answered, or null if unsolicited
+ * @param notOnOrAfter the earliest time after which the Response no longer validates, or null if unbounded
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public record Saml2ResponseSummary(
+        String issuer,
+        String responseId,
+        String inResponseTo,
+        Instant notOnOrAfter) {
+}
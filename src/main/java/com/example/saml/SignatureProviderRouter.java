@@ -0,0 +1,137 @@
+package com.example.saml;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.security.Signature;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes JCA signature algorithms to preferred security providers.
+ * 
+ * XML signature verification looks up {@link Signature} instances by
+ * algorithm, taking the first installed provider that supports it. This
+ * installs additional providers at the end of the provider list and a
+ * routing provider at its head that exposes only the configured
+ * algorithms, each delegating to its preferred provider, so a faster
+ * implementation can be chosen per algorithm without changing the
+ * provider order for anything else.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class SignatureProviderRouter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SignatureProviderRouter.class);
+    
+    static final String PROVIDER_NAME = "SamlSignatureRouting";
+    
+    private final List<String> providerClasses;
+    
+    private final Map<String, String> preferredProviders;
+    
+    public SignatureProviderRouter(List<String> providerClasses, Map<String, String> preferredProviders) {
+        this.providerClasses = providerClasses;
+        this.preferredProviders = preferredProviders;
+    }
+    
+    /**
+     * Install the configured providers and the routing provider.
+     */
+    @PostConstruct
+    public void install() {
+        for (String providerClass : providerClasses) {
+            Provider provider = instantiate(providerClass);
+            if (Security.getProvider(provider.getName()) == null) {
+                Security.addProvider(provider);
+                logger.info("Installed security provider {}", provider.getName());
+            }
+        }
+        
+        if (preferredProviders.isEmpty()) {
+            return;
+        }
+        
+        Security.removeProvider(PROVIDER_NAME);
+        Security.insertProviderAt(new RoutingProvider(preferredProviders), 1);
+        
+        preferredProviders.keySet().forEach(algorithm -> logger.info("Signature algorithm {} served by {}",
+                algorithm, resolvedProvider(algorithm)));
+    }
+    
+    /**
+     * Remove the routing provider so it does not outlive the application context.
+     */
+    @PreDestroy
+    public void uninstall() {
+        Security.removeProvider(PROVIDER_NAME);
+    }
+    
+    private String resolvedProvider(String algorithm) {
+        try {
+            return Signature.getInstance(algorithm).getProvider().getName()
+                    + " via " + preferredProviders.get(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            return "no provider";
+        }
+    }
+    
+    private static Provider instantiate(String providerClass) {
+        try {
+            return (Provider) Class.forName(providerClass).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("Cannot instantiate security provider " + providerClass, e);
+        }
+    }
+    
+    /**
+     * Provider exposing each routed algorithm as a service of its preferred provider.
+     */
+    private static final class RoutingProvider extends Provider {
+        
+        RoutingProvider(Map<String, String> preferredProviders) {
+            super(PROVIDER_NAME, "1.0", "Routes signature algorithms to preferred providers");
+            preferredProviders.forEach((algorithm, providerName) ->
+                    putService(new RoutedService(this, algorithm, target(algorithm, providerName))));
+        }
+        
+        private static Service target(String algorithm, String providerName) {
+            Provider provider = Security.getProvider(providerName);
+            if (provider == null) {
+                throw new IllegalStateException("Security provider " + providerName + " is not installed");
+            }
+            Service service = provider.getService("Signature", algorithm);
+            if (service == null) {
+                throw new IllegalStateException("Security provider " + providerName
+                        + " does not support signature algorithm " + algorithm);
+            }
+            return service;
+        }
+    }
+    
+    private static final class RoutedService extends Provider.Service {
+        
+        private final Provider.Service target;
+        
+        RoutedService(Provider provider, String algorithm, Provider.Service target) {
+            super(provider, "Signature", algorithm, target.getClassName(), null, null);
+            this.target = target;
+        }
+        
+        @Override
+        public Object newInstance(Object constructorParameter) throws NoSuchAlgorithmException {
+            return target.newInstance(constructorParameter);
+        }
+        
+        @Override
+        public boolean supportsParameter(Object parameter) {
+            return target.supportsParameter(parameter);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.saml;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.saml2.core.Saml2Error;
+import org.springframework.security.saml2.core.Saml2ErrorCodes;
+import org.springframework.security.saml2.core.Saml2ParameterNames;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationException;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationToken;
+import org.springframework.security.web.authentication.AuthenticationConverter;
+
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Authentication converter rejecting oversized SAML Responses.
+ * 
+ * All checks run before the delegate decodes the {@code SAMLResponse}
+ * parameter and compare the decoded Response in bytes against the limit.
+ * POST binding payloads are measured from their Base64 length. Redirect
+ * binding payloads are deflated, so they are inflated into a fixed buffer
+ * that is discarded, stopping once the limit is exceeded; a small
+ * compressed payload therefore cannot make the delegate inflate an
+ * unbounded Response.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class SizeLimitingSaml2AuthenticationConverter implements AuthenticationConverter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SizeLimitingSaml2AuthenticationConverter.class);
+    
+    private final AuthenticationConverter delegate;
+    
+    private final int maxResponseBytes;
+    
+    private final int maxEncodedLength;
+    
+    private final AcsStageTimer stageTimer;
+    
+    public SizeLimitingSaml2AuthenticationConverter(AuthenticationConverter delegate, int maxResponseBytes,
+                                                     AcsStageTimer stageTimer) {
+        this.delegate = delegate;
+        this.maxResponseBytes = maxResponseBytes;
+        // Base64 encodes every 3 bytes as 4 characters; allow for CRLF after every 76
+        this.maxEncodedLength = (int) Math.min(Integer.MAX_VALUE, ((long) maxResponseBytes + 2) / 3 * 4 * 78 / 76 + 4);
+        this.stageTimer = stageTimer;
+    }
+    
+    @Override
+    public Authentication convert(HttpServletRequest request) {
+        String encoded = request.getParameter(Saml2ParameterNames.SAML_RESPONSE);
+        if (encoded == null) {
+            return null;
+        }
+        if (encoded.length() > maxEncodedLength) {
+            throw tooLarge(decodedLength(encoded));
+        }
+        long size = HttpMethod.GET.matches(request.getMethod())
+                ? inflatedLength(encoded, maxResponseBytes + 1L)
+                : decodedLength(encoded);
+        if (size > maxResponseBytes) {
+            throw tooLarge(size);
+        }
+        
+        // The IdP is only known once the registration has been resolved
+        Timer.Sample sample = stageTimer.start();
+        String idpId = null;
+        boolean success = false;
+        try {
+            Authentication authentication = delegate.convert(request);
+            if (authentication instanceof Saml2AuthenticationToken token) {
+                idpId = token.getRelyingPartyRegistration().getRegistrationId();
+            }
+            success = true;
+            return authentication;
+        } finally {
+            stageTimer.stop(sample, "convert", idpId, success);
+        }
+    }
+    
+    /**
+     * Get the number of bytes a Base64 parameter decodes to, without decoding it.
+     * 
+     * Counts alphabet characters only, as the MIME decoder used by the
+     * delegate skips line breaks and other characters.
+     */
+    static long decodedLength(String encoded) {
+        long characters = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            char c = encoded.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' || c == '/') {
+                characters++;
+            }
+        }
+        return characters * 3 / 4;
+    }
+    
+    /**
+     * Get the inflated size of a redirect binding payload, up to a limit.
+     * 
+     * Malformed payloads yield the bytes inflated before the error; the
+     * delegate inflates the same input and fails at the same point, so it
+     * never produces more than that either.
+     * 
+     * @param encoded the Base64 encoded, deflated Response
+     * @param limit the size at which inflation stops
+     * @return inflated bytes, at most {@code limit} plus one buffer
+     */
+    static long inflatedLength(String encoded, long limit) {
+        byte[] deflated;
+        try {
+            deflated = Base64.getMimeDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            // Rejected as malformed by the delegate
+            return 0;
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(deflated);
+            byte[] buffer = new byte[8192];
+            long inflated = 0;
+            while (inflated < limit && !inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            return inflated;
+        } catch (DataFormatException e) {
+            return inflater.getBytesWritten();
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    private Saml2AuthenticationException tooLarge(long bytes) {
+        logger.warn("Rejected SAML Response of at least {} bytes, limit is {} bytes", bytes, maxResponseBytes);
+        return new Saml2AuthenticationException(new Saml2Error(Saml2ErrorCodes.INVALID_RESPONSE,
+                "SAML Response exceeds the maximum size of " + maxResponseBytes + " bytes"));
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.saml;
+
+import com.example.web.Etags;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.saml2.core.Saml2X509Credential;
+import org.springframework.security.saml2.provider.service.metadata.Saml2MetadataResolver;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.crypto.dsig.CanonicalizationMethod;
+import javax.xml.crypto.dsig.DigestMethod;
+import javax.xml.crypto.dsig.Reference;
+import javax.xml.crypto.dsig.SignatureMethod;
+import javax.xml.crypto.dsig.SignedInfo;
+import javax.xml.crypto.dsig.Transform;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMSignContext;
+import javax.xml.crypto.dsig.keyinfo.KeyInfo;
+import javax.xml.crypto.dsig.keyinfo.KeyInfoFactory;
+import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
+import javax.xml.crypto.dsig.spec.TransformParameterSpec;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of generated SP metadata documents, one per relying party registration.
+ * 
+ * Each document is generated once, optionally signed with the SP signing
+ * credential, and kept as identity and gzip encoded bytes together with
+ * a strong ETag per encoding. The registry replaces a registration
+ * instance whenever its IdP configuration changes, and the credential
+ * source returns a new instance when the keystore is rotated, so an entry
+ * is regenerated only when either instance differs from the one it was
+ * generated from. Generation times are recorded as
+ * {@code saml.metadata.generate}.
+ * 
+ * Signed documents carry an {@code ID} derived from the unsigned content
+ * and an enveloped RSA or ECDSA SHA-256 signature, so every node serves
+ * the same bytes and ETag for the same configuration.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class SpMetadataCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SpMetadataCache.class);
+    
+    private final RelyingPartyRegistrationRegistry registrations;
+    
+    private final Saml2MetadataResolver metadataResolver;
+    
+    private final SpSigningCredentialSource credentialSource;
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    private final Timer generateTimer;
+    
+    /**
+     * @param registrations the registration registry
+     * @param metadataResolver the resolver producing unsigned EntityDescriptor XML
+     * @param credentialSource the SP signing credential, or null to serve unsigned metadata
+     * @param meterRegistry the meter registry
+     */
+    public SpMetadataCache(RelyingPartyRegistrationRegistry registrations, Saml2MetadataResolver metadataResolver,
+                           SpSigningCredentialSource credentialSource, MeterRegistry meterRegistry) {
+        this.registrations = registrations;
+        this.metadataResolver = metadataResolver;
+        this.credentialSource = credentialSource;
+        this.generateTimer = Timer.builder("saml.metadata.generate")
+                .description("Time to generate and sign SP metadata")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Get the metadata for a registration, generating it if it is missing or stale.
+     * 
+     * @param registrationId the registration ID (IdP ID)
+     * @return the metadata, or null if no such registration exists
+     */
+    public SpMetadata get(String registrationId) {
+        RelyingPartyRegistration registration = registrations.findByRegistrationId(registrationId);
+        if (registration == null) {
+            entries.remove(registrationId);
+            return null;
+        }
+        Saml2X509Credential credential = credentialSource != null ? credentialSource.current() : null;
+        
+        Entry entry = entries.get(registrationId);
+        if (entry == null || !entry.generatedFrom(registration, credential)) {
+            // Concurrent pollers of the same stale entry wait for one generation
+            entry = entries.compute(registrationId, (id, current) ->
+                    current != null && current.generatedFrom(registration, credential)
+                            ? current : generate(registration, credential));
+        }
+        return entry.metadata();
+    }
+    
+    private Entry generate(RelyingPartyRegistration registration, Saml2X509Credential credential) {
+        long start = System.nanoTime();
+        try {
+            String xml = metadataResolver.resolve(registration);
+            byte[] bytes = credential != null ? sign(xml, credential) : xml.getBytes(StandardCharsets.UTF_8);
+            String etag = Etags.of(bytes);
+            SpMetadata metadata = new SpMetadata(bytes, Etags.gzip(bytes), etag, Etags.gzipped(etag));
+            logger.info("Generated {}SP metadata for registration {} ({} bytes)",
+                    credential != null ? "signed " : "", registration.getRegistrationId(), bytes.length);
+            return new Entry(registration, credential, metadata);
+        } catch (Exception e) {
+            throw new IllegalStateException("SP metadata generation failed for registration "
+                    + registration.getRegistrationId(), e);
+        } finally {
+            generateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private static byte[] sign(String xml, Saml2X509Credential credential) throws Exception {
+        DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
+        builderFactory.setNamespaceAware(true);
+        builderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        builderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        Document document = builderFactory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+        
+        Element root = document.getDocumentElement();
+        String id = "_" + Etags.of(xml.getBytes(StandardCharsets.UTF_8));
+        root.setAttributeNS(null, "ID", id);
+        root.setIdAttributeNS(null, "ID", true);
+        
+        XMLSignatureFactory signatures = XMLSignatureFactory.getInstance("DOM");
+        Reference reference = signatures.newReference("#" + id,
+                signatures.newDigestMethod(DigestMethod.SHA256, null),
+                List.of(signatures.newTransform(Transform.ENVELOPED, (TransformParameterSpec) null),
+                        signatures.newTransform(CanonicalizationMethod.EXCLUSIVE, (TransformParameterSpec) null)),
+                null, null);
+        String signatureMethod = "EC".equals(credential.getPrivateKey().getAlgorithm())
+                ? SignatureMethod.ECDSA_SHA256 : SignatureMethod.RSA_SHA256;
+        SignedInfo signedInfo = signatures.newSignedInfo(
+                signatures.newCanonicalizationMethod(CanonicalizationMethod.EXCLUSIVE,
+                        (C14NMethodParameterSpec) null),
+                signatures.newSignatureMethod(signatureMethod, null), List.of(reference));
+        KeyInfoFactory keyInfos = signatures.getKeyInfoFactory();
+        KeyInfo keyInfo = keyInfos.newKeyInfo(
+                List.of(keyInfos.newX509Data(List.of(credential.getCertificate()))));
+        
+        // The schema requires the Signature to be the first child element
+        DOMSignContext context = new DOMSignContext(credential.getPrivateKey(), root, firstElement(root));
+        context.setDefaultNamespacePrefix("ds");
+        signatures.newXMLSignature(signedInfo, keyInfo).sign(context);
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream(xml.length() + 4096);
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(out));
+        return out.toByteArray();
+    }
+    
+    private static Node firstElement(Element parent) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                return child;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Generated metadata and the instances it was generated from.
+     */
+    private record Entry(RelyingPartyRegistration registration, Saml2X509Credential credential,
+                         SpMetadata metadata) {
+        
+        boolean generatedFrom(RelyingPartyRegistration registration, Saml2X509Credential credential) {
+            return this.registration == registration && this.credential == credential;
+        }
+    }
+    
+    /**
+     * Metadata document in identity and gzip encodings.
+     * 
+     * @param xml the EntityDescriptor document
+     * @param gzip the document gzip encoded
+     * @param etag strong ETag of the identity encoding, unquoted
+     * @param gzipEtag strong ETag of the gzip encoding, unquoted
+     * @author SAML Spring Boot Application
+     * @version 1.0.0
+     */
+    public record SpMetadata(byte[] xml, byte[] gzip, String etag, String gzipEtag) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.saml;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.security.saml2.core.Saml2X509Credential;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * SP signing credential loaded from a keystore and reloaded when rotated.
+ * 
+ * The keystore's last-modified time is checked at most once per check
+ * interval; when it has changed the keystore is read again and a new
+ * credential instance is returned, which callers caching signed output
+ * use to detect the rotation. A keystore that fails to load keeps the
+ * previous credential in service.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class SpSigningCredentialSource {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SpSigningCredentialSource.class);
+    
+    private final Resource keystore;
+    
+    private final char[] password;
+    
+    private final String alias;
+    
+    private final char[] keyPassword;
+    
+    private final Duration checkInterval;
+    
+    private final Clock clock;
+    
+    private volatile Saml2X509Credential credential;
+    
+    private volatile long loadedModified;
+    
+    private volatile Instant nextCheck;
+    
+    /**
+     * Load the credential, failing if the keystore cannot be read.
+     * 
+     * @param keystore the keystore resource
+     * @param password the keystore password
+     * @param alias the key entry alias
+     * @param keyPassword the key password, or null to use the keystore password
+     * @param checkInterval minimum time between last-modified checks
+     * @param clock the clock
+     * @throws IllegalStateException if the keystore or key entry cannot be loaded
+     */
+    public SpSigningCredentialSource(Resource keystore, String password, String alias, String keyPassword,
+                                     Duration checkInterval, Clock clock) {
+        this.keystore = keystore;
+        this.password = password != null ? password.toCharArray() : null;
+        this.alias = alias;
+        this.keyPassword = keyPassword != null ? keyPassword.toCharArray() : this.password;
+        this.checkInterval = checkInterval;
+        this.clock = clock;
+        try {
+            this.loadedModified = lastModified();
+            this.credential = load();
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load SP signing credential from " + keystore, e);
+        }
+        this.nextCheck = clock.instant().plus(checkInterval);
+        logger.info("Loaded SP signing credential '{}' from {}", alias, keystore);
+    }
+    
+    /**
+     * Get the current credential, reloading it if the keystore changed.
+     * 
+     * @return the signing credential
+     */
+    public Saml2X509Credential current() {
+        Instant now = clock.instant();
+        if (now.isBefore(nextCheck)) {
+            return credential;
+        }
+        synchronized (this) {
+            if (now.isBefore(nextCheck)) {
+                return credential;
+            }
+            nextCheck = now.plus(checkInterval);
+            try {
+                long modified = lastModified();
+                if (modified != loadedModified) {
+                    credential = load();
+                    loadedModified = modified;
+                    logger.info("Reloaded rotated SP signing credential '{}' from {}", alias, keystore);
+                }
+            } catch (IOException | GeneralSecurityException e) {
+                logger.warn("Keeping previous SP signing credential, reload from {} failed: {}",
+                        keystore, e.getMessage());
+            }
+            return credential;
+        }
+    }
+    
+    private long lastModified() throws IOException {
+        // Classpath resources inside a jar cannot change
+        return keystore.isFile() ? keystore.lastModified() : 0L;
+    }
+    
+    private Saml2X509Credential load() throws IOException, GeneralSecurityException {
+        KeyStore store = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (InputStream in = keystore.getInputStream()) {
+            store.load(in, password);
+        }
+        if (!(store.getKey(alias, keyPassword) instanceof PrivateKey privateKey)
+                || !(store.getCertificate(alias) instanceof X509Certificate certificate)) {
+            throw new GeneralSecurityException("No private key entry '" + alias + "' in keystore");
+        }
+        return Saml2X509Credential.signing(privateKey, certificate);
+    }
+}
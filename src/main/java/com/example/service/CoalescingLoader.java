@@ -0,0 +1,124 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight loader coalescing concurrent loads of the same key.
+ * 
+ * The first caller for a key runs the load; callers arriving while it is
+ * in flight wait on the same future instead of issuing their own query.
+ * After a change to a key commits, {@link #invalidate} detaches the load
+ * in flight, which may have read the previous state, so later callers
+ * start a new load instead of joining it.
+ * Registers the following meters, tagged with the loader name:
+ * <ul>
+ *   <li>{@code idp.lookup.loads} - loads actually executed</li>
+ *   <li>{@code idp.lookup.coalesced} - callers that waited on another caller's load</li>
+ *   <li>{@code idp.lookup.inflight} - loads currently in flight</li>
+ * </ul>
+ * 
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class CoalescingLoader<K, V> {
+    
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    
+    private final Counter loads;
+    
+    private final Counter coalesced;
+    
+    public CoalescingLoader(String name, MeterRegistry meterRegistry) {
+        this.loads = Counter.builder("idp.lookup.loads")
+                .description("Lookups that reached the database")
+                .tag("loader", name)
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("idp.lookup.coalesced")
+                .description("Lookups that waited on an identical in-flight lookup")
+                .tag("loader", name)
+                .register(meterRegistry);
+        meterRegistry.gauge("idp.lookup.inflight",
+                Tags.of("loader", name), inFlight, Map::size);
+    }
+    
+    /**
+     * Load a value, joining an identical in-flight load if there is one.
+     * 
+     * @param key the key to load
+     * @param loader the load to run if no load of the key is in flight
+     * @return the loaded value
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        
+        if (existing != null) {
+            coalesced.increment();
+            return join(existing);
+        }
+        
+        try {
+            loads.increment();
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+    
+    /**
+     * Stop coalescing later loads of a key with the load now in flight.
+     * 
+     * Callers already waiting still receive that load's value.
+     * 
+     * @param key the changed key
+     */
+    public void invalidate(K key) {
+        inFlight.remove(key);
+    }
+    
+    /**
+     * Stop coalescing later loads with any load now in flight.
+     */
+    public void invalidateAll() {
+        inFlight.clear();
+    }
+    
+    /**
+     * Get the number of loads currently in flight.
+     * 
+     * @return number of in-flight loads
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+    
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Rethrow the leader's failure unwrapped, as if this caller had loaded it
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
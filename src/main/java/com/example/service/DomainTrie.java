@@ -0,0 +1,159 @@
+package com.example.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable reversed-label trie mapping email domains to IdP IDs.
+ * 
+ * Domains are stored label by label from the top-level domain down, so
+ * {@code eu.corp.com} is found as {@code com -> corp -> eu}. A lookup
+ * returns the IdP of the most specific configured suffix, letting
+ * {@code eu.corp.com} fall back to {@code corp.com}. Each node keeps its
+ * children in an open-addressing table probed directly against the
+ * looked-up string, so lookups allocate nothing.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+final class DomainTrie {
+    
+    private static final DomainTrie EMPTY = new DomainTrie(new Node(new String[1], new Node[1], null));
+    
+    private final Node root;
+    
+    private DomainTrie(Node root) {
+        this.root = root;
+    }
+    
+    /**
+     * Get an empty trie.
+     * 
+     * @return trie without any mapping
+     */
+    static DomainTrie empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Build a trie from a domain to IdP ID mapping.
+     * 
+     * @param domainToIdpId normalized (lower-case) domains mapped to IdP IDs
+     * @return immutable trie
+     */
+    static DomainTrie build(Map<String, String> domainToIdpId) {
+        if (domainToIdpId.isEmpty()) {
+            return EMPTY;
+        }
+        
+        MutableNode root = new MutableNode();
+        for (Map.Entry<String, String> entry : domainToIdpId.entrySet()) {
+            String domain = entry.getKey();
+            MutableNode node = root;
+            int end = domain.length();
+            while (end > 0) {
+                int start = domain.lastIndexOf('.', end - 1) + 1;
+                node = node.children.computeIfAbsent(domain.substring(start, end), label -> new MutableNode());
+                end = start - 1;
+            }
+            node.idpId = entry.getValue();
+        }
+        return new DomainTrie(root.freeze());
+    }
+    
+    /**
+     * Find the IdP of the most specific configured suffix of a domain.
+     * 
+     * @param domain the normalized (lower-case) domain to look up
+     * @return the IdP ID, or null if no suffix of the domain is mapped
+     */
+    String lookup(String domain) {
+        Node node = root;
+        String match = null;
+        int end = domain.length();
+        
+        while (end > 0) {
+            int start = domain.lastIndexOf('.', end - 1) + 1;
+            node = node.child(domain, start, end);
+            if (node == null) {
+                break;
+            }
+            if (node.idpId != null) {
+                match = node.idpId;
+            }
+            end = start - 1;
+        }
+        return match;
+    }
+    
+    /**
+     * Hash of a label, equal to {@link String#hashCode()} of the label
+     * but computed in place.
+     */
+    private static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Frozen trie node with an open-addressing table of children.
+     */
+    private static final class Node {
+        
+        private final String[] labels;
+        
+        private final Node[] children;
+        
+        private final String idpId;
+        
+        private Node(String[] labels, Node[] children, String idpId) {
+            this.labels = labels;
+            this.children = children;
+            this.idpId = idpId;
+        }
+        
+        private Node child(String domain, int start, int end) {
+            int length = end - start;
+            int mask = labels.length - 1;
+            for (int i = hash(domain, start, end) & mask; labels[i] != null; i = (i + 1) & mask) {
+                String label = labels[i];
+                if (label.length() == length && label.regionMatches(0, domain, start, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Node used while building the trie.
+     */
+    private static final class MutableNode {
+        
+        private final Map<String, MutableNode> children = new HashMap<>();
+        
+        private String idpId;
+        
+        private Node freeze() {
+            // Keep the load factor at or below one half so probes stay short
+            int capacity = Integer.highestOneBit(Math.max(1, children.size()) * 2) << 1;
+            String[] labels = new String[capacity];
+            Node[] frozen = new Node[capacity];
+            int mask = capacity - 1;
+            
+            for (Map.Entry<String, MutableNode> entry : children.entrySet()) {
+                String label = entry.getKey();
+                int i = hash(label, 0, label.length()) & mask;
+                while (labels[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                labels[i] = label;
+                frozen[i] = entry.getValue().freeze();
+            }
+            return new Node(labels, frozen, idpId);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.service;
+
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationChangedEvent.Aspect;
+import com.example.event.IdpConfigurationResyncEvent;
+import com.example.repository.IdpConfigurationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory email domain to IdP routing index.
+ * 
+ * Loaded from the active {@code idp_email_domains} rows at startup and
+ * rebuilt copy-on-write whenever an IdP configuration changes. Readers
+ * only dereference a volatile snapshot, so lookups take no locks and
+ * make no database round trips.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Component
+public class EmailDomainIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EmailDomainIndex.class);
+    
+    private final IdpConfigurationRepository idpConfigurationRepository;
+    
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), DomainTrie.empty());
+    
+    /**
+     * Serializes rebuilds; a lock rather than a monitor so a virtual thread
+     * waiting on the database does not pin its carrier thread.
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    
+    @Autowired
+    public EmailDomainIndex(IdpConfigurationRepository idpConfigurationRepository) {
+        this.idpConfigurationRepository = idpConfigurationRepository;
+    }
+    
+    /**
+     * Load all active email domain mappings.
+     */
+    @PostConstruct
+    public void loadAll() {
+        rebuildLock.lock();
+        try {
+            Map<String, String> domainToIdpId = new HashMap<>();
+            for (Object[] row : idpConfigurationRepository.findActiveEmailDomainMappings()) {
+                putDomain(domainToIdpId, (String) row[0], (String) row[1]);
+            }
+            swap(domainToIdpId);
+            logger.info("Loaded {} email domain mappings into routing index", domainToIdpId.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    /**
+     * Resolve the IdP responsible for a domain.
+     * 
+     * Falls back to the closest parent domain, so {@code eu.corp.com}
+     * resolves to the IdP of {@code corp.com} unless it is mapped itself.
+     * 
+     * @param domain the lower-case email domain
+     * @return Optional containing the IdP ID if a mapping exists
+     */
+    public Optional<String> resolveIdpId(String domain) {
+        if (domain == null || domain.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshot.trie.lookup(domain));
+    }
+    
+    /**
+     * Get the number of indexed domains.
+     * 
+     * @return number of domains
+     */
+    public int size() {
+        return snapshot.domainToIdpId.size();
+    }
+    
+    /**
+     * Rebuild the mappings of the IdP affected by a configuration change.
+     * 
+     * @param event the configuration change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdpConfigurationChanged(IdpConfigurationChangedEvent event) {
+        // The active flag of the IdP also decides whether its domains route
+        if (event.affects(Aspect.CONFIGURATION, Aspect.EMAIL_DOMAINS)) {
+            refresh(event.getIdpId());
+        }
+    }
+    
+    /**
+     * Reload every mapping when change notifications may have been missed.
+     * 
+     * @param event the resync event
+     */
+    @EventListener
+    public void onResync(IdpConfigurationResyncEvent event) {
+        loadAll();
+    }
+    
+    /**
+     * Replace the mappings of a single IdP with its current active domains.
+     * 
+     * @param idpId the IdP identifier
+     */
+    public void refresh(String idpId) {
+        rebuildLock.lock();
+        try {
+            List<String> domains = idpConfigurationRepository.findActiveEmailDomainsByIdpId(idpId);
+            
+            Map<String, String> domainToIdpId = new HashMap<>(snapshot.domainToIdpId);
+            domainToIdpId.values().removeIf(idpId::equals);
+            for (String domain : domains) {
+                putDomain(domainToIdpId, domain, idpId);
+            }
+            swap(domainToIdpId);
+            logger.debug("Refreshed routing index for IdP {} with {} domain(s)", idpId, domains.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    private void putDomain(Map<String, String> domainToIdpId, String domain, String idpId) {
+        String normalized = normalize(domain);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        String existing = domainToIdpId.putIfAbsent(normalized, idpId);
+        if (existing != null && !existing.equals(idpId)) {
+            logger.warn("Email domain '{}' is mapped to both IdP {} and IdP {}, keeping {}",
+                       normalized, existing, idpId, existing);
+        }
+    }
+    
+    private void swap(Map<String, String> domainToIdpId) {
+        snapshot = new Snapshot(Collections.unmodifiableMap(domainToIdpId), DomainTrie.build(domainToIdpId));
+    }
+    
+    /**
+     * Normalize a configured domain to the form produced by email parsing.
+     * 
+     * @param domain the configured domain
+     * @return lower-case domain without surrounding whitespace, '@' or dots
+     */
+    static String normalize(String domain) {
+        if (domain == null) {
+            return "";
+        }
+        String normalized = domain.trim().toLowerCase();
+        int start = 0;
+        int end = normalized.length();
+        while (start < end && (normalized.charAt(start) == '@' || normalized.charAt(start) == '.')) {
+            start++;
+        }
+        while (end > start && normalized.charAt(end - 1) == '.') {
+            end--;
+        }
+        return normalized.substring(start, end);
+    }
+    
+    /**
+     * Immutable pairing of the flat mapping and the trie built from it.
+     */
+    private static final class Snapshot {
+        
+        private final Map<String, String> domainToIdpId;
+        
+        private final DomainTrie trie;
+        
+        private Snapshot(Map<String, String> domainToIdpId, DomainTrie trie) {
+            this.domainToIdpId = domainToIdpId;
+            this.trie = trie;
+        }
+    }
+}
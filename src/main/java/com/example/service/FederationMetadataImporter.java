@@ -0,0 +1,476 @@
+package com.example.service;
+
+import com.example.cluster.IdpChangeBus;
+import com.example.config.MetadataImportProperties;
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationChangedEvent.Aspect;
+import com.example.event.IdpConfigurationChangedEvent.ChangeType;
+import com.example.event.IdpConfigurationResyncEvent;
+import com.example.saml.FederationMetadataReader;
+import com.example.saml.FederationMetadataReader.IdpEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import of identity providers from SAML metadata aggregates.
+ * 
+ * The aggregate is read with {@link FederationMetadataReader}, so memory
+ * use is bounded by one batch of entities plus a digest per previously
+ * imported IdP, whatever the size of the file. Each imported IdP keeps
+ * the digest of its imported values as the {@value #DIGEST_PROPERTY}
+ * property; entities whose digest is unchanged are skipped, and changed
+ * ones are upserted with their certificates, email-domain hints and
+ * digest in JDBC batches, one transaction per batch.
+ * 
+ * IdP IDs are derived from the entityID, so re-imports address the same
+ * rows. Entities already configured by hand under another IdP ID are left
+ * alone, and domain hints never take over a domain already routed to
+ * another IdP. The domains of an imported IdP are owned by the import and
+ * replaced whenever the entity changes.
+ * 
+ * Up to {@code resync-threshold} changed IdPs are announced one by one as
+ * {@link IdpConfigurationChangedEvent}s; larger imports publish one
+ * {@link IdpConfigurationResyncEvent} locally and through the
+ * {@link IdpChangeBus}, since rebuilding the routing index per IdP would be
+ * quadratic in the number of IdPs.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Service
+public class FederationMetadataImporter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FederationMetadataImporter.class);
+    
+    /**
+     * Property holding the digest of an IdP's imported values; marks the IdP as imported.
+     */
+    public static final String DIGEST_PROPERTY = "metadata.digest";
+    
+    /**
+     * Digest of an imported IdP deactivated because it left the aggregate.
+     */
+    private static final String MISSING_DIGEST = "missing";
+    
+    private static final String SELECT_EXISTING_SQL =
+            "SELECT c.idp_id, c.idp_entity_id, p.property_value FROM idp_configurations c "
+            + "LEFT JOIN idp_properties p ON p.idp_configuration_id = c.id AND p.property_name = '"
+            + DIGEST_PROPERTY + "'";
+    
+    private static final String UPSERT_SQL =
+            "INSERT INTO idp_configurations (idp_id, idp_name, idp_entity_id, idp_sso_url, idp_slo_url, "
+            + "idp_certificate, logo_url, display_name, is_active, is_default, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, TRUE, FALSE, ?, ?) "
+            + "ON CONFLICT (idp_id) DO UPDATE SET idp_name = EXCLUDED.idp_name, "
+            + "idp_entity_id = EXCLUDED.idp_entity_id, idp_sso_url = EXCLUDED.idp_sso_url, "
+            + "idp_slo_url = EXCLUDED.idp_slo_url, idp_certificate = EXCLUDED.idp_certificate, "
+            + "logo_url = EXCLUDED.logo_url, display_name = EXCLUDED.display_name, "
+            + "is_active = idp_configurations.is_active OR ?, updated_at = EXCLUDED.updated_at";
+    
+    private static final String ID_OF = "(SELECT id FROM idp_configurations WHERE idp_id = ?)";
+    
+    private static final String DELETE_DOMAINS_SQL =
+            "DELETE FROM idp_email_domains WHERE idp_configuration_id = " + ID_OF;
+    
+    private static final String INSERT_DOMAIN_SQL =
+            "INSERT INTO idp_email_domains (idp_configuration_id, email_domain, is_active, created_at, updated_at) "
+            + "SELECT id, ?, TRUE, ?, ? FROM idp_configurations WHERE idp_id = ? AND NOT EXISTS ("
+            + "SELECT 1 FROM idp_email_domains WHERE lower(email_domain) = ? AND is_active)";
+    
+    private static final String DELETE_DIGEST_SQL =
+            "DELETE FROM idp_properties WHERE property_name = '" + DIGEST_PROPERTY
+            + "' AND idp_configuration_id = " + ID_OF;
+    
+    private static final String INSERT_DIGEST_SQL =
+            "INSERT INTO idp_properties (idp_configuration_id, property_name, property_value, created_at, updated_at) "
+            + "SELECT id, '" + DIGEST_PROPERTY + "', ?, ?, ? FROM idp_configurations WHERE idp_id = ?";
+    
+    private static final String DEACTIVATE_SQL =
+            "UPDATE idp_configurations SET is_active = FALSE, updated_at = ? WHERE idp_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final IdpChangeBus idpChangeBus;
+    
+    private final MetadataImportProperties properties;
+    
+    @Autowired
+    public FederationMetadataImporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      ApplicationEventPublisher eventPublisher, IdpChangeBus idpChangeBus,
+                                      MetadataImportProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.idpChangeBus = idpChangeBus;
+        this.properties = properties;
+    }
+    
+    /**
+     * Import all identity providers of a metadata aggregate.
+     * 
+     * Batches committed before a failure stay imported; running the import
+     * again skips them as unchanged.
+     * 
+     * @param file the aggregate
+     * @return the import counts
+     * @throws IOException if the file cannot be read or is not well-formed metadata
+     */
+    public ImportResult importFile(Path file) throws IOException {
+        long start = System.nanoTime();
+        long fileSize = Files.size(file);
+        logger.info("Importing IdP metadata from {} ({} MB)", file, fileSize >> 20);
+        
+        Existing existing = loadExisting();
+        Counts counts = new Counts();
+        List<Change> batch = new ArrayList<>(properties.getBatchSize());
+        boolean complete = false;
+        
+        try (CountingInputStream in = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)));
+             FederationMetadataReader reader = new FederationMetadataReader(in)) {
+            IdpEntity entity;
+            while ((entity = reader.next()) != null) {
+                counts.read++;
+                Change change = diff(entity, existing, counts);
+                if (change != null) {
+                    batch.add(change);
+                    if (batch.size() >= properties.getBatchSize()) {
+                        flush(batch, counts);
+                    }
+                }
+                if (counts.read % properties.getProgressInterval() == 0) {
+                    logger.info("Metadata import {}%: {} IdPs read, {} created, {} updated, {} unchanged",
+                            in.count * 100 / Math.max(fileSize, 1), counts.read, counts.created,
+                            counts.updated, counts.unchanged);
+                }
+            }
+            flush(batch, counts);
+            counts.skipped += reader.getSkipped();
+            complete = true;
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed metadata in " + file + ": " + e.getMessage(), e);
+        } finally {
+            // Announce whatever was committed, even after a failure
+            if (properties.isDeactivateMissing() && complete) {
+                deactivateMissing(existing, counts);
+            }
+            announce(counts);
+        }
+        
+        ImportResult result = new ImportResult(counts.read, counts.created, counts.updated, counts.unchanged,
+                counts.conflicts, counts.skipped, counts.deactivated,
+                Duration.ofNanos(System.nanoTime() - start));
+        logger.info("Imported IdP metadata from {}: {}", file, result);
+        return result;
+    }
+    
+    private Change diff(IdpEntity entity, Existing existing, Counts counts) {
+        if (entity.entityId().length() > 255 || entity.ssoUrl().length() > 500) {
+            counts.skipped++;
+            return null;
+        }
+        if (existing.manualEntityIds.contains(entity.entityId())) {
+            logger.debug("Skipping {}: configured manually", entity.entityId());
+            counts.conflicts++;
+            return null;
+        }
+        String idpId = idpId(entity.entityId());
+        String digest = entity.digest();
+        String previous = existing.importedDigests.remove(idpId);
+        if (digest.equals(previous)) {
+            counts.unchanged++;
+            return null;
+        }
+        return new Change(idpId, entity, digest, previous == null, MISSING_DIGEST.equals(previous));
+    }
+    
+    private void flush(List<Change> batch, Counts counts) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch, batch.size(), (ps, change) -> {
+                IdpEntity entity = change.entity();
+                ps.setString(1, change.idpId());
+                ps.setString(2, truncate(entity.name(), 255));
+                ps.setString(3, entity.entityId());
+                ps.setString(4, entity.ssoUrl());
+                ps.setString(5, limit(entity.sloUrl(), 500));
+                ps.setString(6, pem(entity.certificates()));
+                ps.setString(7, limit(entity.logoUrl(), 500));
+                ps.setString(8, truncate(entity.name(), 200));
+                ps.setTimestamp(9, now);
+                ps.setTimestamp(10, now);
+                ps.setBoolean(11, change.reappeared());
+            });
+            jdbcTemplate.batchUpdate(DELETE_DOMAINS_SQL, batch, batch.size(),
+                    (ps, change) -> ps.setString(1, change.idpId()));
+            List<Object[]> domains = new ArrayList<>();
+            for (Change change : batch) {
+                for (String domain : change.entity().domains()) {
+                    if (domain.length() <= 100) {
+                        domains.add(new Object[] {domain, now, now, change.idpId(), domain});
+                    }
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_DOMAIN_SQL, domains);
+            jdbcTemplate.batchUpdate(DELETE_DIGEST_SQL, batch, batch.size(),
+                    (ps, change) -> ps.setString(1, change.idpId()));
+            jdbcTemplate.batchUpdate(INSERT_DIGEST_SQL, batch, batch.size(), (ps, change) -> {
+                ps.setString(1, change.digest());
+                ps.setTimestamp(2, now);
+                ps.setTimestamp(3, now);
+                ps.setString(4, change.idpId());
+            });
+        });
+        for (Change change : batch) {
+            if (change.created()) {
+                counts.created++;
+            } else {
+                counts.updated++;
+            }
+            counts.changed(change.idpId(), change.created() ? ChangeType.CREATED : ChangeType.UPDATED,
+                    properties.getResyncThreshold());
+        }
+        batch.clear();
+    }
+    
+    private void deactivateMissing(Existing existing, Counts counts) {
+        List<String> missing = new ArrayList<>();
+        existing.importedDigests.forEach((idpId, digest) -> {
+            if (!MISSING_DIGEST.equals(digest)) {
+                missing.add(idpId);
+            }
+        });
+        Timestamp now = Timestamp.from(Instant.now());
+        for (int from = 0; from < missing.size(); from += properties.getBatchSize()) {
+            List<String> batch = missing.subList(from, Math.min(from + properties.getBatchSize(), missing.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(DEACTIVATE_SQL, batch, batch.size(), (ps, idpId) -> {
+                    ps.setTimestamp(1, now);
+                    ps.setString(2, idpId);
+                });
+                jdbcTemplate.batchUpdate(DELETE_DIGEST_SQL, batch, batch.size(), (ps, idpId) -> ps.setString(1, idpId));
+                jdbcTemplate.batchUpdate(INSERT_DIGEST_SQL, batch, batch.size(), (ps, idpId) -> {
+                    ps.setString(1, MISSING_DIGEST);
+                    ps.setTimestamp(2, now);
+                    ps.setTimestamp(3, now);
+                    ps.setString(4, idpId);
+                });
+            });
+            for (String idpId : batch) {
+                counts.deactivated++;
+                counts.changed(idpId, ChangeType.UPDATED, properties.getResyncThreshold());
+            }
+        }
+    }
+    
+    private void announce(Counts counts) {
+        if (counts.bulk) {
+            String reason = "metadata import of " + (counts.created + counts.updated + counts.deactivated) + " IdPs";
+            eventPublisher.publishEvent(new IdpConfigurationResyncEvent(reason));
+            idpChangeBus.publishResync(reason);
+        } else if (!counts.announcements.isEmpty()) {
+            // Relayed to the other nodes and applied locally once this transaction commits
+            transactionTemplate.executeWithoutResult(status -> {
+                for (IdpConfigurationChangedEvent event : counts.announcements) {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+        }
+    }
+    
+    private Existing loadExisting() {
+        Existing existing = new Existing();
+        jdbcTemplate.query(SELECT_EXISTING_SQL, rs -> {
+            String digest = rs.getString("property_value");
+            if (digest != null) {
+                existing.importedDigests.put(rs.getString("idp_id"), digest);
+            } else {
+                existing.manualEntityIds.add(rs.getString("idp_entity_id"));
+            }
+        });
+        logger.debug("Found {} imported and {} manually configured IdPs", existing.importedDigests.size(),
+                existing.manualEntityIds.size());
+        return existing;
+    }
+    
+    /**
+     * Derive a stable, URL-safe IdP ID from an entityID: its host or last
+     * URN segments, followed by a hash of the whole entityID.
+     * 
+     * @param entityId the entityID
+     * @return the IdP ID
+     */
+    static String idpId(String entityId) {
+        String name = entityId.replaceFirst("^[a-zA-Z][a-zA-Z0-9+.-]*://", "")
+                .replaceFirst("^urn:", "").replaceFirst("[/?#].*$", "");
+        String slug = name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-+|-+$", "");
+        if (slug.length() > 60) {
+            slug = slug.substring(slug.length() - 60).replaceAll("^-+", "");
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(entityId.getBytes(StandardCharsets.UTF_8));
+            return (slug.isEmpty() ? "idp" : slug) + "-" + HexFormat.of().formatHex(hash, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static String pem(List<String> certificates) {
+        if (certificates.isEmpty()) {
+            return null;
+        }
+        StringBuilder pem = new StringBuilder(certificates.size() * 1600);
+        for (String certificate : certificates) {
+            pem.append("-----BEGIN CERTIFICATE-----\n");
+            for (int i = 0; i < certificate.length(); i += 64) {
+                pem.append(certificate, i, Math.min(i + 64, certificate.length())).append('\n');
+            }
+            pem.append("-----END CERTIFICATE-----\n");
+        }
+        return pem.toString();
+    }
+    
+    private static String truncate(String value, int length) {
+        return value.length() > length ? value.substring(0, length) : value;
+    }
+    
+    private static String limit(String value, int length) {
+        return value != null && value.length() <= length ? value : null;
+    }
+    
+    /**
+     * Counts of an import.
+     * 
+     * @param read IdP entities read from the aggregate
+     * @param created IdPs imported for the first time
+     * @param updated IdPs whose imported values changed
+     * @param unchanged IdPs skipped because their values were unchanged
+     * @param conflicts IdPs skipped because they are configured manually
+     * @param skipped entities that are not importable SAML 2.0 IdPs
+     * @param deactivated previously imported IdPs deactivated because they left the aggregate
+     * @param duration time taken
+     * @author SAML Spring Boot Application
+     * @version 1.0.0
+     */
+    public record ImportResult(int read, int created, int updated, int unchanged, int conflicts, int skipped,
+                               int deactivated, Duration duration) {
+    }
+    
+    private record Change(String idpId, IdpEntity entity, String digest, boolean created, boolean reappeared) {
+    }
+    
+    /**
+     * IdPs in the database before the import.
+     */
+    private static final class Existing {
+        
+        /** Digest by IdP ID of imported IdPs; entries left at the end are missing from the aggregate. */
+        private final Map<String, String> importedDigests = new HashMap<>();
+        
+        private final Set<String> manualEntityIds = new HashSet<>();
+    }
+    
+    /**
+     * Running counts and the change events to announce.
+     */
+    private static final class Counts {
+        
+        private int read;
+        
+        private int created;
+        
+        private int updated;
+        
+        private int unchanged;
+        
+        private int conflicts;
+        
+        private int skipped;
+        
+        private int deactivated;
+        
+        private boolean bulk;
+        
+        private final List<IdpConfigurationChangedEvent> announcements = new ArrayList<>();
+        
+        void changed(String idpId, ChangeType changeType, int resyncThreshold) {
+            if (bulk) {
+                return;
+            }
+            if (announcements.size() >= resyncThreshold) {
+                // Too many to announce one by one: drop them for a single resync
+                bulk = true;
+                announcements.clear();
+                return;
+            }
+            // Domains may have moved, so listeners evict email lookups of all domains
+            announcements.add(new IdpConfigurationChangedEvent(idpId, null, changeType,
+                    EnumSet.of(Aspect.CONFIGURATION, Aspect.PROPERTIES, Aspect.EMAIL_DOMAINS), null, false));
+        }
+    }
+    
+    /**
+     * Counts bytes read, for progress reporting.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        
+        private long count;
+        
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
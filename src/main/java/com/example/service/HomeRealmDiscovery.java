@@ -0,0 +1,101 @@
+package com.example.service;
+
+import com.example.model.IdpSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Home-realm discovery: which IdP a user of an email domain signs in with.
+ * 
+ * Resolves domains through the in-memory {@link EmailDomainIndex},
+ * falling back to the default IdP like the login form does, and takes
+ * the IdP's name and logo from the cached snapshots, so answering needs
+ * neither a session nor, once warm, the database.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Service
+public class HomeRealmDiscovery {
+    
+    private static final Pattern DOMAIN = Pattern.compile("[a-z0-9]([a-z0-9-]{0,62})(\\.[a-z0-9-]{1,63})*");
+    
+    private static final String SSO_PATH = "/saml2/authentication/";
+    
+    /**
+     * How a domain was matched to its IdP.
+     */
+    public enum Match {
+        /** The domain or a parent domain is mapped to the IdP. */
+        DOMAIN,
+        /** No mapping; the default IdP applies. */
+        DEFAULT
+    }
+    
+    private final EmailDomainIndex emailDomainIndex;
+    
+    private final IdpConfigurationService idpConfigurationService;
+    
+    @Autowired
+    public HomeRealmDiscovery(EmailDomainIndex emailDomainIndex, IdpConfigurationService idpConfigurationService) {
+        this.emailDomainIndex = emailDomainIndex;
+        this.idpConfigurationService = idpConfigurationService;
+    }
+    
+    /**
+     * Normalize a domain, or the domain of an email address, for lookup.
+     * 
+     * @param domain the domain or email address
+     * @return lower-case domain, or null if it is not a valid domain name
+     */
+    public static String normalize(String domain) {
+        if (domain == null) {
+            return null;
+        }
+        String normalized = domain.substring(domain.lastIndexOf('@') + 1).trim().toLowerCase(Locale.ROOT);
+        if (normalized.endsWith(".")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized.length() <= 253 && DOMAIN.matcher(normalized).matches() ? normalized : null;
+    }
+    
+    /**
+     * Find the IdP for a normalized domain.
+     * 
+     * @param domain the domain, as returned by {@link #normalize}
+     * @return the IdP to sign in with, or empty if none applies
+     */
+    public Optional<Discovery> discover(String domain) {
+        Optional<String> mapped = emailDomainIndex.resolveIdpId(domain);
+        if (mapped.isPresent()) {
+            return idpConfigurationService.getByIdpId(mapped.get())
+                    .filter(IdpSnapshot::active)
+                    .map(idp -> Discovery.of(idp, Match.DOMAIN));
+        }
+        return idpConfigurationService.getDefaultIdpConfiguration()
+                .filter(IdpSnapshot::active)
+                .map(idp -> Discovery.of(idp, Match.DEFAULT));
+    }
+    
+    /**
+     * Discovery answer.
+     * 
+     * @param idpId the IdP identifier
+     * @param displayName the name to show to users
+     * @param logoUrl the logo URL, may be null
+     * @param ssoUrl the path starting SAML authentication with the IdP
+     * @param match how the domain was matched
+     * @author SAML Spring Boot Application
+     * @version 1.0.0
+     */
+    public record Discovery(String idpId, String displayName, String logoUrl, String ssoUrl, Match match) {
+        
+        static Discovery of(IdpSnapshot idp, Match match) {
+            return new Discovery(idp.idpId(), idp.label(), idp.logoUrl(), SSO_PATH + idp.idpId(), match);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.service;
+
+import com.example.config.CacheConfig;
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationChangedEvent.Aspect;
+import com.example.event.IdpConfigurationResyncEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+
+/**
+ * Evicts the IdP cache entries affected by a configuration change.
+ * 
+ * Replaces {@code @CacheEvict(allEntries = true)} with eviction of the
+ * exact keys touched by a change: the IdP ID and surrogate ID of the
+ * changed IdP, the single-entry list caches whose content changed, the
+ * default IdP only when the change involves it, and the per-email entries
+ * whose domain is one of the changed domains or a subdomain of one.
+ * 
+ * Evicted keys are reloaded single-flight on the next lookup. Entries by
+ * IdP ID and by email load through the {@link CoalescingLoader} of
+ * {@link IdpConfigurationService#loadSnapshot}, which coalesces concurrent
+ * misses on the IdP ID, so many emails of one domain cost one query. The
+ * surrogate ID, default IdP and list caches reload through their
+ * {@code sync = true} {@code @Cacheable} methods. A load of the changed
+ * IdP already in flight may have read the previous state, so it is
+ * detached from the loader before the keys are evicted and the next
+ * lookup queries again.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Component
+public class IdpCacheEvictor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdpCacheEvictor.class);
+    
+    private final CacheManager cacheManager;
+    
+    private final IdpConfigurationService idpConfigurationService;
+    
+    @Autowired
+    public IdpCacheEvictor(CacheManager cacheManager, IdpConfigurationService idpConfigurationService) {
+        this.cacheManager = cacheManager;
+        this.idpConfigurationService = idpConfigurationService;
+    }
+    
+    /**
+     * Evict the cache entries affected by an IdP configuration change.
+     * 
+     * @param event the configuration change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdpConfigurationChanged(IdpConfigurationChangedEvent event) {
+        idpConfigurationService.invalidateInFlightLoads(event.getIdpId());
+        evict("idpConfiguration", event.getIdpId());
+        evict("idpConfiguration", event.getId());
+        evict("idpConfigurationsWithDetails", SimpleKey.EMPTY);
+        if (event.affects(Aspect.CONFIGURATION, Aspect.PROPERTIES, Aspect.EMAIL_DOMAINS)) {
+            evict("idpConfigurations", SimpleKey.EMPTY);
+        }
+        if (event.affects(Aspect.DEFAULT)) {
+            evict("defaultIdpConfiguration", SimpleKey.EMPTY);
+        }
+        evictEmails(event.getEmailDomains());
+        
+        logger.debug("Evicted cache entries for IdP {} {} ({})", event.getIdpId(), event.getAspects(),
+                    event.isRemote() ? "remote" : "local");
+    }
+    
+    /**
+     * Clear all IdP caches when notifications may have been missed.
+     * 
+     * @param event the resync event
+     */
+    @EventListener
+    public void onResync(IdpConfigurationResyncEvent event) {
+        idpConfigurationService.invalidateInFlightLoads(null);
+        for (String cacheName : CacheConfig.CACHE_NAMES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        logger.info("Cleared IdP caches: {}", event.getReason());
+    }
+    
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(key);
+        }
+    }
+    
+    /**
+     * Evict per-email entries routed through any of the given domains.
+     * 
+     * @param domains the affected domains, or null to evict every email entry
+     */
+    private void evictEmails(Set<String> domains) {
+        Cache cache = cacheManager.getCache("idpConfigurationByEmail");
+        if (cache == null) {
+            return;
+        }
+        if (domains == null || !(cache instanceof CaffeineCache caffeineCache)) {
+            cache.clear();
+            return;
+        }
+        if (domains.isEmpty()) {
+            return;
+        }
+        
+        caffeineCache.getNativeCache().asMap().keySet().removeIf(key -> {
+            String domain = IdpConfigurationService.extractDomainFromEmail(String.valueOf(key).trim());
+            return matchesAny(domain, domains);
+        });
+    }
+    
+    /**
+     * Check whether a domain equals, or is a subdomain of, any given domain.
+     */
+    static boolean matchesAny(String domain, Set<String> domains) {
+        if (domains.contains(domain)) {
+            return true;
+        }
+        for (int dot = domain.indexOf('.'); dot >= 0; dot = domain.indexOf('.', dot + 1)) {
+            if (domains.contains(domain.substring(dot + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -3,12 +3,17 @@ package com.example.service;
 import com.example.entity.IdpConfiguration;
 import com.example.entity.IdpEmailDomain;
 import com.example.entity.IdpProperty;
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationChangedEvent.Aspect;
+import com.example.event.IdpConfigurationChangedEvent.ChangeType;
+import com.example.model.IdpSnapshot;
 import com.example.repository.IdpConfigurationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,109 +26,235 @@ import java.util.stream.Collectors;
  * Provides business logic for managing Identity Provider configurations,
  * including CRUD operations, email domain mapping, and SAML property management.
  * 
+ * Transactions are read-only unless a method changes configurations, so
+ * lookups skip Hibernate's flush and dirty checking and can be served by
+ * a read replica (see {@code ReadReplicaRoutingDataSource}).
+ * 
  * @author SAML Spring Boot Application
  * @version 1.0.0
  */
 @Service
-@Transactional
+@Transactional(readOnly = true)
 public class IdpConfigurationService {
     
     private static final Logger logger = LoggerFactory.getLogger(IdpConfigurationService.class);
     
     private final IdpConfigurationRepository idpConfigurationRepository;
     
+    private final EmailDomainIndex emailDomainIndex;
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final CoalescingLoader<String, Optional<IdpSnapshot>> idpIdLoader;
+    
     @Autowired
-    public IdpConfigurationService(IdpConfigurationRepository idpConfigurationRepository) {
+    public IdpConfigurationService(IdpConfigurationRepository idpConfigurationRepository,
+                                   EmailDomainIndex emailDomainIndex,
+                                   ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry) {
         this.idpConfigurationRepository = idpConfigurationRepository;
+        this.emailDomainIndex = emailDomainIndex;
+        this.eventPublisher = eventPublisher;
+        this.idpIdLoader = new CoalescingLoader<>("idpConfigurationByIdpId", meterRegistry);
     }
     
     /**
      * Get all active IdP configurations.
      * 
-     * @return List of active IdP configurations
+     * @return List of active IdP snapshots
      */
-    @Cacheable("idpConfigurations")
-    public List<IdpConfiguration> getAllActiveIdpConfigurations() {
+    @Cacheable(value = "idpConfigurations", sync = true)
+    public List<IdpSnapshot> getAllActiveIdpConfigurations() {
         logger.debug("Fetching all active IdP configurations");
-        List<IdpConfiguration> configurations = idpConfigurationRepository.findByIsActiveTrue();
-        logger.info("Found {} active IdP configurations", configurations.size());
-        return configurations;
+        return loadActiveSnapshots();
     }
     
     /**
      * Get IdP configuration by ID.
      * 
      * @param id the IdP configuration ID
-     * @return Optional containing the IdP configuration if found
+     * @return Optional containing the IdP snapshot if found
      */
-    @Cacheable("idpConfiguration")
-    public Optional<IdpConfiguration> getById(Long id) {
+    @Cacheable(value = "idpConfiguration", sync = true)
+    public Optional<IdpSnapshot> getById(Long id) {
         logger.debug("Fetching IdP configuration with ID: {}", id);
-        return idpConfigurationRepository.findById(id);
+        return loadSnapshotById(id);
     }
     
     /**
      * Get IdP configuration by IdP ID.
      * 
      * @param idpId the IdP identifier
-     * @return Optional containing the IdP configuration if found
+     * @return Optional containing the IdP snapshot if found
      */
     @Cacheable("idpConfiguration")
-    public Optional<IdpConfiguration> getByIdpId(String idpId) {
+    public Optional<IdpSnapshot> getByIdpId(String idpId) {
         logger.debug("Fetching IdP configuration with IdP ID: {}", idpId);
-        return idpConfigurationRepository.findByIdpId(idpId);
+        return loadSnapshot(idpId);
     }
     
     /**
      * Get the default IdP configuration.
      * 
-     * @return Optional containing the default IdP configuration if found
+     * @return Optional containing the default IdP snapshot if found
      */
-    @Cacheable("defaultIdpConfiguration")
-    public Optional<IdpConfiguration> getDefaultIdpConfiguration() {
+    @Cacheable(value = "defaultIdpConfiguration", sync = true)
+    public Optional<IdpSnapshot> getDefaultIdpConfiguration() {
         logger.debug("Fetching default IdP configuration");
-        return idpConfigurationRepository.findByIsDefaultTrue();
+        return loadDefaultSnapshot();
     }
     
     /**
      * Find IdP configuration by email domain.
      * 
      * @param email the email address to find IdP for
-     * @return Optional containing the IdP configuration if found
+     * @return Optional containing the IdP snapshot if found
      */
     @Cacheable("idpConfigurationByEmail")
-    public Optional<IdpConfiguration> findByIdpByEmail(String email) {
+    public Optional<IdpSnapshot> findByIdpByEmail(String email) {
+        return loadSnapshotByEmail(email);
+    }
+    
+    /**
+     * Resolve the IdP ID for an email address from the in-memory domain index.
+     * 
+     * Subdomains fall back to their closest configured parent domain.
+     * No database query is issued.
+     * 
+     * @param email the email address to find IdP for
+     * @return Optional containing the IdP ID if a domain mapping exists
+     */
+    public Optional<String> findIdpIdByEmail(String email) {
         if (email == null || email.trim().isEmpty()) {
-            logger.warn("Email is null or empty, cannot find IdP configuration");
+            logger.debug("Email is null or empty, cannot find IdP configuration");
             return Optional.empty();
         }
         
-        String domain = extractDomainFromEmail(email);
+        String domain = extractDomainFromEmail(email.trim());
         logger.debug("Finding IdP configuration for email domain: {}", domain);
         
-        Optional<IdpConfiguration> configuration = idpConfigurationRepository.findByEmailDomain(domain);
+        Optional<String> idpId = emailDomainIndex.resolveIdpId(domain);
         
-        if (configuration.isPresent()) {
-            logger.info("Found IdP configuration '{}' for email domain: {}", 
-                       configuration.get().getIdpName(), domain);
+        // Outcomes are recorded in the authentication audit trail
+        if (idpId.isPresent()) {
+            logger.debug("Found IdP configuration '{}' for email domain: {}", idpId.get(), domain);
         } else {
-            logger.warn("No IdP configuration found for email domain: {}", domain);
+            logger.debug("No IdP configuration found for email domain: {}", domain);
         }
         
-        return configuration;
+        return idpId;
     }
     
     /**
      * Get all IdP configurations with full details.
      * 
-     * @return List of IdP configurations with properties and email domains
+     * @return List of active IdP snapshots with properties and email domains
      */
-    @Cacheable("idpConfigurationsWithDetails")
-    public List<IdpConfiguration> getAllActiveWithDetails() {
+    @Cacheable(value = "idpConfigurationsWithDetails", sync = true)
+    public List<IdpSnapshot> getAllActiveWithDetails() {
         logger.debug("Fetching all active IdP configurations with details");
-        List<IdpConfiguration> configurations = idpConfigurationRepository.findAllActiveWithDetails();
-        logger.info("Found {} active IdP configurations with details", configurations.size());
-        return configurations;
+        return loadActiveSnapshots();
+    }
+    
+    /**
+     * Load snapshots of all active IdP configurations, bypassing the caches.
+     * 
+     * Uses three set-based queries (configurations, properties, email
+     * domains) assembled in memory, so the statement count does not grow
+     * with the number of IdPs.
+     * 
+     * @return List of active IdP snapshots
+     */
+    public List<IdpSnapshot> loadActiveSnapshots() {
+        List<IdpConfiguration> configurations = idpConfigurationRepository.findByIsActiveTrue();
+        
+        Map<Long, List<IdpProperty>> properties = idpConfigurationRepository
+                .findPropertiesOfActiveConfigurations().stream()
+                .collect(Collectors.groupingBy(property -> property.getIdpConfiguration().getId()));
+        Map<Long, List<IdpEmailDomain>> emailDomains = idpConfigurationRepository
+                .findEmailDomainsOfActiveConfigurations().stream()
+                .collect(Collectors.groupingBy(domain -> domain.getIdpConfiguration().getId()));
+        
+        List<IdpSnapshot> snapshots = new ArrayList<>(configurations.size());
+        for (IdpConfiguration configuration : configurations) {
+            snapshots.add(IdpSnapshot.from(configuration,
+                    properties.getOrDefault(configuration.getId(), List.of()),
+                    emailDomains.getOrDefault(configuration.getId(), List.of())));
+        }
+        
+        logger.info("Found {} active IdP configurations", snapshots.size());
+        return Collections.unmodifiableList(snapshots);
+    }
+    
+    /**
+     * Load a snapshot by IdP ID, bypassing the caches.
+     * 
+     * Concurrent loads of the same IdP are coalesced into one query.
+     * Emails of many users share one IdP, so lookups by email and by
+     * IdP ID are coalesced on the IdP ID rather than on the cache key.
+     * 
+     * @param idpId the IdP identifier
+     * @return Optional containing the IdP snapshot if found
+     */
+    public Optional<IdpSnapshot> loadSnapshot(String idpId) {
+        return idpIdLoader.load(idpId, () -> idpConfigurationRepository.findByIdpId(idpId).map(IdpSnapshot::from));
+    }
+    
+    /**
+     * Load a snapshot by IdP ID after a change to the IdP has committed.
+     * 
+     * Unlike {@link #loadSnapshot}, never joins a load that started before
+     * the change and may have read the previous state.
+     * 
+     * @param idpId the IdP identifier
+     * @return Optional containing the IdP snapshot if found
+     */
+    public Optional<IdpSnapshot> reloadSnapshot(String idpId) {
+        idpIdLoader.invalidate(idpId);
+        return loadSnapshot(idpId);
+    }
+    
+    /**
+     * Keep later lookups from joining snapshot loads that started before a
+     * change committed.
+     * 
+     * @param idpId the changed IdP identifier, or null for every IdP
+     */
+    public void invalidateInFlightLoads(String idpId) {
+        if (idpId != null) {
+            idpIdLoader.invalidate(idpId);
+        } else {
+            idpIdLoader.invalidateAll();
+        }
+    }
+    
+    /**
+     * Load a snapshot by surrogate ID, bypassing the caches.
+     * 
+     * @param id the IdP configuration ID
+     * @return Optional containing the IdP snapshot if found
+     */
+    public Optional<IdpSnapshot> loadSnapshotById(Long id) {
+        return idpConfigurationRepository.findById(id).map(IdpSnapshot::from);
+    }
+    
+    /**
+     * Load the default IdP snapshot, bypassing the caches.
+     * 
+     * @return Optional containing the default IdP snapshot if found
+     */
+    public Optional<IdpSnapshot> loadDefaultSnapshot() {
+        return idpConfigurationRepository.findByIsDefaultTrue().map(IdpSnapshot::from);
+    }
+    
+    /**
+     * Load the snapshot of the IdP routing an email address, bypassing the caches.
+     * 
+     * @param email the email address to find IdP for
+     * @return Optional containing the IdP snapshot if found
+     */
+    public Optional<IdpSnapshot> loadSnapshotByEmail(String email) {
+        return findIdpIdByEmail(email).flatMap(this::loadSnapshot);
     }
     
     /**
@@ -132,7 +263,7 @@ public class IdpConfigurationService {
      * @param configuration the IdP configuration to create
      * @return the created IdP configuration
      */
-    @CacheEvict(value = {"idpConfigurations", "idpConfigurationsWithDetails"}, allEntries = true)
+    @Transactional
     public IdpConfiguration createIdpConfiguration(IdpConfiguration configuration) {
         logger.info("Creating new IdP configuration: {}", configuration.getIdpId());
         
@@ -150,6 +281,8 @@ public class IdpConfigurationService {
         IdpConfiguration savedConfiguration = idpConfigurationRepository.save(configuration);
         logger.info("Successfully created IdP configuration with ID: {}", savedConfiguration.getId());
         
+        publishChange(savedConfiguration, ChangeType.CREATED, allAspects(savedConfiguration.getIsDefault()),
+                emailDomainsOf(savedConfiguration));
         return savedConfiguration;
     }
     
@@ -160,12 +293,14 @@ public class IdpConfigurationService {
      * @param configuration the updated configuration
      * @return Optional containing the updated IdP configuration if found
      */
-    @CacheEvict(value = {"idpConfigurations", "idpConfigurationsWithDetails", "idpConfiguration", "defaultIdpConfiguration"}, allEntries = true)
+    @Transactional
     public Optional<IdpConfiguration> updateIdpConfiguration(Long id, IdpConfiguration configuration) {
         logger.info("Updating IdP configuration with ID: {}", id);
         
         return idpConfigurationRepository.findById(id)
                 .map(existingConfig -> {
+                    boolean wasDefault = Boolean.TRUE.equals(existingConfig.getIsDefault());
+                    
                     // Update fields
                     existingConfig.setIdpName(configuration.getIdpName());
                     existingConfig.setIdpEntityId(configuration.getIdpEntityId());
@@ -180,6 +315,11 @@ public class IdpConfigurationService {
                     IdpConfiguration updatedConfig = idpConfigurationRepository.save(existingConfig);
                     logger.info("Successfully updated IdP configuration with ID: {}", updatedConfig.getId());
                     
+                    Set<Aspect> aspects = EnumSet.of(Aspect.CONFIGURATION);
+                    if (wasDefault || Boolean.TRUE.equals(updatedConfig.getIsDefault())) {
+                        aspects.add(Aspect.DEFAULT);
+                    }
+                    publishChange(updatedConfig, ChangeType.UPDATED, aspects, emailDomainsOf(updatedConfig));
                     return updatedConfig;
                 });
     }
@@ -190,13 +330,17 @@ public class IdpConfigurationService {
      * @param id the IdP configuration ID
      * @return true if the configuration was deleted
      */
-    @CacheEvict(value = {"idpConfigurations", "idpConfigurationsWithDetails", "idpConfiguration", "defaultIdpConfiguration"}, allEntries = true)
+    @Transactional
     public boolean deleteIdpConfiguration(Long id) {
         logger.info("Deleting IdP configuration with ID: {}", id);
         
-        if (idpConfigurationRepository.existsById(id)) {
-            idpConfigurationRepository.deleteById(id);
+        Optional<IdpConfiguration> configuration = idpConfigurationRepository.findById(id);
+        if (configuration.isPresent()) {
+            Set<String> emailDomains = emailDomainsOf(configuration.get());
+            idpConfigurationRepository.delete(configuration.get());
             logger.info("Successfully deleted IdP configuration with ID: {}", id);
+            publishChange(configuration.get(), ChangeType.DELETED, allAspects(configuration.get().getIsDefault()),
+                    emailDomains);
             return true;
         } else {
             logger.warn("IdP configuration with ID {} not found for deletion", id);
@@ -212,7 +356,7 @@ public class IdpConfigurationService {
      * @param propertyValue the property value
      * @return true if the property was added successfully
      */
-    @CacheEvict(value = {"idpConfigurations", "idpConfigurationsWithDetails", "idpConfiguration"}, allEntries = true)
+    @Transactional
     public boolean addProperty(String idpId, String propertyName, String propertyValue) {
         logger.debug("Adding property '{}' to IdP configuration: {}", propertyName, idpId);
         
@@ -222,6 +366,8 @@ public class IdpConfigurationService {
                     configuration.addProperty(property);
                     idpConfigurationRepository.save(configuration);
                     logger.info("Successfully added property '{}' to IdP configuration: {}", propertyName, idpId);
+                    publishChange(configuration, ChangeType.UPDATED,
+                            aspects(Aspect.PROPERTIES, configuration.getIsDefault()), emailDomainsOf(configuration));
                     return true;
                 })
                 .orElse(false);
@@ -234,7 +380,7 @@ public class IdpConfigurationService {
      * @param emailDomain the email domain
      * @return true if the email domain was added successfully
      */
-    @CacheEvict(value = {"idpConfigurations", "idpConfigurationsWithDetails", "idpConfiguration", "idpConfigurationByEmail"}, allEntries = true)
+    @Transactional
     public boolean addEmailDomain(String idpId, String emailDomain) {
         logger.debug("Adding email domain '{}' to IdP configuration: {}", emailDomain, idpId);
         
@@ -244,6 +390,10 @@ public class IdpConfigurationService {
                     configuration.addEmailDomain(domain);
                     idpConfigurationRepository.save(configuration);
                     logger.info("Successfully added email domain '{}' to IdP configuration: {}", emailDomain, idpId);
+                    // Only emails under the new domain can route differently now
+                    publishChange(configuration, ChangeType.UPDATED,
+                            aspects(Aspect.EMAIL_DOMAINS, configuration.getIsDefault()),
+                            Set.of(EmailDomainIndex.normalize(emailDomain)));
                     return true;
                 })
                 .orElse(false);
@@ -258,13 +408,9 @@ public class IdpConfigurationService {
     public Map<String, String> getSamlProperties(String idpId) {
         logger.debug("Getting SAML properties for IdP configuration: {}", idpId);
         
-        return idpConfigurationRepository.findByIdpId(idpId)
-                .map(configuration -> configuration.getProperties().stream()
-                        .collect(Collectors.toMap(
-                                IdpProperty::getPropertyName,
-                                IdpProperty::getPropertyValue,
-                                (existing, replacement) -> existing)))
-                .orElse(new HashMap<>());
+        return loadSnapshot(idpId)
+                .map(IdpSnapshot::properties)
+                .orElse(Map.of());
     }
     
     /**
@@ -273,13 +419,73 @@ public class IdpConfigurationService {
      * @param email the email address
      * @return the domain part of the email
      */
-    private String extractDomainFromEmail(String email) {
+    public static String extractDomainFromEmail(String email) {
         if (email == null || !email.contains("@")) {
             return "";
         }
         return email.substring(email.indexOf("@") + 1).toLowerCase();
     }
     
+    /**
+     * Publish an IdP configuration change to in-memory listeners.
+     * 
+     * Listeners use the aspects and domains to refresh or evict only the
+     * state affected by the change.
+     * 
+     * @param configuration the changed IdP configuration
+     * @param changeType the kind of change
+     * @param aspects the parts of the configuration that changed
+     * @param emailDomains the email domains affected by the change
+     */
+    private void publishChange(IdpConfiguration configuration, ChangeType changeType,
+                               Set<Aspect> aspects, Set<String> emailDomains) {
+        eventPublisher.publishEvent(new IdpConfigurationChangedEvent(
+                configuration.getIdpId(), configuration.getId(), changeType, aspects, emailDomains, false));
+    }
+    
+    /**
+     * Build the aspect set of a change to one part of a configuration.
+     * 
+     * @param aspect the changed part
+     * @param isDefault whether the configuration is the default IdP
+     * @return changed aspects, including {@link Aspect#DEFAULT} for the default IdP
+     */
+    private Set<Aspect> aspects(Aspect aspect, Boolean isDefault) {
+        Set<Aspect> aspects = EnumSet.of(aspect);
+        if (Boolean.TRUE.equals(isDefault)) {
+            aspects.add(Aspect.DEFAULT);
+        }
+        return aspects;
+    }
+    
+    /**
+     * Build the aspect set of a whole-configuration change.
+     * 
+     * @param isDefault whether the configuration is the default IdP
+     * @return changed aspects
+     */
+    private Set<Aspect> allAspects(Boolean isDefault) {
+        Set<Aspect> aspects = EnumSet.of(Aspect.CONFIGURATION, Aspect.PROPERTIES, Aspect.EMAIL_DOMAINS);
+        if (Boolean.TRUE.equals(isDefault)) {
+            aspects.add(Aspect.DEFAULT);
+        }
+        return aspects;
+    }
+    
+    /**
+     * Collect the email domains of an IdP configuration.
+     * 
+     * @param configuration the IdP configuration
+     * @return lower-case email domains
+     */
+    private Set<String> emailDomainsOf(IdpConfiguration configuration) {
+        return configuration.getEmailDomains().stream()
+                .map(IdpEmailDomain::getEmailDomain)
+                .map(EmailDomainIndex::normalize)
+                .filter(domain -> !domain.isEmpty())
+                .collect(Collectors.toSet());
+    }
+    
     /**
      * Validate IdP configuration.
      * 
@@ -0,0 +1,239 @@
+package com.example.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Word-prefix index over IdP names for typeahead search.
+ * 
+ * Every IdP name and display name is normalized (lower case, accents and
+ * punctuation removed) and indexed at each word start, so {@code "state u"}
+ * finds {@code "North State University"}. Keys reference the normalized
+ * name by offset instead of copying suffixes. A query walks the sorted
+ * keys from its first match and stops after {@code limit} distinct IdPs, so
+ * its cost depends on the result size, not on the number of IdPs.
+ * 
+ * Results are ranked by where the query matches: IdPs whose name starts
+ * with it come first, ordered by name, then IdPs with a later word starting
+ * with it, ordered by that word. Updates replace one IdP at a time;
+ * readers take no locks and always see either the old or the new names.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public final class IdpNameIndex {
+    
+    private static final String SSO_PATH = "/saml2/authentication/";
+    
+    private static final Comparator<Key> KEY_ORDER = IdpNameIndex::compare;
+    
+    /** Keys at the start of a name. */
+    private final NavigableMap<Key, Entry> names = new ConcurrentSkipListMap<>(KEY_ORDER);
+    
+    /** Keys at the start of a later word of a name. */
+    private final NavigableMap<Key, Entry> words = new ConcurrentSkipListMap<>(KEY_ORDER);
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    private final ReentrantLock updateLock = new ReentrantLock();
+    
+    /**
+     * Add an IdP or replace its names.
+     * 
+     * @param idpId the IdP identifier
+     * @param idpName the IdP name
+     * @param displayName the display name, may be null
+     * @param logoUrl the logo URL, may be null
+     */
+    public void put(String idpId, String idpName, String displayName, String logoUrl) {
+        String label = displayName != null && !displayName.isBlank() ? displayName : idpName;
+        Entry entry = new Entry(new Suggestion(idpId, label, logoUrl, SSO_PATH + idpId));
+        Set<String> normalized = new LinkedHashSet<>();
+        normalized.add(normalize(label));
+        normalized.add(normalize(idpName));
+        for (String name : normalized) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            entry.keys.add(new Key(name, 0, idpId));
+            for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+                entry.keys.add(new Key(name, i + 1, idpId));
+            }
+        }
+        
+        updateLock.lock();
+        try {
+            // New keys go in before stale ones are removed, so the IdP never disappears from results
+            for (Key key : entry.keys) {
+                (key.offset == 0 ? names : words).put(key, entry);
+            }
+            Entry previous = entries.put(idpId, entry);
+            if (previous != null) {
+                removeKeys(previous);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+    
+    /**
+     * Remove an IdP.
+     * 
+     * @param idpId the IdP identifier
+     */
+    public void remove(String idpId) {
+        updateLock.lock();
+        try {
+            Entry previous = entries.remove(idpId);
+            if (previous != null) {
+                removeKeys(previous);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+    
+    /**
+     * Get the number of indexed IdPs.
+     * 
+     * @return number of IdPs
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Find the best matching IdPs for a typed query.
+     * 
+     * @param query the text typed so far
+     * @param limit maximum number of results
+     * @return ranked suggestions, empty if the query has no letters or digits
+     */
+    public List<Suggestion> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Set<Entry> found = new LinkedHashSet<>();
+        collect(names, normalized, limit, found);
+        if (found.size() < limit) {
+            collect(words, normalized, limit, found);
+        }
+        List<Suggestion> suggestions = new ArrayList<>(found.size());
+        for (Entry entry : found) {
+            suggestions.add(entry.suggestion);
+        }
+        return suggestions;
+    }
+    
+    /**
+     * Normalize a name or query for matching.
+     * 
+     * @param text the text
+     * @return lower-case letters and digits, words separated by single spaces
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean space = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (space && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+    
+    private void removeKeys(Entry entry) {
+        for (Key key : entry.keys) {
+            // Only if not already replaced by a key of the new entry
+            (key.offset == 0 ? names : words).remove(key, entry);
+        }
+    }
+    
+    private static void collect(NavigableMap<Key, Entry> keys, String prefix, int limit, Set<Entry> found) {
+        for (Map.Entry<Key, Entry> match : keys.tailMap(new Key(prefix, 0, ""), true).entrySet()) {
+            if (!match.getKey().startsWith(prefix)) {
+                return;
+            }
+            found.add(match.getValue());
+            if (found.size() == limit) {
+                return;
+            }
+        }
+    }
+    
+    private static int compare(Key a, Key b) {
+        int length = Math.min(a.text.length() - a.offset, b.text.length() - b.offset);
+        for (int i = 0; i < length; i++) {
+            char x = a.text.charAt(a.offset + i);
+            char y = b.text.charAt(b.offset + i);
+            if (x != y) {
+                return x - y;
+            }
+        }
+        int difference = (a.text.length() - a.offset) - (b.text.length() - b.offset);
+        return difference != 0 ? difference : a.idpId.compareTo(b.idpId);
+    }
+    
+    /**
+     * A normalized name from a word start on, tie-broken by IdP.
+     */
+    private record Key(String text, int offset, String idpId) {
+        
+        boolean startsWith(String prefix) {
+            return text.startsWith(prefix, offset);
+        }
+    }
+    
+    /**
+     * An indexed IdP; compared by identity so stale keys can be removed
+     * without touching keys of its replacement.
+     */
+    private static final class Entry {
+        
+        private final Suggestion suggestion;
+        
+        private final List<Key> keys = new ArrayList<>();
+        
+        private Entry(Suggestion suggestion) {
+            this.suggestion = suggestion;
+        }
+    }
+    
+    /**
+     * Typeahead result.
+     * 
+     * @param idpId the IdP identifier
+     * @param displayName the name to show to users
+     * @param logoUrl the logo URL, may be null
+     * @param ssoUrl the path starting SAML authentication with the IdP
+     * @author SAML Spring Boot Application
+     * @version 1.0.0
+     */
+    public record Suggestion(String idpId, String displayName, String logoUrl, String ssoUrl) {
+    }
+}
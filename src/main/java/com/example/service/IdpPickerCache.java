@@ -0,0 +1,193 @@
+package com.example.service;
+
+import com.example.model.IdpSnapshot;
+import com.example.web.Etags;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cache of the login page's rendered IdP picker, one fragment per page.
+ * 
+ * Pages of the active IdPs, sorted by label, are rendered from the
+ * {@code fragments/idp-picker} template on first use and kept as HTML,
+ * UTF-8 and gzip bytes with a strong ETag. The cache follows the cached
+ * active IdP list: when a configuration change replaces that list with
+ * different content, all pages are dropped and rendered again on demand,
+ * so each page is rendered once per configuration version and its size
+ * does not grow with the number of tenants. Render times are recorded as
+ * {@code saml.login.picker.render}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class IdpPickerCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdpPickerCache.class);
+    
+    private static final String TEMPLATE = "fragments/idp-picker";
+    
+    private static final Comparator<IdpSnapshot> BY_LABEL =
+            Comparator.comparing((IdpSnapshot idp) -> idp.label().toLowerCase(Locale.ROOT))
+                    .thenComparing(IdpSnapshot::idpId);
+    
+    private final IdpConfigurationService idpConfigurationService;
+    
+    private final ITemplateEngine templateEngine;
+    
+    private final int pageSize;
+    
+    private final Timer renderTimer;
+    
+    private volatile Version version = new Version(List.of(), 1);
+    
+    /**
+     * @param idpConfigurationService the source of the cached active IdP list
+     * @param templateEngine the engine rendering the picker template
+     * @param pageSize IdPs per page
+     * @param meterRegistry the meter registry
+     */
+    public IdpPickerCache(IdpConfigurationService idpConfigurationService, ITemplateEngine templateEngine,
+                          int pageSize, MeterRegistry meterRegistry) {
+        this.idpConfigurationService = idpConfigurationService;
+        this.templateEngine = templateEngine;
+        this.pageSize = pageSize;
+        this.renderTimer = Timer.builder("saml.login.picker.render")
+                .description("Time to render a page of the login IdP picker")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Get the number of active IdPs in the picker.
+     * 
+     * @return active IdPs
+     */
+    public int size() {
+        return current().sorted.size();
+    }
+    
+    /**
+     * Get a rendered page of the picker.
+     * 
+     * @param number the zero-based page number; out of range numbers are clamped
+     * @return the page
+     */
+    public Page page(int number) {
+        Version current = current();
+        int clamped = Math.max(0, Math.min(number, current.pages.length() - 1));
+        Page page = current.pages.get(clamped);
+        if (page == null) {
+            // Concurrent first requests may render twice; both results are identical
+            page = render(current, clamped);
+            if (!current.pages.compareAndSet(clamped, null, page)) {
+                page = current.pages.get(clamped);
+            }
+        }
+        return page;
+    }
+    
+    private Version current() {
+        List<IdpSnapshot> source = idpConfigurationService.getAllActiveWithDetails();
+        Version current = version;
+        if (current.source == source) {
+            return current;
+        }
+        synchronized (this) {
+            current = version;
+            if (current.source != source) {
+                // A refreshed list with the same content keeps the rendered pages
+                current = current.source.equals(source)
+                        ? current.withSource(source) : new Version(source, pageSize);
+                version = current;
+            }
+            return current;
+        }
+    }
+    
+    private Page render(Version version, int number) {
+        long start = System.nanoTime();
+        try {
+            List<IdpSnapshot> idps = version.sorted.subList(Math.min(number * pageSize, version.sorted.size()),
+                    Math.min((number + 1) * pageSize, version.sorted.size()));
+            Context context = new Context(Locale.ROOT, Map.of(
+                    "idps", idps,
+                    "page", number,
+                    "pageCount", version.pages.length(),
+                    "total", version.sorted.size()));
+            String html = templateEngine.process(TEMPLATE, Set.of("picker"), context);
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+            logger.debug("Rendered IdP picker page {} of {} ({} bytes)", number + 1, version.pages.length(),
+                    bytes.length);
+            return new Page(number, version.pages.length(), html, bytes, Etags.gzip(bytes), Etags.of(bytes));
+        } finally {
+            renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Rendered pages of one version of the active IdP list.
+     */
+    private static final class Version {
+        
+        private final List<IdpSnapshot> source;
+        
+        private final List<IdpSnapshot> sorted;
+        
+        private final AtomicReferenceArray<Page> pages;
+        
+        Version(List<IdpSnapshot> source, int pageSize) {
+            this.source = source;
+            List<IdpSnapshot> sorted = new ArrayList<>(source);
+            sorted.sort(BY_LABEL);
+            this.sorted = sorted;
+            this.pages = new AtomicReferenceArray<>(Math.max(1, (sorted.size() + pageSize - 1) / pageSize));
+        }
+        
+        private Version(List<IdpSnapshot> source, List<IdpSnapshot> sorted, AtomicReferenceArray<Page> pages) {
+            this.source = source;
+            this.sorted = sorted;
+            this.pages = pages;
+        }
+        
+        Version withSource(List<IdpSnapshot> source) {
+            return new Version(source, sorted, pages);
+        }
+    }
+    
+    /**
+     * A rendered page of the picker.
+     * 
+     * @param number the zero-based page number
+     * @param pageCount the number of pages
+     * @param html the fragment
+     * @param bytes the fragment in UTF-8
+     * @param gzip the fragment in UTF-8, gzip encoded
+     * @param etag strong ETag of the identity encoding, unquoted
+     * @author SAML Spring Boot Application
+     * @version 1.0.0
+     */
+    public record Page(int number, int pageCount, String html, byte[] bytes, byte[] gzip, String etag) {
+        
+        /**
+         * Get the strong ETag of the gzip encoding.
+         * 
+         * @return unquoted ETag
+         */
+        public String gzipEtag() {
+            return Etags.gzipped(etag);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.service;
+
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationChangedEvent.Aspect;
+import com.example.event.IdpConfigurationChangedEvent.ChangeType;
+import com.example.event.IdpConfigurationResyncEvent;
+import com.example.repository.IdpConfigurationRepository;
+import com.example.service.IdpNameIndex.Suggestion;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory typeahead search over the names of active IdPs.
+ * 
+ * Loaded from {@code idp_configurations} at startup into an
+ * {@link IdpNameIndex}. Configuration changes re-read and replace only the
+ * changed IdP; a resync rebuilds the index aside and swaps it in. Searches
+ * never reach the database.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@Component
+public class IdpSearchIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdpSearchIndex.class);
+    
+    private final IdpConfigurationRepository idpConfigurationRepository;
+    
+    private volatile IdpNameIndex index = new IdpNameIndex();
+    
+    /**
+     * Serializes reloads and refreshes, so a refresh is not lost in an index
+     * being replaced; a lock rather than a monitor so a virtual thread
+     * waiting on the database does not pin its carrier thread.
+     */
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    
+    @Autowired
+    public IdpSearchIndex(IdpConfigurationRepository idpConfigurationRepository) {
+        this.idpConfigurationRepository = idpConfigurationRepository;
+    }
+    
+    /**
+     * Load the names of all active IdPs.
+     */
+    @PostConstruct
+    public void loadAll() {
+        reloadLock.lock();
+        try {
+            IdpNameIndex loaded = new IdpNameIndex();
+            for (Object[] row : idpConfigurationRepository.findActiveNames()) {
+                put(loaded, row);
+            }
+            index = loaded;
+            logger.info("Loaded {} IdP names into search index", loaded.size());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+    
+    /**
+     * Find the best matching active IdPs for a typed query.
+     * 
+     * @param query the text typed so far
+     * @param limit maximum number of results
+     * @return ranked suggestions
+     */
+    public List<Suggestion> search(String query, int limit) {
+        return index.search(query, limit);
+    }
+    
+    /**
+     * Get the number of indexed IdPs.
+     * 
+     * @return number of IdPs
+     */
+    public int size() {
+        return index.size();
+    }
+    
+    /**
+     * Re-index the IdP affected by a configuration change.
+     * 
+     * @param event the configuration change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdpConfigurationChanged(IdpConfigurationChangedEvent event) {
+        // Names, logo and the active flag are all core attributes
+        if (event.getChangeType() == ChangeType.DELETED) {
+            remove(event.getIdpId());
+        } else if (event.affects(Aspect.CONFIGURATION)) {
+            refresh(event.getIdpId());
+        }
+    }
+    
+    /**
+     * Reload every name when change notifications may have been missed.
+     * 
+     * @param event the resync event
+     */
+    @EventListener
+    public void onResync(IdpConfigurationResyncEvent event) {
+        loadAll();
+    }
+    
+    /**
+     * Replace the indexed names of a single IdP with its current ones.
+     * 
+     * @param idpId the IdP identifier
+     */
+    public void refresh(String idpId) {
+        reloadLock.lock();
+        try {
+            List<Object[]> rows = idpConfigurationRepository.findActiveNamesByIdpId(idpId);
+            if (rows.isEmpty()) {
+                index.remove(idpId);
+            } else {
+                put(index, rows.get(0));
+            }
+            logger.debug("Refreshed search index for IdP {} ({})", idpId, rows.isEmpty() ? "removed" : "indexed");
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+    
+    private void remove(String idpId) {
+        reloadLock.lock();
+        try {
+            index.remove(idpId);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+    
+    private static void put(IdpNameIndex index, Object[] row) {
+        index.put((String) row[0], (String) row[1], (String) row[2], (String) row[3]);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.session;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Store of the sessions each principal holds, enforcing the
+ * concurrent-session limit in both session modes.
+ * 
+ * Sessions beyond the limit are revoked oldest first, matching the
+ * servlet mode's {@code maximumSessions} behaviour. Revoked sessions stay
+ * known until they expire so requests still carrying them are refused.
+ * Expired sessions are reclaimed by {@link #removeExpired}, which the
+ * {@link ConcurrentSessionSweeper} calls in the background.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public interface ConcurrentSessionStore {
+    
+    /**
+     * Register a new session, revoking the principal's oldest sessions
+     * beyond the limit. Must be atomic per principal.
+     * 
+     * @param principal the principal name
+     * @param sessionId the new session's identifier
+     * @param expiresAt when the session ends unless refreshed by {@link #touch}
+     * @param maximumSessions sessions the principal may hold
+     * @return identifiers of the sessions revoked by this registration
+     */
+    List<String> register(String principal, String sessionId, Instant expiresAt, int maximumSessions);
+    
+    /**
+     * Check whether a session has been revoked.
+     * 
+     * @param sessionId the session identifier
+     * @return true if the session was revoked; unknown sessions are not
+     */
+    boolean isRevoked(String sessionId);
+    
+    /**
+     * Look up a session.
+     * 
+     * @param sessionId the session identifier
+     * @return the session, or null if unknown or expired
+     */
+    SessionRecord find(String sessionId);
+    
+    /**
+     * List a principal's sessions, revoked ones included.
+     * 
+     * @param principal the principal name
+     * @return the principal's unexpired sessions, oldest registration first
+     */
+    List<SessionRecord> findByPrincipal(String principal);
+    
+    /**
+     * List the principals holding sessions.
+     * 
+     * @return principal names
+     */
+    List<String> principals();
+    
+    /**
+     * Record activity on a session and extend its expiry. Implementations
+     * may skip updates within a granularity of their choosing.
+     * 
+     * @param sessionId the session identifier
+     * @param lastRequest when the session was last used
+     * @param expiresAt the new expiry
+     */
+    void touch(String sessionId, Instant lastRequest, Instant expiresAt);
+    
+    /**
+     * Revoke a session, keeping it known until it expires.
+     * 
+     * @param sessionId the session identifier
+     */
+    void revoke(String sessionId);
+    
+    /**
+     * Forget a session ended by logout or invalidation.
+     * 
+     * @param sessionId the session identifier
+     */
+    void remove(String sessionId);
+    
+    /**
+     * Remove up to a batch of expired sessions.
+     * 
+     * @param now the current time
+     * @param batchSize sessions to remove at most
+     * @return sessions removed; less than {@code batchSize} once none are left
+     */
+    int removeExpired(Instant now, int batchSize);
+}
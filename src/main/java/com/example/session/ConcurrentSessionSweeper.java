@@ -0,0 +1,114 @@
+package com.example.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background reclamation of expired sessions from a {@link ConcurrentSessionStore}.
+ * 
+ * Every sweep interval a single daemon thread removes expired sessions in
+ * batches until a batch comes back short, so no request pays for the
+ * cleanup and each removal holds locks only for one batch. Registers the
+ * {@code saml.sessions.swept} counter and the {@code saml.sessions.sweep}
+ * timer.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class ConcurrentSessionSweeper implements SmartLifecycle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentSessionSweeper.class);
+    
+    private final ConcurrentSessionStore store;
+    
+    private final Duration sweepInterval;
+    
+    private final int batchSize;
+    
+    private final Clock clock;
+    
+    private final Counter swept;
+    
+    private final Timer sweepTimer;
+    
+    private volatile ScheduledExecutorService executor;
+    
+    public ConcurrentSessionSweeper(ConcurrentSessionStore store, Duration sweepInterval, int batchSize, Clock clock,
+                                    MeterRegistry meterRegistry) {
+        this.store = store;
+        this.sweepInterval = sweepInterval;
+        this.batchSize = batchSize;
+        this.clock = clock;
+        this.swept = Counter.builder("saml.sessions.swept")
+                .description("Expired sessions removed from the concurrent-session store")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("saml.sessions.sweep")
+                .description("Duration of concurrent-session store sweeps")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = sweepInterval.toMillis();
+        executor.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("Sweeping expired sessions every {} in batches of {}", sweepInterval, batchSize);
+    }
+    
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = executor;
+        executor = null;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+    
+    /**
+     * Remove all sessions expired by now.
+     * 
+     * @return sessions removed
+     */
+    public int sweep() {
+        Instant now = clock.instant();
+        int total = 0;
+        Timer.Sample sample = Timer.start();
+        try {
+            int removed;
+            do {
+                removed = store.removeExpired(now, batchSize);
+                total += removed;
+                swept.increment(removed);
+            } while (removed == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next sweep retries
+            logger.warn("Session sweep failed after removing {} sessions: {}", total, e.getMessage());
+        } finally {
+            sample.stop(sweepTimer);
+        }
+        if (total > 0) {
+            logger.debug("Swept {} expired sessions", total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.session;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Login hints kept in a short-lived sealed cookie, so the email is not
+ * readable by the browser or other sites and no session is created.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class CookieLoginHintRepository implements LoginHintRepository {
+    
+    private final SealedCookie cookie;
+    
+    public CookieLoginHintRepository(SealedCookie cookie) {
+        this.cookie = cookie;
+    }
+    
+    @Override
+    public void saveLoginHint(String email, String idpId, HttpServletRequest request, HttpServletResponse response) {
+        cookie.write(response, cookie.seal(new LoginHint(email, idpId)));
+    }
+    
+    @Override
+    public String loadEmail(HttpServletRequest request) {
+        LoginHint hint = cookie.read(request, LoginHint.class);
+        return hint != null ? hint.email() : null;
+    }
+    
+    /**
+     * Content of the login hint cookie; its lifetime bounds its validity.
+     */
+    record LoginHint(@JsonProperty("e") String email, @JsonProperty("idp") String idpId) {
+    }
+}
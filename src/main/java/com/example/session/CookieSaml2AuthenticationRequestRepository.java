@@ -0,0 +1,133 @@
+package com.example.session;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.saml2.provider.service.authentication.AbstractSaml2AuthenticationRequest;
+import org.springframework.security.saml2.provider.service.authentication.Saml2PostAuthenticationRequest;
+import org.springframework.security.saml2.provider.service.authentication.Saml2RedirectAuthenticationRequest;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistrationRepository;
+import org.springframework.security.saml2.provider.service.registration.Saml2MessageBinding;
+import org.springframework.security.saml2.provider.service.web.Saml2AuthenticationRequestRepository;
+
+import java.time.Clock;
+
+/**
+ * Keeps the pending AuthnRequest in a short-lived sealed cookie instead
+ * of the {@code HttpSession}, so the IdP's Response may arrive at any node.
+ * 
+ * The cookie must be SameSite=None to be sent with the IdP's cross-site
+ * POST to the ACS, and browsers only accept that on secure cookies.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class CookieSaml2AuthenticationRequestRepository
+        implements Saml2AuthenticationRequestRepository<AbstractSaml2AuthenticationRequest> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CookieSaml2AuthenticationRequestRepository.class);
+    
+    private final SealedCookie cookie;
+    
+    private final RelyingPartyRegistrationRepository relyingPartyRegistrationRepository;
+    
+    private final Clock clock;
+    
+    public CookieSaml2AuthenticationRequestRepository(SealedCookie cookie,
+                                                      RelyingPartyRegistrationRepository relyingPartyRegistrationRepository,
+                                                      Clock clock) {
+        this.cookie = cookie;
+        this.relyingPartyRegistrationRepository = relyingPartyRegistrationRepository;
+        this.clock = clock;
+    }
+    
+    @Override
+    public AbstractSaml2AuthenticationRequest loadAuthenticationRequest(HttpServletRequest request) {
+        PendingRequest pending = cookie.read(request, PendingRequest.class);
+        if (pending == null) {
+            return null;
+        }
+        if (clock.instant().getEpochSecond() >= pending.expiresAt()) {
+            logger.debug("Pending AuthnRequest {} has expired", pending.id());
+            return null;
+        }
+        RelyingPartyRegistration registration =
+                relyingPartyRegistrationRepository.findByRegistrationId(pending.registrationId());
+        if (registration == null) {
+            logger.debug("Pending AuthnRequest {} is for unknown registration {}", pending.id(),
+                    pending.registrationId());
+            return null;
+        }
+        if (pending.binding() == Saml2MessageBinding.POST) {
+            return Saml2PostAuthenticationRequest.withRelyingPartyRegistration(registration)
+                    .id(pending.id())
+                    .samlRequest(pending.samlRequest())
+                    .relayState(pending.relayState())
+                    .authenticationRequestUri(pending.authenticationRequestUri())
+                    .build();
+        }
+        return Saml2RedirectAuthenticationRequest.withRelyingPartyRegistration(registration)
+                .id(pending.id())
+                .samlRequest(pending.samlRequest())
+                .relayState(pending.relayState())
+                .authenticationRequestUri(pending.authenticationRequestUri())
+                .sigAlg(pending.sigAlg())
+                .signature(pending.signature())
+                .build();
+    }
+    
+    @Override
+    public void saveAuthenticationRequest(AbstractSaml2AuthenticationRequest authenticationRequest,
+                                          HttpServletRequest request, HttpServletResponse response) {
+        if (authenticationRequest == null) {
+            removeAuthenticationRequest(request, response);
+            return;
+        }
+        String sigAlg = null;
+        String signature = null;
+        if (authenticationRequest instanceof Saml2RedirectAuthenticationRequest redirect) {
+            sigAlg = redirect.getSigAlg();
+            signature = redirect.getSignature();
+        }
+        long expiresAt = clock.instant().plus(cookie.getLifetime()).getEpochSecond();
+        String value = cookie.seal(new PendingRequest(authenticationRequest.getBinding(),
+                authenticationRequest.getRelyingPartyRegistrationId(), authenticationRequest.getId(),
+                authenticationRequest.getSamlRequest(), authenticationRequest.getRelayState(),
+                authenticationRequest.getAuthenticationRequestUri(), sigAlg, signature, expiresAt));
+        if (value.length() > SealedCookie.MAX_VALUE_LENGTH) {
+            logger.warn("AuthnRequest {} for {} is {} characters sealed and may be rejected by browsers",
+                    authenticationRequest.getId(), authenticationRequest.getRelyingPartyRegistrationId(),
+                    value.length());
+        }
+        cookie.write(response, value);
+    }
+    
+    @Override
+    public AbstractSaml2AuthenticationRequest removeAuthenticationRequest(HttpServletRequest request,
+                                                                         HttpServletResponse response) {
+        AbstractSaml2AuthenticationRequest authenticationRequest = loadAuthenticationRequest(request);
+        if (cookie.isPresent(request)) {
+            cookie.clear(response);
+        }
+        return authenticationRequest;
+    }
+    
+    /**
+     * Content of the AuthnRequest cookie; short property names keep it small.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record PendingRequest(@JsonProperty("b") Saml2MessageBinding binding,
+                          @JsonProperty("rp") String registrationId,
+                          @JsonProperty("id") String id,
+                          @JsonProperty("req") String samlRequest,
+                          @JsonProperty("rs") String relayState,
+                          @JsonProperty("uri") String authenticationRequestUri,
+                          @JsonProperty("alg") String sigAlg,
+                          @JsonProperty("sig") String signature,
+                          @JsonProperty("exp") long expiresAt) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.session;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.saml2.provider.service.authentication.DefaultSaml2AuthenticatedPrincipal;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticatedPrincipal;
+import org.springframework.security.saml2.provider.service.authentication.Saml2Authentication;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SecurityContextRepository;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Security context repository keeping the SAML principal in a sealed
+ * cookie instead of the {@code HttpSession}.
+ * 
+ * The cookie carries the principal name, registration id, session
+ * indexes, attributes and authorities, which is everything needed for the
+ * dashboard and SAML logout on any node. Attribute values are kept as
+ * strings and the original Response is not carried. If the attributes
+ * would make the cookie too large for browsers they are left out.
+ * 
+ * Each login gets a new session id registered in the
+ * {@link ConcurrentSessionStore}; cookies of sessions revoked there load as
+ * unauthenticated. Sessions end at the cookie lifetime regardless of
+ * activity.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class CookieSecurityContextRepository implements SecurityContextRepository {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CookieSecurityContextRepository.class);
+    
+    /** Stands in for the Response, which is not kept after authentication. */
+    static final String RESTORED_RESPONSE = "[restored from session cookie]";
+    
+    private final SealedCookie cookie;
+    
+    private final ConcurrentSessionStore sessionStore;
+    
+    private final int maximumSessions;
+    
+    private final Clock clock;
+    
+    private final SecureRandom random = new SecureRandom();
+    
+    private final SecurityContextHolderStrategy securityContextHolderStrategy =
+            SecurityContextHolder.getContextHolderStrategy();
+    
+    public CookieSecurityContextRepository(SealedCookie cookie, ConcurrentSessionStore sessionStore,
+                                           int maximumSessions, Clock clock) {
+        this.cookie = cookie;
+        this.sessionStore = sessionStore;
+        this.maximumSessions = maximumSessions;
+        this.clock = clock;
+    }
+    
+    @Override
+    @SuppressWarnings("deprecation")
+    public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+        SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+        SessionToken token = readActive(requestResponseHolder.getRequest());
+        if (token != null) {
+            context.setAuthentication(toAuthentication(token));
+        }
+        return context;
+    }
+    
+    @Override
+    public boolean containsContext(HttpServletRequest request) {
+        return readActive(request) != null;
+    }
+    
+    @Override
+    public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        Authentication authentication = context.getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof Saml2AuthenticatedPrincipal principal)) {
+            if (authentication != null && authentication.isAuthenticated()) {
+                logger.warn("Not persisting {} in the session cookie; only SAML logins are supported",
+                        authentication.getClass().getSimpleName());
+            }
+            end(request, response);
+            return;
+        }
+        
+        Instant now = clock.instant();
+        Instant expiresAt = now.plus(cookie.getLifetime());
+        String sessionId = newSessionId();
+        List<String> authorities = AuthorityUtils.authorityListToSet(authentication.getAuthorities())
+                .stream().toList();
+        SessionToken token = new SessionToken(sessionId, principal.getName(),
+                principal.getRelyingPartyRegistrationId(), now.getEpochSecond(), expiresAt.getEpochSecond(),
+                principal.getSessionIndexes(), attributes(principal.getAttributes()), authorities);
+        String value = cookie.seal(token);
+        if (value.length() > SealedCookie.MAX_VALUE_LENGTH) {
+            logger.warn("Dropping {} SAML attributes from a {} session cookie to fit browser limits",
+                    token.attributes().size(), token.registrationId());
+            value = cookie.seal(token.withoutAttributes());
+        }
+        
+        List<String> revoked = sessionStore.register(principal.getName(), sessionId, expiresAt, maximumSessions);
+        if (!revoked.isEmpty()) {
+            logger.debug("Login of {} revoked {} older session(s)", principal.getName(), revoked.size());
+        }
+        cookie.write(response, value);
+    }
+    
+    private void end(HttpServletRequest request, HttpServletResponse response) {
+        SessionToken token = cookie.read(request, SessionToken.class);
+        if (token != null) {
+            sessionStore.remove(token.sessionId());
+        }
+        if (cookie.isPresent(request)) {
+            cookie.clear(response);
+        }
+    }
+    
+    private SessionToken readActive(HttpServletRequest request) {
+        SessionToken token = cookie.read(request, SessionToken.class);
+        if (token == null) {
+            return null;
+        }
+        if (clock.instant().getEpochSecond() >= token.expiresAt()) {
+            logger.debug("Session cookie of {} has expired", token.principal());
+            return null;
+        }
+        if (sessionStore.isRevoked(token.sessionId())) {
+            logger.debug("Session of {} was revoked by a newer login", token.principal());
+            return null;
+        }
+        return token;
+    }
+    
+    private static Authentication toAuthentication(SessionToken token) {
+        Map<String, List<Object>> attributes = new LinkedHashMap<>();
+        token.attributes().forEach((name, values) -> attributes.put(name, new ArrayList<>(values)));
+        DefaultSaml2AuthenticatedPrincipal principal = new DefaultSaml2AuthenticatedPrincipal(
+                token.principal(), attributes, token.sessionIndexes());
+        principal.setRelyingPartyRegistrationId(token.registrationId());
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList(token.authorities());
+        return new Saml2Authentication(principal, RESTORED_RESPONSE, authorities);
+    }
+    
+    private static Map<String, List<String>> attributes(Map<String, List<Object>> attributes) {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        attributes.forEach((name, list) -> values.put(name,
+                list.stream().map(String::valueOf).toList()));
+        return values;
+    }
+    
+    private String newSessionId() {
+        byte[] id = new byte[16];
+        random.nextBytes(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+    }
+    
+    /**
+     * Content of the session cookie; short property names keep it small.
+     */
+    record SessionToken(@JsonProperty("sid") String sessionId,
+                        @JsonProperty("sub") String principal,
+                        @JsonProperty("rp") String registrationId,
+                        @JsonProperty("iat") long issuedAt,
+                        @JsonProperty("exp") long expiresAt,
+                        @JsonProperty("si") List<String> sessionIndexes,
+                        @JsonProperty("a") Map<String, List<String>> attributes,
+                        @JsonProperty("r") List<String> authorities) {
+        
+        SessionToken withoutAttributes() {
+            return new SessionToken(sessionId, principal, registrationId, issuedAt, expiresAt, sessionIndexes,
+                    Map.of(), authorities);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.session;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Login hints kept as {@code HttpSession} attributes.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class HttpSessionLoginHintRepository implements LoginHintRepository {
+    
+    static final String EMAIL_ATTRIBUTE = "userEmail";
+    
+    static final String IDP_ATTRIBUTE = "selectedIdp";
+    
+    @Override
+    public void saveLoginHint(String email, String idpId, HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession();
+        session.setAttribute(EMAIL_ATTRIBUTE, email);
+        session.setAttribute(IDP_ATTRIBUTE, idpId);
+    }
+    
+    @Override
+    public String loadEmail(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null ? (String) session.getAttribute(EMAIL_ATTRIBUTE) : null;
+    }
+}
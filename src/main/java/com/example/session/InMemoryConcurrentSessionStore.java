@@ -0,0 +1,469 @@
+package com.example.session;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Concurrent-session store local to this node, sized for hundreds of
+ * thousands of sessions.
+ * 
+ * Sessions are spread by id hash over {@value #STRIPES} independently
+ * locked open-addressing tables of parallel arrays, so a session costs
+ * about 40 bytes besides its id and the per-request lookups and refreshes
+ * allocate nothing. Reads are optimistic and only take the stripe's read
+ * lock when they race a write. The ids of each principal's sessions are
+ * indexed separately, and that index is only rewritten on login, logout
+ * and sweeping.
+ * 
+ * Only logins served by this node count against a principal's limit, and
+ * revocations are not seen by other nodes.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class InMemoryConcurrentSessionStore implements ConcurrentSessionStore {
+    
+    static final int STRIPES = 64;
+    
+    private static final int INITIAL_STRIPE_CAPACITY = 64;
+    
+    private static final String[] NO_SESSIONS = new String[0];
+    
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    
+    private final ConcurrentHashMap<String, String[]> sessionsByPrincipal = new ConcurrentHashMap<>();
+    
+    private final Clock clock;
+    
+    public InMemoryConcurrentSessionStore(Clock clock) {
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+    
+    @Override
+    public List<String> register(String principal, String sessionId, Instant expiresAt, int maximumSessions) {
+        long now = clock.millis();
+        List<String> revoked = new ArrayList<>(1);
+        sessionsByPrincipal.compute(principal, (key, sessionIds) -> {
+            String[] live = prune(sessionIds != null ? sessionIds : NO_SESSIONS, now);
+            stripe(sessionId).put(sessionId, principal, now, expiresAt.toEpochMilli());
+            if (!Arrays.asList(live).contains(sessionId)) {
+                live = Arrays.copyOf(live, live.length + 1);
+                live[live.length - 1] = sessionId;
+            }
+            
+            int active = 0;
+            for (String id : live) {
+                if (!stripe(id).isRevoked(id)) {
+                    active++;
+                }
+            }
+            for (int i = 0; i < live.length && active > maximumSessions; i++) {
+                if (stripe(live[i]).revoke(live[i])) {
+                    revoked.add(live[i]);
+                    active--;
+                }
+            }
+            return live;
+        });
+        return revoked;
+    }
+    
+    @Override
+    public boolean isRevoked(String sessionId) {
+        return stripe(sessionId).isRevoked(sessionId);
+    }
+    
+    @Override
+    public SessionRecord find(String sessionId) {
+        return stripe(sessionId).find(sessionId, clock.millis());
+    }
+    
+    @Override
+    public List<SessionRecord> findByPrincipal(String principal) {
+        String[] sessionIds = sessionsByPrincipal.get(principal);
+        if (sessionIds == null) {
+            return List.of();
+        }
+        long now = clock.millis();
+        List<SessionRecord> sessions = new ArrayList<>(sessionIds.length);
+        for (String sessionId : sessionIds) {
+            SessionRecord session = stripe(sessionId).find(sessionId, now);
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+    
+    @Override
+    public List<String> principals() {
+        return new ArrayList<>(sessionsByPrincipal.keySet());
+    }
+    
+    @Override
+    public void touch(String sessionId, Instant lastRequest, Instant expiresAt) {
+        stripe(sessionId).touch(sessionId, lastRequest.toEpochMilli(), expiresAt.toEpochMilli());
+    }
+    
+    @Override
+    public void revoke(String sessionId) {
+        stripe(sessionId).revoke(sessionId);
+    }
+    
+    @Override
+    public void remove(String sessionId) {
+        String principal = stripe(sessionId).remove(sessionId);
+        if (principal != null) {
+            unindex(principal, sessionId);
+        }
+    }
+    
+    @Override
+    public int removeExpired(Instant now, int batchSize) {
+        long nowMillis = now.toEpochMilli();
+        String[] removed = new String[2 * batchSize];
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            if (total == batchSize) {
+                break;
+            }
+            int count = stripe.removeExpired(nowMillis, batchSize - total, removed);
+            for (int i = 0; i < count; i++) {
+                unindex(removed[2 * i + 1], removed[2 * i]);
+            }
+            total += count;
+        }
+        return total;
+    }
+    
+    /**
+     * @return sessions currently held, revoked and not yet swept ones included
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+    
+    private void unindex(String principal, String sessionId) {
+        sessionsByPrincipal.computeIfPresent(principal, (key, sessionIds) -> {
+            int index = Arrays.asList(sessionIds).indexOf(sessionId);
+            if (index < 0) {
+                return sessionIds;
+            }
+            if (sessionIds.length == 1) {
+                return null;
+            }
+            String[] remaining = new String[sessionIds.length - 1];
+            System.arraycopy(sessionIds, 0, remaining, 0, index);
+            System.arraycopy(sessionIds, index + 1, remaining, index, remaining.length - index);
+            return remaining;
+        });
+    }
+    
+    private String[] prune(String[] sessionIds, long now) {
+        int live = 0;
+        for (String id : sessionIds) {
+            if (stripe(id).expiresAt(id) > now) {
+                live++;
+            }
+        }
+        if (live == sessionIds.length) {
+            return sessionIds;
+        }
+        String[] pruned = new String[live];
+        int i = 0;
+        for (String id : sessionIds) {
+            if (stripe(id).expiresAt(id) > now) {
+                pruned[i++] = id;
+            }
+        }
+        return pruned;
+    }
+    
+    private Stripe stripe(String sessionId) {
+        return stripes[hash(sessionId) >>> 26 & (STRIPES - 1)];
+    }
+    
+    static int hash(String sessionId) {
+        int h = sessionId.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Arrays of one stripe, replaced together when the stripe grows.
+     */
+    private static final class Slots {
+        
+        final String[] ids;
+        
+        final String[] principals;
+        
+        final long[] lastRequest;
+        
+        final long[] expiresAt;
+        
+        final boolean[] revoked;
+        
+        Slots(int capacity) {
+            ids = new String[capacity];
+            principals = new String[capacity];
+            lastRequest = new long[capacity];
+            expiresAt = new long[capacity];
+            revoked = new boolean[capacity];
+        }
+        
+        /**
+         * Linear probe for a session; the table is never more than three
+         * quarters full, so the probe always ends at an empty slot.
+         */
+        int indexOf(String sessionId) {
+            int mask = ids.length - 1;
+            int index = hash(sessionId) & mask;
+            while (true) {
+                String id = ids[index];
+                if (id == null) {
+                    return -1;
+                }
+                if (id.equals(sessionId)) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+        
+        int freeIndexOf(String sessionId) {
+            int mask = ids.length - 1;
+            int index = hash(sessionId) & mask;
+            while (ids[index] != null) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+        
+        void move(int from, int to) {
+            ids[to] = ids[from];
+            principals[to] = principals[from];
+            lastRequest[to] = lastRequest[from];
+            expiresAt[to] = expiresAt[from];
+            revoked[to] = revoked[from];
+        }
+        
+        void clear(int index) {
+            ids[index] = null;
+            principals[index] = null;
+        }
+    }
+    
+    /**
+     * One independently locked open-addressing table.
+     */
+    private static final class Stripe {
+        
+        private final StampedLock lock = new StampedLock();
+        
+        private Slots slots = new Slots(INITIAL_STRIPE_CAPACITY);
+        
+        private int size;
+        
+        long expiresAt(String sessionId) {
+            long stamp = lock.tryOptimisticRead();
+            Slots current = slots;
+            int index = current.indexOf(sessionId);
+            long expiresAt = index >= 0 ? current.expiresAt[index] : 0;
+            if (lock.validate(stamp)) {
+                return expiresAt;
+            }
+            stamp = lock.readLock();
+            try {
+                index = slots.indexOf(sessionId);
+                return index >= 0 ? slots.expiresAt[index] : 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        boolean isRevoked(String sessionId) {
+            long stamp = lock.tryOptimisticRead();
+            Slots current = slots;
+            int index = current.indexOf(sessionId);
+            boolean revoked = index >= 0 && current.revoked[index];
+            if (lock.validate(stamp)) {
+                return revoked;
+            }
+            stamp = lock.readLock();
+            try {
+                index = slots.indexOf(sessionId);
+                return index >= 0 && slots.revoked[index];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        SessionRecord find(String sessionId, long now) {
+            long stamp = lock.readLock();
+            try {
+                int index = slots.indexOf(sessionId);
+                if (index < 0 || slots.expiresAt[index] <= now) {
+                    return null;
+                }
+                return new SessionRecord(sessionId, slots.principals[index],
+                        Instant.ofEpochMilli(slots.lastRequest[index]), Instant.ofEpochMilli(slots.expiresAt[index]),
+                        slots.revoked[index]);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        void put(String sessionId, String principal, long now, long expiresAt) {
+            long stamp = lock.writeLock();
+            try {
+                int index = slots.indexOf(sessionId);
+                if (index < 0) {
+                    if ((size + 1) * 4 > slots.ids.length * 3) {
+                        grow();
+                    }
+                    index = slots.freeIndexOf(sessionId);
+                    slots.ids[index] = sessionId;
+                    size++;
+                }
+                slots.principals[index] = principal;
+                slots.lastRequest[index] = now;
+                slots.expiresAt[index] = expiresAt;
+                slots.revoked[index] = false;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        
+        void touch(String sessionId, long lastRequest, long expiresAt) {
+            long stamp = lock.writeLock();
+            try {
+                int index = slots.indexOf(sessionId);
+                if (index >= 0) {
+                    slots.lastRequest[index] = lastRequest;
+                    slots.expiresAt[index] = expiresAt;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        
+        boolean revoke(String sessionId) {
+            long stamp = lock.writeLock();
+            try {
+                int index = slots.indexOf(sessionId);
+                if (index < 0 || slots.revoked[index]) {
+                    return false;
+                }
+                slots.revoked[index] = true;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        
+        String remove(String sessionId) {
+            long stamp = lock.writeLock();
+            try {
+                return removeLocked(sessionId);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        
+        /**
+         * Remove expired sessions under a single acquisition of the write lock.
+         * 
+         * @param removed receives the id and principal of each removed session
+         * @return sessions removed, at most {@code limit}
+         */
+        int removeExpired(long now, int limit, String[] removed) {
+            long stamp = lock.writeLock();
+            try {
+                int count = 0;
+                String[] ids = slots.ids;
+                for (int i = 0; i < ids.length && count < limit; i++) {
+                    if (ids[i] != null && slots.expiresAt[i] <= now) {
+                        removed[2 * count] = ids[i];
+                        removed[2 * count + 1] = slots.principals[i];
+                        count++;
+                    }
+                }
+                // Removal shifts entries back, so only remove once all candidates are known
+                for (int i = 0; i < count; i++) {
+                    removeLocked(removed[2 * i]);
+                }
+                return count;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        /**
+         * Remove with backward-shift deletion, so no tombstones accumulate.
+         */
+        private String removeLocked(String sessionId) {
+            Slots current = slots;
+            int hole = current.indexOf(sessionId);
+            if (hole < 0) {
+                return null;
+            }
+            String principal = current.principals[hole];
+            int mask = current.ids.length - 1;
+            int index = hole;
+            while (true) {
+                index = (index + 1) & mask;
+                String id = current.ids[index];
+                if (id == null) {
+                    break;
+                }
+                int home = hash(id) & mask;
+                // Move the entry into the hole unless its home lies cyclically in (hole, index]
+                boolean stays = hole <= index ? hole < home && home <= index : hole < home || home <= index;
+                if (!stays) {
+                    current.move(index, hole);
+                    hole = index;
+                }
+            }
+            current.clear(hole);
+            size--;
+            return principal;
+        }
+        
+        private void grow() {
+            Slots current = slots;
+            Slots grown = new Slots(current.ids.length * 2);
+            for (int i = 0; i < current.ids.length; i++) {
+                if (current.ids[i] != null) {
+                    int index = grown.freeIndexOf(current.ids[i]);
+                    grown.ids[index] = current.ids[i];
+                    grown.principals[index] = current.principals[i];
+                    grown.lastRequest[index] = current.lastRequest[i];
+                    grown.expiresAt[index] = current.expiresAt[i];
+                    grown.revoked[index] = current.revoked[i];
+                }
+            }
+            slots = grown;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.session;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Concurrent-session store shared by all nodes through a PostgreSQL table.
+ * 
+ * Logins of the same principal are serialized by a transaction-scoped
+ * advisory lock, so the limit holds across nodes. Refreshes only write
+ * when the last recorded request is older than the touch interval, which
+ * keeps the per-request cost at one primary key lookup. Expired rows are
+ * deleted in batches with {@code SKIP LOCKED}, so several nodes can sweep
+ * at once without waiting on each other. Requires, as created by the
+ * {@code V2__operational_tables} migration:
+ * <pre>
+ * CREATE TABLE saml_sessions (
+ *     session_id   VARCHAR(64) PRIMARY KEY,
+ *     principal    VARCHAR(255) NOT NULL,
+ *     created_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+ *     last_request TIMESTAMP WITH TIME ZONE NOT NULL,
+ *     expires_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+ *     revoked      BOOLEAN NOT NULL DEFAULT FALSE
+ * );
+ * CREATE INDEX idx_saml_sessions_principal ON saml_sessions (principal);
+ * CREATE INDEX idx_saml_sessions_expires_at ON saml_sessions (expires_at);
+ * </pre>
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class JdbcConcurrentSessionStore implements ConcurrentSessionStore {
+    
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext(?))";
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO saml_sessions (session_id, principal, created_at, last_request, expires_at, revoked) "
+            + "VALUES (?, ?, ?, ?, ?, FALSE) "
+            + "ON CONFLICT (session_id) DO UPDATE SET principal = EXCLUDED.principal, "
+            + "created_at = EXCLUDED.created_at, last_request = EXCLUDED.last_request, "
+            + "expires_at = EXCLUDED.expires_at, revoked = FALSE";
+    
+    private static final String REVOKE_EXCESS_SQL =
+            "UPDATE saml_sessions SET revoked = TRUE WHERE session_id IN ("
+            + "SELECT session_id FROM saml_sessions WHERE principal = ? AND NOT revoked AND expires_at > ? "
+            + "ORDER BY created_at DESC, session_id DESC OFFSET ?) RETURNING session_id";
+    
+    private static final String SELECT_COLUMNS =
+            "SELECT session_id, principal, last_request, expires_at, revoked FROM saml_sessions ";
+    
+    private static final RowMapper<SessionRecord> SESSION_MAPPER = (rs, rowNum) -> new SessionRecord(
+            rs.getString("session_id"), rs.getString("principal"),
+            rs.getTimestamp("last_request").toInstant(), rs.getTimestamp("expires_at").toInstant(),
+            rs.getBoolean("revoked"));
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final Duration touchInterval;
+    
+    private final Clock clock;
+    
+    public JdbcConcurrentSessionStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                      Duration touchInterval, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.touchInterval = touchInterval;
+        this.clock = clock;
+    }
+    
+    @Override
+    public List<String> register(String principal, String sessionId, Instant expiresAt, int maximumSessions) {
+        Timestamp now = Timestamp.from(clock.instant());
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.query(LOCK_SQL, rs -> null, principal);
+            jdbcTemplate.update(INSERT_SQL, sessionId, principal, now, now, Timestamp.from(expiresAt));
+            return jdbcTemplate.queryForList(REVOKE_EXCESS_SQL, String.class, principal, now, maximumSessions);
+        });
+    }
+    
+    @Override
+    public boolean isRevoked(String sessionId) {
+        List<Boolean> revoked = jdbcTemplate.queryForList(
+                "SELECT revoked FROM saml_sessions WHERE session_id = ?", Boolean.class, sessionId);
+        return !revoked.isEmpty() && revoked.get(0);
+    }
+    
+    @Override
+    public SessionRecord find(String sessionId) {
+        List<SessionRecord> sessions = jdbcTemplate.query(
+                SELECT_COLUMNS + "WHERE session_id = ? AND expires_at > ?", SESSION_MAPPER,
+                sessionId, Timestamp.from(clock.instant()));
+        return sessions.isEmpty() ? null : sessions.get(0);
+    }
+    
+    @Override
+    public List<SessionRecord> findByPrincipal(String principal) {
+        return jdbcTemplate.query(
+                SELECT_COLUMNS + "WHERE principal = ? AND expires_at > ? ORDER BY created_at, session_id",
+                SESSION_MAPPER, principal, Timestamp.from(clock.instant()));
+    }
+    
+    @Override
+    public List<String> principals() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT principal FROM saml_sessions WHERE expires_at > ?",
+                String.class, Timestamp.from(clock.instant()));
+    }
+    
+    @Override
+    public void touch(String sessionId, Instant lastRequest, Instant expiresAt) {
+        jdbcTemplate.update("UPDATE saml_sessions SET last_request = ?, expires_at = ? "
+                        + "WHERE session_id = ? AND last_request < ?",
+                Timestamp.from(lastRequest), Timestamp.from(expiresAt), sessionId,
+                Timestamp.from(lastRequest.minus(touchInterval)));
+    }
+    
+    @Override
+    public void revoke(String sessionId) {
+        jdbcTemplate.update("UPDATE saml_sessions SET revoked = TRUE WHERE session_id = ?", sessionId);
+    }
+    
+    @Override
+    public void remove(String sessionId) {
+        jdbcTemplate.update("DELETE FROM saml_sessions WHERE session_id = ?", sessionId);
+    }
+    
+    @Override
+    public int removeExpired(Instant now, int batchSize) {
+        return jdbcTemplate.update("DELETE FROM saml_sessions WHERE session_id IN ("
+                        + "SELECT session_id FROM saml_sessions WHERE expires_at <= ? LIMIT ? FOR UPDATE SKIP LOCKED)",
+                Timestamp.from(now), batchSize);
+    }
+}
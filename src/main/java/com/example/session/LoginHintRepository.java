@@ -0,0 +1,32 @@
+package com.example.session;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Remembers the email entered on the login page and the IdP it was routed
+ * to, so the login page can be prefilled after a failed attempt.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public interface LoginHintRepository {
+    
+    /**
+     * Remember a login attempt.
+     * 
+     * @param email the email address entered
+     * @param idpId the IdP the attempt was routed to
+     * @param request the HTTP request
+     * @param response the HTTP response
+     */
+    void saveLoginHint(String email, String idpId, HttpServletRequest request, HttpServletResponse response);
+    
+    /**
+     * Recall the email of the last login attempt.
+     * 
+     * @param request the HTTP request
+     * @return the email address, or null if none is remembered
+     */
+    String loadEmail(HttpServletRequest request);
+}
@@ -0,0 +1,140 @@
+package com.example.session;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * One cookie whose value is a JSON document sealed by a
+ * {@link SessionCookieCodec}.
+ * 
+ * The cookie is HttpOnly, scoped to the whole application and sealed for
+ * its own name, so values cannot be moved between cookies.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class SealedCookie {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SealedCookie.class);
+    
+    /** Browsers reject cookies over about 4096 bytes including name and attributes. */
+    static final int MAX_VALUE_LENGTH = 3800;
+    
+    private final String name;
+    
+    private final String sameSite;
+    
+    private final Duration lifetime;
+    
+    private final boolean secure;
+    
+    private final SessionCookieCodec codec;
+    
+    private final ObjectMapper objectMapper;
+    
+    public SealedCookie(String name, String sameSite, Duration lifetime, boolean secure,
+                        SessionCookieCodec codec, ObjectMapper objectMapper) {
+        this.name = name;
+        this.sameSite = sameSite;
+        this.lifetime = lifetime;
+        this.secure = secure;
+        this.codec = codec;
+        this.objectMapper = objectMapper;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Duration getLifetime() {
+        return lifetime;
+    }
+    
+    /**
+     * Read the cookie from a request.
+     * 
+     * @param request the HTTP request
+     * @param type the type the payload was written as
+     * @return the payload, or null if the cookie is absent or not authentic
+     */
+    public <T> T read(HttpServletRequest request, Class<T> type) {
+        Cookie cookie = WebUtils.getCookie(request, name);
+        if (cookie == null || cookie.getValue().isEmpty()) {
+            return null;
+        }
+        byte[] payload = codec.open(name, cookie.getValue());
+        if (payload == null) {
+            logger.debug("Ignoring cookie {} that could not be opened", name);
+            return null;
+        }
+        try {
+            return objectMapper.readValue(payload, type);
+        } catch (IOException e) {
+            logger.debug("Ignoring cookie {} with unreadable content: {}", name, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Check whether the request carries the cookie, authentic or not.
+     * 
+     * @param request the HTTP request
+     * @return true if the cookie is present
+     */
+    public boolean isPresent(HttpServletRequest request) {
+        return WebUtils.getCookie(request, name) != null;
+    }
+    
+    /**
+     * Seal a payload without writing it.
+     * 
+     * @param payload the payload to serialize as JSON
+     * @return the sealed cookie value
+     */
+    public String seal(Object payload) {
+        try {
+            return codec.seal(name, objectMapper.writeValueAsBytes(payload));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to serialize cookie " + name, e);
+        }
+    }
+    
+    /**
+     * Write a sealed value, replacing any previous one.
+     * 
+     * @param response the HTTP response
+     * @param value a value returned by {@link #seal}
+     */
+    public void write(HttpServletResponse response, String value) {
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie(value, lifetime).toString());
+    }
+    
+    /**
+     * Remove the cookie from the browser.
+     * 
+     * @param response the HTTP response
+     */
+    public void clear(HttpServletResponse response) {
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie("", Duration.ZERO).toString());
+    }
+    
+    private ResponseCookie cookie(String value, Duration maxAge) {
+        return ResponseCookie.from(name, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite(sameSite)
+                .maxAge(maxAge)
+                .build();
+    }
+}
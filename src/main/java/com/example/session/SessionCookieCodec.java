@@ -0,0 +1,205 @@
+package com.example.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Seals cookie values with AES-256-GCM so they are both confidential and
+ * tamper-evident.
+ * 
+ * A sealed value is the URL-safe Base64 of a two byte header (format and
+ * key id), a random 96-bit nonce and the ciphertext with its 128-bit tag.
+ * The header and the cookie's purpose are authenticated as associated
+ * data, so a value sealed for one cookie is rejected in another. Payloads
+ * over a few hundred bytes are deflated before encryption.
+ * 
+ * Several keys may be configured: the first seals, all open.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class SessionCookieCodec {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SessionCookieCodec.class);
+    
+    private static final byte FORMAT_PLAIN = 1;
+    
+    private static final byte FORMAT_DEFLATED = 2;
+    
+    private static final int HEADER_LENGTH = 2;
+    
+    private static final int NONCE_LENGTH = 12;
+    
+    private static final int TAG_BITS = 128;
+    
+    private static final int DEFLATE_THRESHOLD = 256;
+    
+    /** Inflated payloads larger than this are rejected rather than expanded. */
+    private static final int MAX_PAYLOAD = 64 * 1024;
+    
+    private final List<SecretKeySpec> keys;
+    
+    private final byte[] keyIds;
+    
+    private final SecureRandom random = new SecureRandom();
+    
+    /**
+     * @param base64Keys Base64 encoded 256-bit keys, the sealing key first
+     * @throws IllegalArgumentException if no key is given or a key is not 256 bits
+     */
+    public SessionCookieCodec(List<String> base64Keys) {
+        if (base64Keys == null || base64Keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one session cookie key is required");
+        }
+        this.keys = new ArrayList<>(base64Keys.size());
+        this.keyIds = new byte[base64Keys.size()];
+        for (String base64Key : base64Keys) {
+            byte[] key = Base64.getDecoder().decode(base64Key.trim());
+            if (key.length != 32) {
+                throw new IllegalArgumentException("Session cookie keys must be 256 bits, got " + key.length * 8);
+            }
+            keyIds[keys.size()] = keyId(key);
+            keys.add(new SecretKeySpec(key, "AES"));
+        }
+        logger.info("Sealing session cookies with key {} of {}", Byte.toUnsignedInt(keyIds[0]), keys.size());
+    }
+    
+    /**
+     * Encrypt and authenticate a payload.
+     * 
+     * @param purpose the cookie the value is sealed for
+     * @param payload the plaintext
+     * @return the sealed, cookie-safe value
+     */
+    public String seal(String purpose, byte[] payload) {
+        byte format = FORMAT_PLAIN;
+        if (payload.length > DEFLATE_THRESHOLD) {
+            byte[] deflated = deflate(payload);
+            if (deflated.length < payload.length) {
+                payload = deflated;
+                format = FORMAT_DEFLATED;
+            }
+        }
+        byte[] sealed = new byte[HEADER_LENGTH + NONCE_LENGTH + payload.length + TAG_BITS / 8];
+        sealed[0] = format;
+        sealed[1] = keyIds[0];
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        System.arraycopy(nonce, 0, sealed, HEADER_LENGTH, NONCE_LENGTH);
+        try {
+            Cipher cipher = cipher(Cipher.ENCRYPT_MODE, keys.get(0), nonce, purpose, sealed);
+            cipher.doFinal(payload, 0, payload.length, sealed, HEADER_LENGTH + NONCE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to seal session cookie", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sealed);
+    }
+    
+    /**
+     * Verify and decrypt a sealed value.
+     * 
+     * @param purpose the cookie the value must have been sealed for
+     * @param value the sealed value
+     * @return the plaintext, or null if the value is malformed, was sealed
+     *         with an unknown key or for another purpose, or was altered
+     */
+    public byte[] open(String purpose, String value) {
+        byte[] sealed;
+        try {
+            sealed = Base64.getUrlDecoder().decode(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (sealed.length < HEADER_LENGTH + NONCE_LENGTH + TAG_BITS / 8
+                || (sealed[0] != FORMAT_PLAIN && sealed[0] != FORMAT_DEFLATED)) {
+            return null;
+        }
+        byte[] nonce = new byte[NONCE_LENGTH];
+        System.arraycopy(sealed, HEADER_LENGTH, nonce, 0, NONCE_LENGTH);
+        int offset = HEADER_LENGTH + NONCE_LENGTH;
+        for (int i = 0; i < keys.size(); i++) {
+            if (keyIds[i] != sealed[1]) {
+                continue;
+            }
+            try {
+                byte[] payload = cipher(Cipher.DECRYPT_MODE, keys.get(i), nonce, purpose, sealed)
+                        .doFinal(sealed, offset, sealed.length - offset);
+                return sealed[0] == FORMAT_DEFLATED ? inflate(payload) : payload;
+            } catch (GeneralSecurityException | DataFormatException e) {
+                // Key id collision or tampering; try the next candidate key
+            }
+        }
+        return null;
+    }
+    
+    private static Cipher cipher(int mode, SecretKeySpec key, byte[] nonce, String purpose, byte[] sealed)
+            throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(mode, key, new GCMParameterSpec(TAG_BITS, nonce));
+        cipher.updateAAD(sealed, 0, HEADER_LENGTH);
+        cipher.updateAAD(purpose.getBytes(StandardCharsets.UTF_8));
+        return cipher;
+    }
+    
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    private static byte[] inflate(byte[] payload) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(payload);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 3);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated payload");
+                }
+                out.write(buffer, 0, length);
+                if (out.size() > MAX_PAYLOAD) {
+                    throw new DataFormatException("Payload too large");
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    private static byte keyId(byte[] key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key)[0];
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
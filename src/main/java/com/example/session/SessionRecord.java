@@ -0,0 +1,18 @@
+package com.example.session;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of one session held in a {@link ConcurrentSessionStore}.
+ * 
+ * @param sessionId the session identifier
+ * @param principal the principal name
+ * @param lastRequest when the session was last used
+ * @param expiresAt when the session ends unless refreshed
+ * @param revoked whether a newer login or an administrator revoked it
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public record SessionRecord(String sessionId, String principal, Instant lastRequest, Instant expiresAt,
+                            boolean revoked) {
+}
@@ -0,0 +1,140 @@
+package com.example.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.session.AbstractSessionEvent;
+import org.springframework.security.core.session.SessionDestroyedEvent;
+import org.springframework.security.core.session.SessionIdChangedEvent;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Principal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Servlet-mode {@link SessionRegistry} backed by a {@link ConcurrentSessionStore},
+ * replacing Spring's {@code SessionRegistryImpl} and its synchronized
+ * per-principal sets.
+ * 
+ * Principals are keyed by name. Sessions expire after the container's
+ * idle timeout unless refreshed, so sessions whose destruction event was
+ * missed are still reclaimed by the sweeper. Expiring a
+ * {@link SessionInformation} revokes the session in the store, which makes
+ * the expiry visible to every node sharing it.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public class StoreBackedSessionRegistry implements SessionRegistry, ApplicationListener<AbstractSessionEvent> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StoreBackedSessionRegistry.class);
+    
+    private final ConcurrentSessionStore store;
+    
+    private final Duration idleTimeout;
+    
+    private final Clock clock;
+    
+    public StoreBackedSessionRegistry(ConcurrentSessionStore store, Duration idleTimeout, Clock clock) {
+        this.store = store;
+        this.idleTimeout = idleTimeout;
+        this.clock = clock;
+    }
+    
+    @Override
+    public List<Object> getAllPrincipals() {
+        return new ArrayList<>(store.principals());
+    }
+    
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal, boolean includeExpiredSessions) {
+        List<SessionInformation> sessions = new ArrayList<>();
+        for (SessionRecord session : store.findByPrincipal(name(principal))) {
+            if (includeExpiredSessions || !session.revoked()) {
+                sessions.add(new StoredSessionInformation(session));
+            }
+        }
+        return sessions;
+    }
+    
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        SessionRecord session = store.find(sessionId);
+        return session != null ? new StoredSessionInformation(session) : null;
+    }
+    
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        Instant now = clock.instant();
+        store.touch(sessionId, now, now.plus(idleTimeout));
+    }
+    
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        // The limit is enforced by Spring's ConcurrentSessionControlAuthenticationStrategy
+        store.register(name(principal), sessionId, clock.instant().plus(idleTimeout), Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        store.remove(sessionId);
+    }
+    
+    @Override
+    public void onApplicationEvent(AbstractSessionEvent event) {
+        if (event instanceof SessionDestroyedEvent destroyed) {
+            store.remove(destroyed.getId());
+        } else if (event instanceof SessionIdChangedEvent changed) {
+            SessionRecord session = store.find(changed.getOldSessionId());
+            if (session != null) {
+                store.remove(session.sessionId());
+                store.register(session.principal(), changed.getNewSessionId(), session.expiresAt(),
+                        Integer.MAX_VALUE);
+                if (session.revoked()) {
+                    store.revoke(changed.getNewSessionId());
+                }
+                logger.debug("Session id changed for a session of {}", session.principal());
+            }
+        }
+    }
+    
+    private static String name(Object principal) {
+        if (principal instanceof AuthenticatedPrincipal authenticated) {
+            return authenticated.getName();
+        }
+        if (principal instanceof Principal named) {
+            return named.getName();
+        }
+        if (principal instanceof UserDetails user) {
+            return user.getUsername();
+        }
+        return String.valueOf(principal);
+    }
+    
+    /**
+     * Session information whose expiry is written through to the store.
+     */
+    private final class StoredSessionInformation extends SessionInformation {
+        
+        StoredSessionInformation(SessionRecord session) {
+            super(session.principal(), session.sessionId(), Date.from(session.lastRequest()));
+            if (session.revoked()) {
+                super.expireNow();
+            }
+        }
+        
+        @Override
+        public void expireNow() {
+            super.expireNow();
+            store.revoke(getSessionId());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Strong ETags and gzip encoding of pre-rendered representations.
+ * 
+ * An ETag is the first 128 bits of the SHA-256 digest of the identity
+ * encoding in hex, unquoted; Spring quotes it when set on a response. The
+ * gzip encoding of a representation is a different representation and gets
+ * its own strong ETag derived from the identity one.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+public final class Etags {
+    
+    private static final String GZIP_SUFFIX = "-gzip";
+    
+    private Etags() {
+    }
+    
+    /**
+     * Get the strong ETag of a representation.
+     * 
+     * @param bytes the identity encoding
+     * @return unquoted ETag
+     */
+    public static String of(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Get the strong ETag of the gzip encoding of a representation.
+     * 
+     * @param etag the unquoted ETag of the identity encoding
+     * @return unquoted ETag
+     */
+    public static String gzipped(String etag) {
+        return etag + GZIP_SUFFIX;
+    }
+    
+    /**
+     * Gzip encode a representation.
+     * 
+     * @param bytes the identity encoding
+     * @return the gzip encoding
+     */
+    public static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            // Not thrown by an in-memory stream
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
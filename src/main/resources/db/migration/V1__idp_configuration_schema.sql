@@ -0,0 +1,38 @@
+-- IdP configuration tables mapped by the JPA entities.
+-- Existing databases created before migrations are baselined at this version
+-- (spring.flyway.baseline-on-migrate), so this script only runs on empty ones.
+
+CREATE TABLE idp_configurations (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idp_id          VARCHAR(100) NOT NULL,
+    idp_name        VARCHAR(255) NOT NULL,
+    idp_entity_id   VARCHAR(255) NOT NULL,
+    idp_sso_url     VARCHAR(500) NOT NULL,
+    idp_slo_url     VARCHAR(500),
+    idp_certificate TEXT,
+    logo_url        VARCHAR(500),
+    display_name    VARCHAR(200),
+    is_active       BOOLEAN      NOT NULL DEFAULT TRUE,
+    is_default      BOOLEAN      NOT NULL DEFAULT FALSE,
+    created_at      TIMESTAMP(6) NOT NULL,
+    updated_at      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_idp_configurations_idp_id UNIQUE (idp_id)
+);
+
+CREATE TABLE idp_properties (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idp_configuration_id BIGINT       NOT NULL REFERENCES idp_configurations (id),
+    property_name        VARCHAR(100) NOT NULL,
+    property_value       TEXT,
+    created_at           TIMESTAMP(6) NOT NULL,
+    updated_at           TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE idp_email_domains (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idp_configuration_id BIGINT       NOT NULL REFERENCES idp_configurations (id),
+    email_domain         VARCHAR(100) NOT NULL,
+    is_active            BOOLEAN      NOT NULL DEFAULT TRUE,
+    created_at           TIMESTAMP(6) NOT NULL,
+    updated_at           TIMESTAMP(6) NOT NULL
+);
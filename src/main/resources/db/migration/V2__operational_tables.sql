@@ -0,0 +1,33 @@
+-- Tables written through JDBC rather than JPA. IF NOT EXISTS keeps databases
+-- where they were created by hand from the DDL in the class comments.
+
+-- Consumed SAML message IDs (JdbcReplayCache, saml.acs.replay.store=jdbc)
+CREATE TABLE IF NOT EXISTS saml_replay_cache (
+    id_hash    BIGINT PRIMARY KEY,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_saml_replay_cache_expires_at ON saml_replay_cache (expires_at);
+
+-- Authentication audit trail (AuthAuditPipeline)
+CREATE TABLE IF NOT EXISTS auth_audit_events (
+    id             BIGSERIAL PRIMARY KEY,
+    event_type     VARCHAR(32) NOT NULL,
+    occurred_at    TIMESTAMP WITH TIME ZONE NOT NULL,
+    idp_id         VARCHAR(255),
+    email_domain   VARCHAR(255),
+    principal      VARCHAR(255),
+    remote_address VARCHAR(64),
+    detail         VARCHAR(1024)
+);
+
+-- Concurrent-session control (JdbcConcurrentSessionStore, saml.session.store=jdbc)
+CREATE TABLE IF NOT EXISTS saml_sessions (
+    session_id   VARCHAR(64) PRIMARY KEY,
+    principal    VARCHAR(255) NOT NULL,
+    created_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_request TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+    revoked      BOOLEAN NOT NULL DEFAULT FALSE
+);
+CREATE INDEX IF NOT EXISTS idx_saml_sessions_principal ON saml_sessions (principal);
+CREATE INDEX IF NOT EXISTS idx_saml_sessions_expires_at ON saml_sessions (expires_at);
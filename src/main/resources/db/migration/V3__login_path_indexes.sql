@@ -0,0 +1,32 @@
+-- Indexes for the login path and IdP administration. PostgreSQL does not
+-- index foreign keys or arbitrary lookup columns on its own.
+
+-- findByEmailDomain and the metadata importer's active-mapping check compare
+-- lower-cased domains; only active mappings route logins.
+CREATE INDEX IF NOT EXISTS idx_idp_email_domains_active_domain
+    ON idp_email_domains (lower(email_domain))
+    WHERE is_active;
+
+-- Email domains of one IdP: lazy collections, findActiveEmailDomainsByIdpId,
+-- cascaded deletes and the importer's replace-by-IdP.
+CREATE INDEX IF NOT EXISTS idx_idp_email_domains_configuration
+    ON idp_email_domains (idp_configuration_id);
+
+-- Properties of one IdP, and the importer's lookup of its metadata digest.
+CREATE INDEX IF NOT EXISTS idx_idp_properties_configuration_name
+    ON idp_properties (idp_configuration_id, property_name);
+
+-- findByIdpEntityId
+CREATE INDEX IF NOT EXISTS idx_idp_configurations_entity_id
+    ON idp_configurations (idp_entity_id);
+
+-- findByIsDefaultTrue reads at most one row; enforce it. Fails if several
+-- IdPs are marked default, which findByIsDefaultTrue rejects as well.
+CREATE UNIQUE INDEX IF NOT EXISTS uk_idp_configurations_default
+    ON idp_configurations (is_default)
+    WHERE is_default;
+
+-- Revoking a principal's excess sessions, newest first
+CREATE INDEX IF NOT EXISTS idx_saml_sessions_principal_created
+    ON saml_sessions (principal, created_at DESC)
+    WHERE NOT revoked;
@@ -0,0 +1,134 @@
+package com.example.audit;
+
+import com.example.audit.AuthAuditEvent.Type;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link AuthAuditPipeline}.
+ * 
+ * The JDBC template records the batches it is given instead of writing
+ * them. The flush interval is long enough that, once the writer is idle,
+ * only {@link AuthAuditPipeline#stop()} makes it write again.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+class AuthAuditPipelineTest {
+    
+    private static final int BATCH_SIZE = 10;
+    
+    private final List<List<AuthAuditEvent>> batches = new CopyOnWriteArrayList<>();
+    
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    private final AuthAuditPipeline pipeline = new AuthAuditPipeline(jdbcTemplate, meterRegistry, 64, BATCH_SIZE,
+            Duration.ofHours(1), Duration.ofSeconds(10));
+    
+    AuthAuditPipelineTest() {
+        doAnswer(invocation -> {
+            // The pipeline reuses its batch list, so keep a copy
+            batches.add(new ArrayList<>(invocation.<Collection<AuthAuditEvent>>getArgument(1)));
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+    
+    @Test
+    void stopDrainsAndFlushesBufferedEvents() throws Exception {
+        pipeline.start();
+        awaitWriterIdle();
+        List<AuthAuditEvent> events = events(25);
+        events.forEach(pipeline::record);
+        assertThat(batches).isEmpty();
+        
+        pipeline.stop();
+        
+        assertThat(pipeline.isRunning()).isFalse();
+        assertThat(batches).extracting(List::size).containsExactly(10, 10, 5);
+        assertThat(batches.stream().flatMap(List::stream)).containsExactlyElementsOf(events);
+        assertThat(count("written")).isEqualTo(25);
+    }
+    
+    @Test
+    void fullBufferDropsAndCountsEvents() {
+        List<AuthAuditEvent> events = events(70);
+        
+        long recorded = events.stream().filter(pipeline::record).count();
+        
+        assertThat(recorded).isEqualTo(64);
+        assertThat(count("dropped")).isEqualTo(6);
+    }
+    
+    @Test
+    void failedBatchIsCountedAndWriterCarriesOn() throws Exception {
+        doAnswer(invocation -> {
+            throw new DataAccessResourceFailureException("database unavailable");
+        }).doAnswer(invocation -> {
+            batches.add(new ArrayList<>(invocation.<Collection<AuthAuditEvent>>getArgument(1)));
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        pipeline.start();
+        awaitWriterIdle();
+        events(15).forEach(pipeline::record);
+        
+        pipeline.stop();
+        
+        assertThat(count("failed")).isEqualTo(10);
+        assertThat(count("written")).isEqualTo(5);
+        assertThat(batches).extracting(List::size).containsExactly(5);
+    }
+    
+    /**
+     * Wait until the writer has found the buffer empty and parked for the
+     * flush interval.
+     */
+    private static void awaitWriterIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals("auth-audit-writer") && thread.getState() == Thread.State.TIMED_WAITING) {
+                    return;
+                }
+            }
+            Thread.sleep(1);
+        }
+        throw new AssertionError("Authentication audit writer did not go idle");
+    }
+    
+    private double count(String outcome) {
+        return meterRegistry.counter("saml.audit.events", "outcome", outcome).count();
+    }
+    
+    private static List<AuthAuditEvent> events(int count) {
+        List<AuthAuditEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(AuthAuditEvent.now(Type.LOGIN_INITIATED, null, "example.com", null, "192.0.2.1",
+                    "event-" + i));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link MpscRingBuffer}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+class MpscRingBufferTest {
+    
+    @Test
+    void capacityMustBePowerOfTwo() {
+        assertThatThrownBy(() -> new MpscRingBuffer<>(6)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MpscRingBuffer<>(1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(new MpscRingBuffer<>(8).capacity()).isEqualTo(8);
+    }
+    
+    @Test
+    void offerFailsOnceFullUntilPolled() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+        
+        assertThat(buffer.poll()).isEqualTo(0);
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(buffer.offer(5)).isFalse();
+    }
+    
+    @Test
+    void pollReturnsNullWhenEmpty() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        
+        assertThat(buffer.poll()).isNull();
+        buffer.offer(1);
+        buffer.poll();
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+    
+    @Test
+    void elementsKeepOrderOverManyLaps() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        
+        // Fill, then take two, so the head and tail wrap at different slots on every lap
+        for (int round = 0; round < 40; round++) {
+            while (buffer.offer(next)) {
+                next++;
+            }
+            assertThat(buffer.size()).isEqualTo(4);
+            assertThat(buffer.poll()).isEqualTo(expected++);
+            assertThat(buffer.poll()).isEqualTo(expected++);
+        }
+        for (Integer element = buffer.poll(); element != null; element = buffer.poll()) {
+            assertThat(element).isEqualTo(expected++);
+        }
+        
+        assertThat(expected).isEqualTo(next).isGreaterThan(20 * buffer.capacity());
+    }
+    
+    @Test
+    void concurrentProducersLoseAndDuplicateNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> running = new ArrayList<>(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            running.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // Yield rather than spin, so a producer that claimed a slot gets to publish it even on one core
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(producer * perProducer + i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        
+        start.countDown();
+        BitSet seen = new BitSet(producers * perProducer);
+        int[] lastSeen = new int[producers];
+        Arrays.fill(lastSeen, -1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (int received = 0; received < producers * perProducer; ) {
+            Integer element = buffer.poll();
+            if (element == null) {
+                assertThat(System.nanoTime()).as("time out waiting for elements").isLessThan(deadline);
+                Thread.yield();
+                continue;
+            }
+            assertThat(seen.get(element)).as("duplicate %s", element).isFalse();
+            seen.set(element);
+            // Each producer's elements arrive in the order it offered them
+            int producer = element / perProducer;
+            assertThat(element % perProducer).isGreaterThan(lastSeen[producer]);
+            lastSeen[producer] = element % perProducer;
+            received++;
+        }
+        
+        CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        assertThat(seen.cardinality()).isEqualTo(producers * perProducer);
+        assertThat(buffer.poll()).isNull();
+    }
+}
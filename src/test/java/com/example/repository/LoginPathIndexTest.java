@@ -0,0 +1,152 @@
+package com.example.repository;
+
+import com.example.entity.IdpConfiguration;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the login-path lookups are served by the V3 migration's
+ * indexes.
+ * 
+ * Runs the Flyway migrations against PostgreSQL, records the SQL that
+ * Hibernate generates for each repository lookup and asserts on its
+ * {@code EXPLAIN} output. Sequential scans are disabled for the session,
+ * so the planner falls back to one only when no index matches the query,
+ * independent of table size and statistics. Skipped without Docker.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.repository.LoginPathIndexTest$RecordingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class LoginPathIndexTest {
+    
+    private static final int TENANTS = 2000;
+    
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+    
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+    
+    @Autowired
+    private IdpConfigurationRepository idpConfigurationRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @BeforeEach
+    void seed() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> idps = new ArrayList<>(TENANTS);
+        for (int i = 0; i < TENANTS; i++) {
+            idps.add(new Object[] {"idp-" + i, "Tenant " + i, "https://tenant-" + i + ".example.com/idp",
+                    "https://tenant-" + i + ".example.com/sso", i == 0, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO idp_configurations (idp_id, idp_name, idp_entity_id, idp_sso_url, "
+                + "is_active, is_default, created_at, updated_at) VALUES (?, ?, ?, ?, TRUE, ?, ?, ?)", idps);
+        jdbcTemplate.update("INSERT INTO idp_email_domains (idp_configuration_id, email_domain, is_active, "
+                + "created_at, updated_at) SELECT id, 'Tenant-' || substr(idp_id, 5) || '.Example.com', "
+                + "substr(idp_id, 5)::int % 10 <> 9, created_at, updated_at FROM idp_configurations");
+        jdbcTemplate.execute("ANALYZE");
+        // Applies to the test transaction, which the repository calls join
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+    
+    @Test
+    void emailDomainLookupUsesPartialLowerIndex() {
+        String domain = "TENANT-42.example.COM";
+        
+        assertThat(idpConfigurationRepository.findByEmailDomain(domain))
+                .map(IdpConfiguration::getIdpId).contains("idp-42");
+        
+        String plan = explainLastStatement(domain);
+        assertThat(plan).contains("idx_idp_email_domains_active_domain").doesNotContain("Seq Scan");
+    }
+    
+    @Test
+    void entityIdLookupUsesEntityIdIndex() {
+        String entityId = "https://tenant-42.example.com/idp";
+        
+        assertThat(idpConfigurationRepository.findByIdpEntityId(entityId))
+                .map(IdpConfiguration::getIdpId).contains("idp-42");
+        
+        String plan = explainLastStatement(entityId);
+        assertThat(plan).contains("idx_idp_configurations_entity_id").doesNotContain("Seq Scan");
+    }
+    
+    @Test
+    void defaultIdpLookupUsesPartialDefaultIndex() {
+        assertThat(idpConfigurationRepository.findByIsDefaultTrue())
+                .map(IdpConfiguration::getIdpId).contains("idp-0");
+        
+        String plan = explainLastStatement();
+        assertThat(plan).contains("uk_idp_configurations_default").doesNotContain("Seq Scan");
+    }
+    
+    /**
+     * Explain the last statement Hibernate prepared, with its parameters
+     * inlined as literals in order.
+     */
+    private String explainLastStatement(String... parameters) {
+        List<String> statements = RecordingStatementInspector.STATEMENTS;
+        assertThat(statements).isNotEmpty();
+        String sql = statements.get(statements.size() - 1).replaceAll("(?s)/\\*.*?\\*/", "");
+        
+        Matcher placeholders = Pattern.compile("\\?").matcher(sql);
+        StringBuilder inlined = new StringBuilder();
+        int index = 0;
+        while (placeholders.find()) {
+            String literal = "'" + parameters[index++].replace("'", "''") + "'";
+            placeholders.appendReplacement(inlined, Matcher.quoteReplacement(literal));
+        }
+        placeholders.appendTail(inlined);
+        assertThat(index).as("parameters of %s", sql).isEqualTo(parameters.length);
+        
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + inlined, String.class));
+    }
+    
+    /**
+     * Records the SQL of every statement Hibernate prepares.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+        
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+        
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.saml;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link BucketedReplayCache}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+class BucketedReplayCacheTest {
+    
+    private static final Duration RETENTION = Duration.ofMinutes(15);
+    
+    private static final Duration BUCKET = Duration.ofMinutes(1);
+    
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    
+    @Test
+    void fullBucketSpillsInsteadOfRejectingLogins() {
+        BucketedReplayCache cache = new BucketedReplayCache(RETENTION, BUCKET, 100, 3, clock);
+        Instant expiresAt = clock.instant().plus(Duration.ofMinutes(5));
+        
+        for (int i = 0; i < 350; i++) {
+            assertThat(cache.putIfAbsent(id(i), expiresAt)).as("id %d", i).isTrue();
+        }
+        
+        assertThat(cache.size()).isEqualTo(350);
+        for (int i = 0; i < 350; i++) {
+            assertThat(cache.putIfAbsent(id(i), expiresAt)).as("replayed id %d", i).isFalse();
+        }
+    }
+    
+    @Test
+    void spilledIdsAreDetectedFromOtherBuckets() {
+        BucketedReplayCache cache = new BucketedReplayCache(RETENTION, BUCKET, 10, 2, clock);
+        Instant expiresAt = clock.instant().plus(Duration.ofMinutes(5));
+        for (int i = 0; i < 25; i++) {
+            cache.putIfAbsent(id(i), expiresAt);
+        }
+        
+        // Same identifiers replayed with a later expiry target another bucket
+        Instant later = expiresAt.plus(Duration.ofMinutes(3));
+        for (int i = 0; i < 25; i++) {
+            assertThat(cache.putIfAbsent(id(i), later)).as("replayed id %d", i).isFalse();
+        }
+    }
+    
+    @Test
+    void reusedBucketReleasesSpill() {
+        BucketedReplayCache cache = new BucketedReplayCache(RETENTION, BUCKET, 10, 2, clock);
+        Instant expiresAt = clock.instant().plus(Duration.ofMinutes(5));
+        for (int i = 0; i < 25; i++) {
+            cache.putIfAbsent(id(i), expiresAt);
+        }
+        
+        // A full turn of the ring later the same bucket is reused for new expiry times
+        Duration ring = BUCKET.multipliedBy(RETENTION.dividedBy(BUCKET) + 2);
+        clock.advance(ring);
+        
+        assertThat(cache.putIfAbsent(id(0), expiresAt.plus(ring))).isTrue();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+    
+    @Test
+    void bucketPastSpillLimitFailsClosed() {
+        BucketedReplayCache cache = new BucketedReplayCache(RETENTION, BUCKET, 10, 1, clock);
+        Instant expiresAt = clock.instant().plus(Duration.ofMinutes(5));
+        for (int i = 0; i < 20; i++) {
+            assertThat(cache.putIfAbsent(id(i), expiresAt)).as("id %d", i).isTrue();
+        }
+        
+        assertThatThrownBy(() -> cache.putIfAbsent(id(20), expiresAt)).isInstanceOf(IllegalStateException.class);
+        assertThat(cache.size()).isEqualTo(20);
+        assertThat(cache.spillCount()).isEqualTo(1);
+        assertThat(cache.overflowCount()).isEqualTo(1);
+        // Recorded identifiers are still detected, and other buckets still accept new ones
+        assertThat(cache.putIfAbsent(id(5), expiresAt)).isFalse();
+        assertThat(cache.putIfAbsent(id(20), expiresAt.plus(BUCKET))).isTrue();
+    }
+    
+    @Test
+    void capacityCoversPeakLoginRate() {
+        assertThat(BucketedReplayCache.capacityFor(300, 3, Duration.ofMinutes(1))).isEqualTo(54000);
+        assertThat(BucketedReplayCache.capacityFor(0.5, 3, Duration.ofSeconds(1))).isEqualTo(2);
+        assertThat(BucketedReplayCache.capacityFor(0, 3, Duration.ofMinutes(1))).isEqualTo(1);
+    }
+    
+    private static long id(int i) {
+        return ReplayIds.hash("test", "id-" + i);
+    }
+    
+    /**
+     * Clock moved forward by the tests.
+     */
+    private static final class MutableClock extends Clock {
+        
+        private Instant now;
+        
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+        
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+        
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.saml;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opensaml.core.config.InitializationService;
+import org.opensaml.core.xml.XMLObjectBuilderFactory;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.opensaml.saml.saml2.core.Assertion;
+import org.opensaml.saml.saml2.core.Conditions;
+import org.opensaml.saml.saml2.core.Issuer;
+import org.opensaml.saml.saml2.core.NameID;
+import org.opensaml.saml.saml2.core.Response;
+import org.opensaml.saml.saml2.core.Subject;
+import org.springframework.security.saml2.provider.service.authentication.OpenSaml4AuthenticationProvider.ResponseToken;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationException;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationToken;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
+
+import javax.xml.namespace.QName;
+import java.lang.reflect.Constructor;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ReplayCheckingResponseAuthenticationConverter}.
+ * 
+ * Responses are built as {@code OpenSaml4AuthenticationProvider} hands
+ * them to the converter: decrypted, with the assertion among the plain
+ * assertions, and already validated.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+class ReplayCheckingResponseAuthenticationConverterTest {
+    
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    
+    private static final String IDP = "https://idp.example.com/idp";
+    
+    private final BucketedReplayCache replayCache = new BucketedReplayCache(Duration.ofMinutes(15),
+            Duration.ofMinutes(1), 100, 0, Clock.fixed(NOW, ZoneOffset.UTC));
+    
+    private final ReplayCheckingResponseAuthenticationConverter converter =
+            new ReplayCheckingResponseAuthenticationConverter(new Saml2ReplayGuard(replayCache,
+                    Duration.ofMinutes(5), Duration.ofMinutes(10), Clock.fixed(NOW, ZoneOffset.UTC),
+                    new SimpleMeterRegistry()));
+    
+    @BeforeAll
+    static void initializeOpenSaml() throws Exception {
+        InitializationService.initialize();
+    }
+    
+    @Test
+    void decryptedAssertionReplayedUnderNewResponseIdIsRejected() throws Exception {
+        assertThat(converter.convert(responseToken("response-1", assertion("assertion-1"))).getName())
+                .isEqualTo("user@example.com");
+        
+        // An unsolicited Response carries no InResponseTo, and an unsigned one can be given any ID
+        ResponseToken replay = responseToken("response-2", assertion("assertion-1"));
+        assertThatThrownBy(() -> converter.convert(replay))
+                .isInstanceOf(Saml2AuthenticationException.class)
+                .hasMessageContaining("already been used");
+    }
+    
+    @Test
+    void distinctAssertionsAreAccepted() throws Exception {
+        converter.convert(responseToken("response-1", assertion("assertion-1")));
+        
+        assertThat(converter.convert(responseToken("response-2", assertion("assertion-2")))).isNotNull();
+    }
+    
+    @Test
+    void assertionIdsAreScopedToTheIssuer() throws Exception {
+        converter.convert(responseToken("response-1", assertion("assertion-1")));
+        Assertion sameIdOtherIssuer = assertion("assertion-1");
+        sameIdOtherIssuer.getIssuer().setValue("https://other.example.com/idp");
+        
+        assertThat(converter.convert(responseToken("response-2", sameIdOtherIssuer))).isNotNull();
+    }
+    
+    private static ResponseToken responseToken(String responseId, Assertion assertion) throws Exception {
+        Response response = build(Response.DEFAULT_ELEMENT_NAME);
+        response.setID(responseId);
+        response.getAssertions().add(assertion);
+        RelyingPartyRegistration registration = RelyingPartyRegistration.withRegistrationId("idp")
+                .entityId("https://sp.example.com/saml2/service-provider-metadata/idp")
+                .assertionConsumerServiceLocation("https://sp.example.com/login/saml2/sso/idp")
+                .assertingPartyDetails(party -> party.entityId(IDP)
+                        .singleSignOnServiceLocation("https://idp.example.com/sso"))
+                .build();
+        // Only the provider creates response tokens, and its default converter reads their fields
+        Constructor<ResponseToken> constructor = ResponseToken.class.getDeclaredConstructor(Response.class,
+                Saml2AuthenticationToken.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(response, new Saml2AuthenticationToken(registration, "<Response/>"));
+    }
+    
+    private static Assertion assertion(String id) {
+        Issuer issuer = build(Issuer.DEFAULT_ELEMENT_NAME);
+        issuer.setValue(IDP);
+        NameID nameId = build(NameID.DEFAULT_ELEMENT_NAME);
+        nameId.setValue("user@example.com");
+        Subject subject = build(Subject.DEFAULT_ELEMENT_NAME);
+        subject.setNameID(nameId);
+        Conditions conditions = build(Conditions.DEFAULT_ELEMENT_NAME);
+        conditions.setNotOnOrAfter(NOW.plus(Duration.ofMinutes(5)));
+        
+        Assertion assertion = build(Assertion.DEFAULT_ELEMENT_NAME);
+        assertion.setID(id);
+        assertion.setIssuer(issuer);
+        assertion.setSubject(subject);
+        assertion.setConditions(conditions);
+        return assertion;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T build(QName name) {
+        XMLObjectBuilderFactory builders = XMLObjectProviderRegistrySupport.getBuilderFactory();
+        return (T) builders.getBuilderOrThrow(name).buildObject(name);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.service;
+
+import com.example.entity.IdpConfiguration;
+import com.example.event.IdpConfigurationChangedEvent;
+import com.example.event.IdpConfigurationChangedEvent.ChangeType;
+import com.example.model.IdpSnapshot;
+import com.example.repository.IdpConfigurationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests that lookups after a committed IdP change do not join a snapshot
+ * load that read the previous state.
+ * 
+ * The first load of an IdP reads its row and then blocks, holding its
+ * single-flight slot, while another transaction commits a change.
+ * Runs against an embedded H2 database without a test-managed
+ * transaction, so the change is really committed.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdpConfigurationServiceReloadTest {
+    
+    private static final String IDP_ID = "idp-1";
+    
+    @Autowired
+    private IdpConfigurationRepository idpConfigurationRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private final CountDownLatch leaderRead = new CountDownLatch(1);
+    
+    private final CountDownLatch releaseLeader = new CountDownLatch(1);
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    private IdpConfigurationService service;
+    
+    private TransactionTemplate transaction;
+    
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            IdpConfiguration configuration = new IdpConfiguration(IDP_ID, "Before",
+                    "https://idp-1.example.com/idp", "https://idp-1.example.com/sso");
+            configuration.setIsActive(true);
+            configuration.setIsDefault(false);
+            configuration.setCreatedAt(now);
+            configuration.setUpdatedAt(now);
+            idpConfigurationRepository.save(configuration);
+        });
+        
+        // The first lookup reads the row, then holds its single-flight slot until released
+        IdpConfigurationRepository blockingRepository = mock(IdpConfigurationRepository.class,
+                delegatesTo(idpConfigurationRepository));
+        doAnswer(invocation -> {
+            Optional<IdpConfiguration> read = idpConfigurationRepository.findByIdpId(invocation.getArgument(0));
+            leaderRead.countDown();
+            releaseLeader.await(10, TimeUnit.SECONDS);
+            return read;
+        }).doAnswer(invocation -> idpConfigurationRepository.findByIdpId(invocation.getArgument(0)))
+                .when(blockingRepository).findByIdpId(anyString());
+        
+        service = new IdpConfigurationService(blockingRepository,
+                new EmailDomainIndex(idpConfigurationRepository), event -> { }, meterRegistry);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        releaseLeader.countDown();
+        transaction.executeWithoutResult(status -> idpConfigurationRepository.deleteAll());
+    }
+    
+    @Test
+    void reloadAfterCommitDoesNotJoinStaleLoad() throws Exception {
+        CompletableFuture<Optional<IdpSnapshot>> leader = startLeader();
+        commitRename("After");
+        
+        Optional<IdpSnapshot> reloaded = read(() -> service.reloadSnapshot(IDP_ID));
+        
+        assertThat(reloaded).map(IdpSnapshot::idpName).contains("After");
+        releaseLeader.countDown();
+        assertThat(leader.get(10, TimeUnit.SECONDS)).map(IdpSnapshot::idpName).contains("Before");
+    }
+    
+    @Test
+    void lookupAfterEvictionDoesNotJoinStaleLoad() throws Exception {
+        CompletableFuture<Optional<IdpSnapshot>> leader = startLeader();
+        commitRename("After");
+        
+        new IdpCacheEvictor(new ConcurrentMapCacheManager(), service).onIdpConfigurationChanged(
+                new IdpConfigurationChangedEvent(IDP_ID, null, ChangeType.UPDATED));
+        Optional<IdpSnapshot> loaded = read(() -> service.loadSnapshot(IDP_ID));
+        
+        assertThat(loaded).map(IdpSnapshot::idpName).contains("After");
+        releaseLeader.countDown();
+        leader.get(10, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    void lookupWithoutChangeJoinsLoadInFlight() throws Exception {
+        CompletableFuture<Optional<IdpSnapshot>> leader = startLeader();
+        CompletableFuture<Optional<IdpSnapshot>> follower = CompletableFuture.supplyAsync(
+                () -> read(() -> service.loadSnapshot(IDP_ID)));
+        while (meterRegistry.counter("idp.lookup.coalesced", "loader", "idpConfigurationByIdpId").count() == 0) {
+            Thread.sleep(1);
+        }
+        
+        releaseLeader.countDown();
+        
+        assertThat(follower.get(10, TimeUnit.SECONDS)).isEqualTo(leader.get(10, TimeUnit.SECONDS));
+    }
+    
+    private CompletableFuture<Optional<IdpSnapshot>> startLeader() throws InterruptedException {
+        CompletableFuture<Optional<IdpSnapshot>> leader = CompletableFuture.supplyAsync(
+                () -> read(() -> service.loadSnapshot(IDP_ID)));
+        assertThat(leaderRead.await(10, TimeUnit.SECONDS)).isTrue();
+        return leader;
+    }
+    
+    private void commitRename(String idpName) {
+        transaction.executeWithoutResult(status -> idpConfigurationRepository.findByIdpId(IDP_ID)
+                .orElseThrow()
+                .setIdpName(idpName));
+    }
+    
+    /**
+     * Run a lookup in a read-only transaction, as the service proxy would.
+     */
+    private Optional<IdpSnapshot> read(Supplier<Optional<IdpSnapshot>> lookup) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> lookup.get());
+    }
+}
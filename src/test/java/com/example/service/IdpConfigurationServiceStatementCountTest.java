@@ -0,0 +1,106 @@
+package com.example.service;
+
+import com.example.entity.IdpConfiguration;
+import com.example.entity.IdpEmailDomain;
+import com.example.entity.IdpProperty;
+import com.example.model.IdpSnapshot;
+import com.example.repository.IdpConfigurationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement-count regression test for loading the active IdP snapshots.
+ * 
+ * Runs against an embedded H2 database with Hibernate statistics enabled;
+ * the Flyway migrations use PostgreSQL-only DDL, so the schema is created
+ * from the entities.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class IdpConfigurationServiceStatementCountTest {
+    
+    @Autowired
+    private IdpConfigurationRepository idpConfigurationRepository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void loadActiveSnapshotsRunsThreeStatementsForAnyNumberOfIdps(int idps) {
+        for (int i = 0; i < idps; i++) {
+            entityManager.persist(idp("idp-" + i, true));
+        }
+        entityManager.persist(idp("inactive", false));
+        // Snapshots must be built from queries, not from entities still held by the session
+        entityManager.flush();
+        entityManager.clear();
+        
+        IdpConfigurationService service = new IdpConfigurationService(idpConfigurationRepository,
+                new EmailDomainIndex(idpConfigurationRepository), event -> { }, new SimpleMeterRegistry());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        
+        List<IdpSnapshot> snapshots = service.loadActiveSnapshots();
+        
+        assertThat(snapshots).hasSize(idps);
+        assertThat(snapshots).allSatisfy(snapshot -> {
+            assertThat(snapshot.properties()).containsKeys("sign_requests", "name_id_format");
+            assertThat(snapshot.emailDomains()).containsExactlyInAnyOrder(
+                    snapshot.idpId() + ".example.com", snapshot.idpId() + ".example.org");
+        });
+        // Configurations, properties and email domains
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+    
+    private static IdpConfiguration idp(String idpId, boolean active) {
+        LocalDateTime now = LocalDateTime.now();
+        IdpConfiguration configuration = new IdpConfiguration(idpId, "IdP " + idpId,
+                "https://" + idpId + ".example.com/idp", "https://" + idpId + ".example.com/sso");
+        configuration.setIsActive(active);
+        configuration.setIsDefault(false);
+        configuration.setCreatedAt(now);
+        configuration.setUpdatedAt(now);
+        configuration.addProperty(property("sign_requests", "true", now));
+        configuration.addProperty(property("name_id_format", "emailAddress", now));
+        configuration.addEmailDomain(emailDomain(idpId + ".example.com", now));
+        configuration.addEmailDomain(emailDomain(idpId + ".example.org", now));
+        return configuration;
+    }
+    
+    private static IdpProperty property(String name, String value, LocalDateTime now) {
+        IdpProperty property = new IdpProperty(name, value);
+        property.setCreatedAt(now);
+        property.setUpdatedAt(now);
+        return property;
+    }
+    
+    private static IdpEmailDomain emailDomain(String domain, LocalDateTime now) {
+        IdpEmailDomain emailDomain = new IdpEmailDomain(domain, true);
+        emailDomain.setCreatedAt(now);
+        emailDomain.setUpdatedAt(now);
+        return emailDomain;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link InMemoryConcurrentSessionStore}.
+ * 
+ * Session ids are chosen by hash so they land in one stripe, and where
+ * needed at the end of its initial 64-slot table, so probe chains wrap
+ * around and the stripe grows.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+class InMemoryConcurrentSessionStoreTest {
+    
+    private static final int INITIAL_CAPACITY = 64;
+    
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    
+    private final InMemoryConcurrentSessionStore store = new InMemoryConcurrentSessionStore(clock);
+    
+    private final Instant expiresAt = clock.instant().plus(Duration.ofHours(1));
+    
+    @Test
+    void removeKeepsWrappedProbeChainReachable() {
+        // Ids homed at the last slot and at slot 0, interleaved, occupy slots 63 and 0 to 4
+        List<String> lastSlot = sessionIds(0, INITIAL_CAPACITY - 1, 3);
+        List<String> firstSlot = sessionIds(0, 0, 3);
+        List<String> chain = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            chain.add(lastSlot.get(i));
+            chain.add(firstSlot.get(i));
+        }
+        
+        for (String removed : chain) {
+            InMemoryConcurrentSessionStore store = new InMemoryConcurrentSessionStore(clock);
+            for (String sessionId : chain) {
+                store.register("user", sessionId, expiresAt, Integer.MAX_VALUE);
+            }
+            
+            store.remove(removed);
+            
+            assertThat(store.find(removed)).as("removed %s", removed).isNull();
+            for (String sessionId : chain) {
+                if (!sessionId.equals(removed)) {
+                    assertThat(store.find(sessionId)).as("%s after removing %s", sessionId, removed).isNotNull();
+                }
+            }
+            assertThat(store.size()).isEqualTo(chain.size() - 1);
+        }
+    }
+    
+    @Test
+    void removingWholeWrappedChainInAnyOrderEmptiesTheStripe() {
+        List<String> chain = sessionIds(0, INITIAL_CAPACITY - 2, 6);
+        for (String sessionId : chain) {
+            store.register("user", sessionId, expiresAt, Integer.MAX_VALUE);
+        }
+        
+        for (int i = 0; i < chain.size(); i++) {
+            // Alternate ends of the chain
+            String removed = chain.get(i % 2 == 0 ? i / 2 : chain.size() - 1 - i / 2);
+            store.remove(removed);
+            assertThat(store.find(removed)).isNull();
+        }
+        
+        assertThat(store.size()).isZero();
+        assertThat(store.principals()).isEmpty();
+    }
+    
+    @Test
+    void stripeGrowsPastThreeQuartersLoad() {
+        // 1000 sessions in one stripe grow its table from 64 to 2048 slots
+        List<String> sessionIds = sessionIds(7, -1, 1000);
+        for (int i = 0; i < sessionIds.size(); i++) {
+            store.register("user-" + i % 10, sessionIds.get(i), expiresAt, Integer.MAX_VALUE);
+        }
+        
+        assertThat(store.size()).isEqualTo(1000);
+        for (String sessionId : sessionIds) {
+            assertThat(store.find(sessionId)).as(sessionId).isNotNull();
+        }
+        
+        // Removals after growth still find every remaining entry
+        for (int i = 0; i < sessionIds.size(); i += 2) {
+            store.remove(sessionIds.get(i));
+        }
+        for (int i = 0; i < sessionIds.size(); i++) {
+            SessionRecord session = store.find(sessionIds.get(i));
+            assertThat(session == null).as(sessionIds.get(i)).isEqualTo(i % 2 == 0);
+        }
+        assertThat(store.size()).isEqualTo(500);
+    }
+    
+    @Test
+    void registerRevokesOldestSessionsBeyondLimit() {
+        assertThat(store.register("user", "s1", expiresAt, 2)).isEmpty();
+        assertThat(store.register("user", "s2", expiresAt, 2)).isEmpty();
+        
+        assertThat(store.register("user", "s3", expiresAt, 2)).containsExactly("s1");
+        assertThat(store.register("user", "s4", expiresAt, 2)).containsExactly("s2");
+        
+        assertThat(store.isRevoked("s1")).isTrue();
+        assertThat(store.isRevoked("s2")).isTrue();
+        assertThat(store.isRevoked("s3")).isFalse();
+        assertThat(store.isRevoked("s4")).isFalse();
+        // Revoked sessions stay known until they expire, in registration order
+        assertThat(store.findByPrincipal("user")).extracting(SessionRecord::sessionId)
+                .containsExactly("s1", "s2", "s3", "s4");
+    }
+    
+    @Test
+    void reregisteringSessionDoesNotCountTwice() {
+        store.register("user", "s1", expiresAt, 2);
+        store.register("user", "s2", expiresAt, 2);
+        
+        assertThat(store.register("user", "s2", expiresAt, 2)).isEmpty();
+        
+        assertThat(store.findByPrincipal("user")).extracting(SessionRecord::sessionId).containsExactly("s1", "s2");
+    }
+    
+    @Test
+    void limitIsPerPrincipal() {
+        store.register("alice", "a1", expiresAt, 1);
+        store.register("bob", "b1", expiresAt, 1);
+        
+        assertThat(store.register("alice", "a2", expiresAt, 1)).containsExactly("a1");
+        assertThat(store.isRevoked("b1")).isFalse();
+    }
+    
+    @Test
+    void expiredSessionsDoNotCountAgainstLimit() {
+        store.register("user", "s1", clock.instant().plus(Duration.ofMinutes(1)), 1);
+        clock.advance(Duration.ofMinutes(2));
+        
+        assertThat(store.register("user", "s2", expiresAt, 1)).isEmpty();
+        assertThat(store.findByPrincipal("user")).extracting(SessionRecord::sessionId).containsExactly("s2");
+    }
+    
+    @Test
+    void removeExpiredWorksInBatches() {
+        Instant soon = clock.instant().plus(Duration.ofMinutes(1));
+        for (int i = 0; i < 250; i++) {
+            store.register("expiring-" + i % 7, "expired-" + i, soon, Integer.MAX_VALUE);
+        }
+        for (int i = 0; i < 50; i++) {
+            store.register("active-" + i % 7, "live-" + i, expiresAt, Integer.MAX_VALUE);
+        }
+        Instant later = soon.plus(Duration.ofMinutes(1));
+        
+        assertThat(store.removeExpired(later, 100)).isEqualTo(100);
+        assertThat(store.removeExpired(later, 100)).isEqualTo(100);
+        assertThat(store.removeExpired(later, 100)).isEqualTo(50);
+        assertThat(store.removeExpired(later, 100)).isZero();
+        
+        assertThat(store.size()).isEqualTo(50);
+        for (int i = 0; i < 50; i++) {
+            assertThat(store.find("live-" + i)).isNotNull();
+        }
+    }
+    
+    @Test
+    void principalIndexFollowsRemovals() {
+        Instant soon = clock.instant().plus(Duration.ofMinutes(1));
+        store.register("alice", "a1", expiresAt, 3);
+        store.register("alice", "a2", soon, 3);
+        store.register("bob", "b1", soon, 3);
+        
+        store.remove("a1");
+        assertThat(store.findByPrincipal("alice")).extracting(SessionRecord::sessionId).containsExactly("a2");
+        
+        store.removeExpired(soon.plus(Duration.ofSeconds(1)), 10);
+        
+        assertThat(store.findByPrincipal("alice")).isEmpty();
+        assertThat(store.findByPrincipal("bob")).isEmpty();
+        assertThat(store.principals()).isEmpty();
+    }
+    
+    @Test
+    void touchAndRevokeAreVisibleThroughFind() {
+        store.register("user", "s1", expiresAt, 2);
+        Instant lastRequest = clock.instant().plus(Duration.ofMinutes(10));
+        Instant extended = expiresAt.plus(Duration.ofMinutes(10));
+        
+        store.touch("s1", lastRequest, extended);
+        store.revoke("s1");
+        
+        assertThat(store.find("s1")).isEqualTo(new SessionRecord("s1", "user", lastRequest, extended, true));
+    }
+    
+    /**
+     * Generate session ids in one stripe.
+     * 
+     * @param stripe the stripe index
+     * @param home the slot in the initial table, or -1 for any
+     * @param count ids to generate
+     */
+    private static List<String> sessionIds(int stripe, int home, int count) {
+        List<String> sessionIds = new ArrayList<>(count);
+        for (int n = 0; sessionIds.size() < count; n++) {
+            String sessionId = "session-" + n;
+            int hash = InMemoryConcurrentSessionStore.hash(sessionId);
+            if ((hash >>> 26 & (InMemoryConcurrentSessionStore.STRIPES - 1)) == stripe
+                    && (home < 0 || (hash & (INITIAL_CAPACITY - 1)) == home)) {
+                sessionIds.add(sessionId);
+            }
+        }
+        return sessionIds;
+    }
+    
+    /**
+     * Clock moved forward by the tests.
+     */
+    private static final class MutableClock extends Clock {
+        
+        private Instant now;
+        
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+        
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+        
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
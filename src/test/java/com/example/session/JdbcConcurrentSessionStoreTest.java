@@ -0,0 +1,253 @@
+package com.example.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link JdbcConcurrentSessionStore}.
+ * 
+ * Runs the Flyway migrations against PostgreSQL, since the store relies on
+ * advisory locks, {@code ON CONFLICT} and {@code SKIP LOCKED}. Runs without
+ * a test-managed transaction, so concurrent registrations really contend
+ * for the advisory lock. Skipped without Docker.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class JdbcConcurrentSessionStoreTest {
+    
+    private static final Duration TOUCH_INTERVAL = Duration.ofMinutes(1);
+    
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+    
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    
+    private final Instant expiresAt = clock.instant().plus(Duration.ofHours(1));
+    
+    private JdbcConcurrentSessionStore store;
+    
+    @BeforeEach
+    void setUp() {
+        store = new JdbcConcurrentSessionStore(jdbcTemplate, new TransactionTemplate(transactionManager),
+                TOUCH_INTERVAL, clock);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM saml_sessions");
+    }
+    
+    @Test
+    void registerRevokesOldestSessionsBeyondLimit() {
+        assertThat(register("user", "s1", 2)).isEmpty();
+        assertThat(register("user", "s2", 2)).isEmpty();
+        
+        assertThat(register("user", "s3", 2)).containsExactly("s1");
+        assertThat(register("user", "s4", 2)).containsExactly("s2");
+        
+        assertThat(store.isRevoked("s1")).isTrue();
+        assertThat(store.isRevoked("s2")).isTrue();
+        assertThat(store.isRevoked("s3")).isFalse();
+        assertThat(store.isRevoked("s4")).isFalse();
+        assertThat(store.isRevoked("unknown")).isFalse();
+    }
+    
+    @Test
+    void limitIsPerPrincipal() {
+        register("alice", "a1", 1);
+        register("bob", "b1", 1);
+        
+        assertThat(register("alice", "a2", 1)).containsExactly("a1");
+        assertThat(store.isRevoked("b1")).isFalse();
+    }
+    
+    @Test
+    void expiredSessionsDoNotCountAgainstLimit() {
+        store.register("user", "s1", clock.instant().plus(Duration.ofMinutes(1)), 1);
+        clock.advance(Duration.ofMinutes(2));
+        
+        assertThat(store.register("user", "s2", expiresAt, 1)).isEmpty();
+        assertThat(store.find("s1")).isNull();
+        assertThat(store.findByPrincipal("user")).extracting(SessionRecord::sessionId).containsExactly("s2");
+    }
+    
+    @Test
+    void concurrentRegistrationsKeepLimit() throws Exception {
+        int logins = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<List<String>>> registrations = new ArrayList<>(logins);
+        for (int i = 0; i < logins; i++) {
+            String sessionId = "s" + i;
+            registrations.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return store.register("user", sessionId, expiresAt, 2);
+            }));
+        }
+        
+        start.countDown();
+        int revoked = 0;
+        for (CompletableFuture<List<String>> registration : registrations) {
+            revoked += registration.get(10, TimeUnit.SECONDS).size();
+        }
+        
+        assertThat(revoked).isEqualTo(logins - 2);
+        assertThat(store.findByPrincipal("user")).filteredOn(session -> !session.revoked()).hasSize(2);
+    }
+    
+    @Test
+    void reregisteringSessionReinstatesIt() {
+        register("user", "s1", 1);
+        register("user", "s2", 1);
+        
+        assertThat(register("user", "s1", 1)).containsExactly("s2");
+        
+        assertThat(store.isRevoked("s1")).isFalse();
+        assertThat(store.findByPrincipal("user")).hasSize(2);
+    }
+    
+    @Test
+    void touchWritesOnlyAfterInterval() {
+        register("user", "s1", 2);
+        Instant registeredAt = clock.instant();
+        
+        store.touch("s1", registeredAt.plusSeconds(30), expiresAt.plusSeconds(30));
+        assertThat(store.find("s1").lastRequest()).isEqualTo(registeredAt);
+        
+        Instant lastRequest = registeredAt.plus(TOUCH_INTERVAL).plusSeconds(1);
+        store.touch("s1", lastRequest, expiresAt.plus(TOUCH_INTERVAL));
+        assertThat(store.find("s1")).isEqualTo(new SessionRecord("s1", "user", lastRequest,
+                expiresAt.plus(TOUCH_INTERVAL), false));
+    }
+    
+    @Test
+    void findByPrincipalReturnsLiveSessionsInLoginOrder() {
+        register("user", "s2", 5);
+        store.register("user", "s1", clock.instant().plus(Duration.ofMinutes(5)), 5);
+        register("user", "s3", 5);
+        register("other", "o1", 5);
+        clock.advance(Duration.ofMinutes(10));
+        
+        assertThat(store.findByPrincipal("user")).extracting(SessionRecord::sessionId).containsExactly("s2", "s3");
+        assertThat(store.principals()).containsExactlyInAnyOrder("user", "other");
+    }
+    
+    @Test
+    void removeExpiredWorksInBatches() {
+        Instant soon = clock.instant().plus(Duration.ofMinutes(1));
+        Timestamp now = Timestamp.from(clock.instant());
+        List<Object[]> sessions = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            sessions.add(new Object[] {"session-" + i, now, now, Timestamp.from(i < 250 ? soon : expiresAt)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO saml_sessions (session_id, principal, created_at, last_request, "
+                + "expires_at) VALUES (?, 'user', ?, ?, ?)", sessions);
+        Instant later = soon.plus(Duration.ofMinutes(1));
+        
+        assertThat(store.removeExpired(later, 100)).isEqualTo(100);
+        assertThat(store.removeExpired(later, 100)).isEqualTo(100);
+        assertThat(store.removeExpired(later, 100)).isEqualTo(50);
+        assertThat(store.removeExpired(later, 100)).isZero();
+        
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM saml_sessions", Integer.class)).isEqualTo(50);
+    }
+    
+    @Test
+    void removeDeletesSession() {
+        register("user", "s1", 2);
+        
+        store.remove("s1");
+        
+        assertThat(store.find("s1")).isNull();
+        assertThat(store.principals()).isEmpty();
+    }
+    
+    /**
+     * Register a session one second after the previous one, so login order
+     * is unambiguous.
+     */
+    private List<String> register(String principal, String sessionId, int maximumSessions) {
+        clock.advance(Duration.ofSeconds(1));
+        return store.register(principal, sessionId, expiresAt, maximumSessions);
+    }
+    
+    /**
+     * Clock moved forward by the tests.
+     */
+    private static final class MutableClock extends Clock {
+        
+        private volatile Instant now;
+        
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+        
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+        
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link SessionCookieCodec}.
+ * 
+ * @author SAML Spring Boot Application
+ * @version 1.0.0
+ */
+class SessionCookieCodecTest {
+    
+    private static final String PURPOSE = "SAML_SESSION";
+    
+    private static final int MAX_PAYLOAD = 64 * 1024;
+    
+    private final String key = randomKey();
+    
+    private final SessionCookieCodec codec = new SessionCookieCodec(List.of(key));
+    
+    @Test
+    void shortPayloadRoundTripsWithoutDeflate() {
+        byte[] payload = "user@example.com".getBytes(StandardCharsets.UTF_8);
+        
+        String sealed = codec.seal(PURPOSE, payload);
+        
+        // Header, nonce and tag around the plaintext
+        assertThat(Base64.getUrlDecoder().decode(sealed)).hasSize(2 + 12 + payload.length + 16);
+        assertThat(codec.open(PURPOSE, sealed)).isEqualTo(payload);
+    }
+    
+    @Test
+    void longPayloadRoundTripsDeflated() {
+        byte[] payload = "attribute=value;".repeat(100).getBytes(StandardCharsets.UTF_8);
+        
+        String sealed = codec.seal(PURPOSE, payload);
+        
+        assertThat(Base64.getUrlDecoder().decode(sealed).length).isLessThan(payload.length);
+        assertThat(codec.open(PURPOSE, sealed)).isEqualTo(payload);
+    }
+    
+    @Test
+    void incompressiblePayloadRoundTrips() {
+        byte[] payload = new byte[1024];
+        new SecureRandom().nextBytes(payload);
+        
+        assertThat(codec.open(PURPOSE, codec.seal(PURPOSE, payload))).isEqualTo(payload);
+    }
+    
+    @Test
+    void sealingIsRandomized() {
+        byte[] payload = "user@example.com".getBytes(StandardCharsets.UTF_8);
+        
+        assertThat(codec.seal(PURPOSE, payload)).isNotEqualTo(codec.seal(PURPOSE, payload));
+    }
+    
+    @Test
+    void anyTamperedByteIsRejected() {
+        byte[] sealed = Base64.getUrlDecoder().decode(codec.seal(PURPOSE,
+                "user@example.com".getBytes(StandardCharsets.UTF_8)));
+        
+        for (int i = 0; i < sealed.length; i++) {
+            byte[] tampered = sealed.clone();
+            tampered[i] ^= 1;
+            assertThat(codec.open(PURPOSE, encode(tampered))).as("flipped byte %d", i).isNull();
+        }
+    }
+    
+    @Test
+    void valueSealedForAnotherCookieIsRejected() {
+        String sealed = codec.seal("SAML_LOGIN_HINT", "idp-1".getBytes(StandardCharsets.UTF_8));
+        
+        assertThat(codec.open(PURPOSE, sealed)).isNull();
+        assertThat(codec.open("SAML_LOGIN_HINT", sealed)).isNotNull();
+    }
+    
+    @Test
+    void retiredKeyStillOpensOldValues() {
+        byte[] payload = "user@example.com".getBytes(StandardCharsets.UTF_8);
+        String sealedWithOldKey = codec.seal(PURPOSE, payload);
+        SessionCookieCodec rotated = new SessionCookieCodec(List.of(randomKey(), key));
+        
+        assertThat(rotated.open(PURPOSE, sealedWithOldKey)).isEqualTo(payload);
+        // New values are sealed with the first key, which the old codec does not know
+        assertThat(codec.open(PURPOSE, rotated.seal(PURPOSE, payload))).isNull();
+    }
+    
+    @Test
+    void unknownKeyIsRejected() {
+        String sealed = new SessionCookieCodec(List.of(randomKey())).seal(PURPOSE, new byte[16]);
+        
+        assertThat(codec.open(PURPOSE, sealed)).isNull();
+    }
+    
+    @Test
+    void payloadInflatingPastLimitIsRejected() {
+        // Zeros deflate about a thousandfold, so a small cookie would expand past the limit
+        String bomb = codec.seal(PURPOSE, new byte[MAX_PAYLOAD + 1]);
+        assertThat(bomb.length()).isLessThan(1024);
+        
+        assertThat(codec.open(PURPOSE, bomb)).isNull();
+        assertThat(codec.open(PURPOSE, codec.seal(PURPOSE, new byte[MAX_PAYLOAD]))).hasSize(MAX_PAYLOAD);
+    }
+    
+    @Test
+    void truncatedOrMalformedValueIsRejected() {
+        byte[] sealed = Base64.getUrlDecoder().decode(codec.seal(PURPOSE,
+                "attribute=value;".repeat(100).getBytes(StandardCharsets.UTF_8)));
+        
+        for (int length = 0; length < sealed.length; length += 7) {
+            byte[] truncated = new byte[length];
+            System.arraycopy(sealed, 0, truncated, 0, length);
+            assertThat(codec.open(PURPOSE, encode(truncated))).as("truncated to %d bytes", length).isNull();
+        }
+        assertThat(codec.open(PURPOSE, "not*base64")).isNull();
+        assertThat(codec.open(PURPOSE, "")).isNull();
+    }
+    
+    @Test
+    void keysMustBe256Bits() {
+        String shortKey = Base64.getEncoder().encodeToString(new byte[16]);
+        
+        assertThatThrownBy(() -> new SessionCookieCodec(List.of(shortKey)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SessionCookieCodec(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static String encode(byte[] sealed) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sealed);
+    }
+    
+    private static String randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+}